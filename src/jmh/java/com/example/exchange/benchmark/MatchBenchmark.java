@@ -0,0 +1,81 @@
+package com.example.exchange.benchmark;
+
+import com.example.exchange.engine.IdGenerator;
+import com.example.exchange.engine.OrderBook;
+import com.example.exchange.engine.OrderPool;
+import com.example.exchange.model.Order;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Propusnost OrderBook.match na engine niti, bez ring buffer-a i journal-a.
+ * Svaki nalog se otkazuje posle restingOrders novih naloga (kao u stvarnom toku, gde se vecina
+ * naloga otkaze), pa knjiga ima stabilnu velicinu i operacija je match + cancel.
+ * passive sa velikim restingOrders meri upis u duboku knjigu.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class MatchBenchmark {
+
+    @Param({"1000", "100000"})
+    int restingOrders;
+
+    private OrderFlow crossingFlow;
+    private OrderFlow passiveFlow;
+    private OrderBook book;
+    private long[] live;
+    private long nextOrderId;
+    private long trades;
+
+    @Setup(Level.Trial)
+    public void createFlows() {
+        crossingFlow = OrderFlow.crossing(0.3, 4);
+        passiveFlow = OrderFlow.passive(50);
+    }
+
+    @Setup(Level.Iteration)
+    public void createBook() {
+        book = new OrderBook(OrderFlow.SYMBOL, OrderFlow.TICK, new OrderPool(), new IdGenerator(0),
+                (symbol, sequence, tradeId, buyOrderId, sellOrderId, buyPrice, sellPrice, price, amount) -> trades++);
+        live = new long[restingOrders];
+        nextOrderId = 0;
+        // knjiga se puni do stabilne velicine pre merenja
+        for (int i = 0; i < restingOrders; i++) {
+            place(passiveFlow);
+        }
+    }
+
+    @Benchmark
+    public int crossing() {
+        return place(crossingFlow);
+    }
+
+    @Benchmark
+    public int passive() {
+        return place(passiveFlow);
+    }
+
+    private int place(OrderFlow flow) {
+        long orderId = ++nextOrderId;
+        int slot = (int) (orderId % live.length);
+        long expired = live[slot];
+        if (expired != 0) {
+            book.cancel(expired);
+        }
+        live[slot] = orderId;
+        Order order = flow.next(orderId);
+        return book.match(order);
+    }
+
+    @TearDown(Level.Iteration)
+    public void checkBook() {
+        if (book.getRestingOrderCount() > restingOrders) {
+            throw new IllegalStateException("Book grew past " + restingOrders + " orders");
+        }
+    }
+}
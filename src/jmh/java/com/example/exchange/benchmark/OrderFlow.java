@@ -0,0 +1,90 @@
+package com.example.exchange.benchmark;
+
+import com.example.exchange.model.Order;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.TickSize;
+
+import java.util.SplittableRandom;
+
+/**
+ * Unapred generisan tok naloga za benchmark-e, sa fiksnim seed-om pa je svako pokretanje isto.
+ * Pomak cene od mid-a u tick-ovima ima eksponencijalnu raspodelu (vecina naloga je blizu
+ * najbolje cene, a rep ide duboko u knjigu), a mid polako luta oko pocetne vrednosti.
+ * Kolicine su 1-100 sa vise malih naloga.
+ */
+public final class OrderFlow {
+
+    public static final TickSize TICK = TickSize.of(0.01);
+    public static final String SYMBOL = "BENCH";
+
+    private static final long MID_TICKS = 10_000; // 100.00
+    private static final int SIZE = 1 << 16;
+
+    private final Order[] orders = new Order[SIZE];
+    private int next;
+
+    private OrderFlow() {
+    }
+
+    /**
+     * Tok u kom je deo naloga agresivan (cena preko mid-a) i uparuje se sa knjigom.
+     * @param aggressiveShare udeo naloga koji prelaze mid
+     * @param meanOffsetTicks prosecan pomak od mid-a
+     */
+    public static OrderFlow crossing(double aggressiveShare, double meanOffsetTicks) {
+        OrderFlow flow = new OrderFlow();
+        SplittableRandom random = new SplittableRandom(42);
+        long mid = MID_TICKS;
+        for (int i = 0; i < SIZE; i++) {
+            if (random.nextInt(100) == 0) {
+                // lutanje mid-a sa povratkom ka pocetnoj vrednosti
+                mid += random.nextInt(3) - 1 + Long.signum(MID_TICKS - mid);
+            }
+            boolean buy = random.nextBoolean();
+            long offset = offset(random, meanOffsetTicks);
+            boolean aggressive = random.nextDouble() < aggressiveShare;
+            long ticks = buy == aggressive ? mid + offset : mid - 1 - offset;
+            flow.orders[i] = order(ticks, amount(random), buy);
+        }
+        return flow;
+    }
+
+    /**
+     * Tok koji nikad ne prelazi mid – svaki nalog ostaje u knjizi.
+     */
+    public static OrderFlow passive(double meanOffsetTicks) {
+        OrderFlow flow = new OrderFlow();
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < SIZE; i++) {
+            boolean buy = random.nextBoolean();
+            long offset = 1 + offset(random, meanOffsetTicks);
+            flow.orders[i] = order(buy ? MID_TICKS - offset : MID_TICKS + offset, amount(random), buy);
+        }
+        return flow;
+    }
+
+    /**
+     * Sledeci nalog iz toka sa novim ID-jem; isti Order objekat se ponovo koristi posle SIZE naloga.
+     */
+    public Order next(long orderId) {
+        Order order = orders[next];
+        next = (next + 1) & (SIZE - 1);
+        order.assignId(orderId);
+        return order;
+    }
+
+    private static long offset(SplittableRandom random, double mean) {
+        return (long) (-mean * Math.log(1 - random.nextDouble()));
+    }
+
+    private static int amount(SplittableRandom random) {
+        double u = random.nextDouble();
+        return 1 + (int) (99 * u * u);
+    }
+
+    private static Order order(long ticks, int amount, boolean buy) {
+        Order order = new Order(SYMBOL, TICK.toPrice(ticks), amount, buy ? OrderType.BUY : OrderType.SELL);
+        order.applyTickSize(TICK);
+        return order;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.exchange.benchmark;
+
+import com.example.exchange.model.Order;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Unos naloga sa journal-om, od addOrder do potvrde, iz 64 klijentske niti istovremeno:
+ * propusnost i raspodela kasnjenja (SampleTime daje p50-p99.99) za podrazumevani scheduler
+ * potvrda i za virtuelne niti (execution.virtual-threads, samo na Java 21+).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(64)
+@Fork(1)
+public class SubmissionBenchmark {
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    private Path directory;
+    private OrderService service;
+
+    @Setup
+    public void start() throws IOException {
+        directory = Files.createTempDirectory("submission-bench");
+        service = new OrderService();
+        service.setWebSocketHandler(null);
+        ReflectionTestUtils.setField(service, "journalEnabled", true);
+        ReflectionTestUtils.setField(service, "journalPath", directory.resolve("journal.dat").toString());
+        ReflectionTestUtils.setField(service, "virtualThreads", virtualThreads);
+        service.startWorkers();
+        if (virtualThreads && !service.isUsingVirtualThreads()) {
+            throw new IllegalStateException("Virtual threads need Java 21, running " + Runtime.version());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Client {
+        // nalozi oko mid-a, pola se uparuje pa knjiga ostaje mala
+        private final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+
+        Order next() {
+            boolean buy = random.nextBoolean();
+            double price = 100.0 + (buy ? 1 : -1) * random.nextInt(5) * 0.01;
+            return new Order(OrderFlow.SYMBOL, price, 1 + random.nextInt(10), buy ? OrderType.BUY : OrderType.SELL);
+        }
+    }
+
+    @Benchmark
+    public Order submit(Client client) {
+        return service.addOrder(client.next()).block();
+    }
+
+    @TearDown
+    public void stop() throws IOException {
+        service.shutdown();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
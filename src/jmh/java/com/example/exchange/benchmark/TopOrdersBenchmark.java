@@ -0,0 +1,41 @@
+package com.example.exchange.benchmark;
+
+import com.example.exchange.engine.IdGenerator;
+import com.example.exchange.engine.OrderBook;
+import com.example.exchange.engine.OrderPool;
+import com.example.exchange.model.TopOrdersResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getTopOrders na knjizi sa 100 000 naloga rasporedjenih po realnoj raspodeli cena.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopOrdersBenchmark {
+
+    @Param({"1", "10", "100"})
+    int depth;
+
+    private OrderBook book;
+
+    @Setup
+    public void fillBook() {
+        book = new OrderBook(OrderFlow.SYMBOL, OrderFlow.TICK, new OrderPool(), new IdGenerator(0),
+                (symbol, sequence, tradeId, buyOrderId, sellOrderId, buyPrice, sellPrice, price, amount) -> { });
+        OrderFlow flow = OrderFlow.passive(50);
+        for (long id = 1; id <= 100_000; id++) {
+            book.match(flow.next(id));
+        }
+    }
+
+    @Benchmark
+    public TopOrdersResponse topOrders() {
+        return book.getTopOrders(depth);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.exchange.benchmark;
+
+import com.example.exchange.history.TradeHistory;
+import com.example.exchange.model.MatchRecord;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * getLatestMatches: citanje poslednjih limit trejdova iz pune istorije u memoriji.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TradeHistoryBenchmark {
+
+    private static final int CAPACITY = 100_000;
+
+    @Param({"10", "100", "1000"})
+    int limit;
+
+    private TradeHistory history;
+
+    @Setup
+    public void fillHistory() {
+        history = new TradeHistory(CAPACITY);
+        long timestamp = System.currentTimeMillis();
+        for (int i = 1; i <= CAPACITY; i++) {
+            history.append(i, i, OrderFlow.SYMBOL, 2L * i, 2L * i + 1, 100.0 + i % 50 * 0.01, 100.0, 1 + i % 100, timestamp + i);
+        }
+    }
+
+    @Benchmark
+    public List<MatchRecord> latest() {
+        return history.latest(limit);
+    }
+
+    @TearDown
+    public void close() throws IOException {
+        history.close();
+    }
+}
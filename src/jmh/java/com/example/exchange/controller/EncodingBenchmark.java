@@ -0,0 +1,99 @@
+package com.example.exchange.controller;
+
+import com.example.exchange.benchmark.OrderFlow;
+import com.example.exchange.model.Order;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.PriceLevel;
+import com.example.exchange.model.TopOrdersResponse;
+import com.example.exchange.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kodiranje WebSocket poruka koje server najcesce salje. U paketu controller je jer su
+ * enkoderi package-private delovi OrderWebSocketHandler-a i BinaryProtocol-a.
+ * Poruke po sesiji idu u pooled Netty buffer (kao u serveru) i odmah se oslobadjaju;
+ * topOrdersJackson je poredjenje sa ranijim kodiranjem preko ObjectMapper-a.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodingBenchmark {
+
+    private OrderWebSocketHandler handler;
+    private Order order;
+    private TopOrdersResponse top;
+    private byte[] topPayload;
+    private final DataBufferFactory factory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Setup
+    public void setUp() {
+        handler = new OrderWebSocketHandler(new OrderService());
+        order = new Order("AAPL", 101.25, 20, OrderType.BUY);
+        order.assignId(123_456_789L);
+
+        List<PriceLevel> buys = new ArrayList<>();
+        List<PriceLevel> sells = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            // cene kao u knjizi: iz tick-ova, pa su tacni decimalni brojevi
+            buys.add(new PriceLevel(OrderFlow.TICK.toPrice(10_000 - i), 100 + i * 7, 1 + i % 4, OrderType.BUY));
+            sells.add(new PriceLevel(OrderFlow.TICK.toPrice(10_001 + i), 90 + i * 5, 1 + i % 3, OrderType.SELL));
+        }
+        top = new TopOrdersResponse(buys, sells);
+        topPayload = JsonEncoder.local().topOrders(top).toByteArray();
+    }
+
+    @Benchmark
+    public byte[] orderMatchedJson() {
+        return handler.encodeTrade("AAPL", 987_654L, 123_456_789L, 123_456_790L, 101.25, 101.0, 20);
+    }
+
+    @Benchmark
+    public byte[] orderMatchedBinary() {
+        return BinaryProtocol.trade("AAPL", 987_654L, 1_001L, 1_002L, 101.25, 101.0, 20);
+    }
+
+    @Benchmark
+    public int orderAcceptedJson() {
+        var buffer = handler.encodeOrderAccepted(factory, order);
+        int length = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return length;
+    }
+
+    /**
+     * Payload pri promasaju kesa u pogledu na knjigu
+     */
+    @Benchmark
+    public byte[] topOrdersJson() {
+        return JsonEncoder.local().topOrders(top).toByteArray();
+    }
+
+    /**
+     * Poruka oko kesiranog payload-a – uobicajen put za GET_TOP_ORDERS
+     */
+    @Benchmark
+    public int topOrdersMessage() {
+        var buffer = JsonEncoder.topOrdersMessage(factory, topPayload);
+        int length = buffer.readableByteCount();
+        DataBufferUtils.release(buffer);
+        return length;
+    }
+
+    @Benchmark
+    public byte[] topOrdersJackson() throws Exception {
+        return objectMapper.writeValueAsBytes(top);
+    }
+}
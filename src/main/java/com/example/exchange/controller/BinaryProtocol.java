@@ -0,0 +1,248 @@
+package com.example.exchange.controller;
+
+import com.example.exchange.model.BookDelta;
+import com.example.exchange.model.OrderKind;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.PriceLevel;
+import com.example.exchange.model.TimeInForce;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+
+import java.util.List;
+
+/**
+ * Binarni WebSocket protokol (subprotocol "exchange-binary-v2"; v2 dodaje ID-jeve naloga u TRADE). Poruke su fiksnog rasporeda,
+ * big-endian, i citaju se i pisu direktno iz DataBuffer-a – bez JSON-a i medjustringova.
+ * Simbol je 16 ASCII bajtova, dopunjen nulama.
+ * <pre>
+ * klijent -> server (posle tipa uvek ide clientTag, vraca se u ACK-u)
+ *   NEW_ORDER        [1][tag:8][flags:1][price:f64][amount:i32][symbol:16]             = 38
+ *                    flags: bit 0 strana (0=BUY, 1=SELL), bitovi 1-2 TIF (0=GTC, 1=IOC, 2=FOK), bit 3 market
+ *   CANCEL           [2][tag:8][orderId:8][symbol:16]                                  = 33
+ *   AMEND            [8][tag:8][orderId:8][quantity:i32][symbol:16]                    = 37
+ *   SUBSCRIBE_BOOK   [6][tag:8][depth:u16][symbol:16]                                   = 27
+ *   UNSUBSCRIBE_BOOK [7][tag:8][symbol:16]                                             = 25
+ * server -> klijent
+ *   ACK              [3][tag:8][status:1][orderId:8]                                   = 18
+ *   TRADE            [4][symbol:16][tradeId:8][buyOrderId:8][sellOrderId:8]
+ *                    [buyPrice:f64][sellPrice:f64][amount:i32]                          = 61
+ *   BOOK_DELTA       [5][symbol:16][sequence:8][snapshot:1][count:u16]
+ *                    + count x [side:1][price:f64][totalAmount:8][orderCount:i32]      = 28 + 21 * count
+ *                    count je najvise BookDelta.MAX_LEVELS; BookFeed deli vece delte
+ * </pre>
+ */
+final class BinaryProtocol {
+
+    static final String SUBPROTOCOL = "exchange-binary-v2";
+
+    static final byte NEW_ORDER = 1;
+    static final byte CANCEL = 2;
+    static final byte ACK = 3;
+    static final byte TRADE = 4;
+    static final byte BOOK_DELTA = 5;
+    static final byte SUBSCRIBE_BOOK = 6;
+    static final byte UNSUBSCRIBE_BOOK = 7;
+    static final byte AMEND = 8;
+
+    // status u ACK poruci
+    static final byte ACCEPTED = 0;
+    static final byte INVALID = 1;
+    static final byte NOT_FOUND = 2;
+    static final byte FEED_OVERFLOW = 3;
+    static final byte BUSY = 4;
+
+    private static final int SELL_FLAG = 1;
+    private static final int TIF_SHIFT = 1;
+    private static final int MARKET_FLAG = 1 << 3;
+    private static final int FLAGS_MASK = 0x0F;
+    private static final TimeInForce[] TIME_IN_FORCE = TimeInForce.values();
+
+    static final int SYMBOL_LENGTH = 16;
+    static final int NEW_ORDER_LENGTH = 38;
+    static final int CANCEL_LENGTH = 33;
+    static final int AMEND_LENGTH = 37;
+    static final int SUBSCRIBE_BOOK_LENGTH = 27;
+    static final int UNSUBSCRIBE_BOOK_LENGTH = 25;
+    static final int ACK_LENGTH = 18;
+    static final int TRADE_LENGTH = 61;
+    private static final int BOOK_DELTA_HEADER = 28;
+    private static final int BOOK_LEVEL_LENGTH = 21;
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Tip poruke ili -1 ako je buffer prazan
+     */
+    static byte type(DataBuffer buffer) {
+        return buffer.readableByteCount() > 0 ? buffer.getByte(buffer.readPosition()) : -1;
+    }
+
+    static long getLong(DataBuffer buffer, int offset) {
+        int index = buffer.readPosition() + offset;
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (buffer.getByte(index + i) & 0xFF);
+        }
+        return value;
+    }
+
+    static int getInt(DataBuffer buffer, int offset) {
+        int index = buffer.readPosition() + offset;
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = value << 8 | (buffer.getByte(index + i) & 0xFF);
+        }
+        return value;
+    }
+
+    static int getUnsignedShort(DataBuffer buffer, int offset) {
+        int index = buffer.readPosition() + offset;
+        return (buffer.getByte(index) & 0xFF) << 8 | (buffer.getByte(index + 1) & 0xFF);
+    }
+
+    static double getDouble(DataBuffer buffer, int offset) {
+        return Double.longBitsToDouble(getLong(buffer, offset));
+    }
+
+    /**
+     * Strana iz bajta flag-ova; null ako su postavljeni nepoznati bitovi.
+     */
+    static OrderType getSide(DataBuffer buffer, int offset) {
+        byte flags = buffer.getByte(buffer.readPosition() + offset);
+        if ((flags & ~FLAGS_MASK) != 0) {
+            return null;
+        }
+        return (flags & SELL_FLAG) == 0 ? OrderType.BUY : OrderType.SELL;
+    }
+
+    /**
+     * Time in force iz bajta flag-ova; null za nepoznatu vrednost.
+     */
+    static TimeInForce getTimeInForce(DataBuffer buffer, int offset) {
+        int value = (buffer.getByte(buffer.readPosition() + offset) >> TIF_SHIFT) & 3;
+        return value < TIME_IN_FORCE.length ? TIME_IN_FORCE[value] : null;
+    }
+
+    static OrderKind getKind(DataBuffer buffer, int offset) {
+        byte flags = buffer.getByte(buffer.readPosition() + offset);
+        return (flags & MARKET_FLAG) == 0 ? OrderKind.LIMIT : OrderKind.MARKET;
+    }
+
+    /**
+     * Simbol iz 16 bajtova; null ako nije validan (isti skup znakova kao OrderRequest.SYMBOL_REGEX).
+     */
+    static String getSymbol(DataBuffer buffer, int offset) {
+        int index = buffer.readPosition() + offset;
+        char[] chars = new char[SYMBOL_LENGTH];
+        int length = 0;
+        while (length < SYMBOL_LENGTH) {
+            byte b = buffer.getByte(index + length);
+            if (b == 0) {
+                break;
+            }
+            if (!isSymbolChar(b)) {
+                return null;
+            }
+            chars[length++] = (char) b;
+        }
+        for (int i = length; i < SYMBOL_LENGTH; i++) {
+            if (buffer.getByte(index + i) != 0) {
+                return null;
+            }
+        }
+        return length == 0 ? null : new String(chars, 0, length);
+    }
+
+    private static boolean isSymbolChar(byte b) {
+        return (b >= 'A' && b <= 'Z') || (b >= 'a' && b <= 'z') || (b >= '0' && b <= '9')
+                || b == '.' || b == '_' || b == '-';
+    }
+
+    static DataBuffer ack(DataBufferFactory factory, long clientTag, byte status, long orderId) {
+        DataBuffer buffer = factory.allocateBuffer(ACK_LENGTH);
+        buffer.write(ACK);
+        putLong(buffer, clientTag);
+        buffer.write(status);
+        putLong(buffer, orderId);
+        return buffer;
+    }
+
+    /**
+     * TRADE poruka u niz bajtova – kodira se jednom i deli izmedju svih binarnih sesija.
+     */
+    static byte[] trade(String symbol, long tradeId, long buyOrderId, long sellOrderId,
+                        double buyPrice, double sellPrice, int amount) {
+        byte[] bytes = new byte[TRADE_LENGTH];
+        bytes[0] = TRADE;
+        int index = putSymbol(bytes, 1, symbol);
+        index = putLong(bytes, index, tradeId);
+        index = putLong(bytes, index, buyOrderId);
+        index = putLong(bytes, index, sellOrderId);
+        index = putLong(bytes, index, Double.doubleToRawLongBits(buyPrice));
+        index = putLong(bytes, index, Double.doubleToRawLongBits(sellPrice));
+        putInt(bytes, index, amount);
+        return bytes;
+    }
+
+    /**
+     * @throws IllegalStateException ako delta ima vise nivoa nego sto staje u u16 polje
+     */
+    static DataBuffer bookDelta(DataBufferFactory factory, BookDelta delta) {
+        List<PriceLevel> levels = delta.getLevels();
+        if (levels.size() > BookDelta.MAX_LEVELS) {
+            throw new IllegalStateException("Book delta has " + levels.size() + " levels, at most "
+                    + BookDelta.MAX_LEVELS + " fit in one frame");
+        }
+        DataBuffer buffer = factory.allocateBuffer(BOOK_DELTA_HEADER + BOOK_LEVEL_LENGTH * levels.size());
+        buffer.write(BOOK_DELTA);
+        String symbol = delta.getSymbol();
+        for (int i = 0; i < SYMBOL_LENGTH; i++) {
+            buffer.write(i < symbol.length() ? (byte) symbol.charAt(i) : 0);
+        }
+        putLong(buffer, delta.getSequence());
+        buffer.write((byte) (delta.isSnapshot() ? 1 : 0));
+        buffer.write((byte) (levels.size() >>> 8));
+        buffer.write((byte) levels.size());
+        for (PriceLevel level : levels) {
+            buffer.write((byte) (level.getType() == OrderType.BUY ? 0 : 1));
+            putLong(buffer, Double.doubleToRawLongBits(level.getPrice()));
+            putLong(buffer, level.getTotalAmount());
+            putInt(buffer, level.getOrderCount());
+        }
+        return buffer;
+    }
+
+    private static void putLong(DataBuffer buffer, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buffer.write((byte) (value >>> shift));
+        }
+    }
+
+    private static void putInt(DataBuffer buffer, int value) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            buffer.write((byte) (value >>> shift));
+        }
+    }
+
+    private static int putLong(byte[] bytes, int index, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            bytes[index++] = (byte) (value >>> shift);
+        }
+        return index;
+    }
+
+    private static int putInt(byte[] bytes, int index, int value) {
+        for (int shift = 24; shift >= 0; shift -= 8) {
+            bytes[index++] = (byte) (value >>> shift);
+        }
+        return index;
+    }
+
+    private static int putSymbol(byte[] bytes, int index, String symbol) {
+        for (int i = 0; i < SYMBOL_LENGTH; i++) {
+            bytes[index++] = i < symbol.length() ? (byte) symbol.charAt(i) : 0;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.exchange.controller;
+
+import com.example.exchange.model.Candle;
+import com.example.exchange.model.Order;
+import com.example.exchange.service.OrderService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/candles")
+public class CandleController {
+
+    private final OrderService orderService;
+
+    public CandleController(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    /**
+     * GET /api/candles?symbol=AAPL&interval=1m&from=...&to=...&limit=500
+     * OHLCV barovi sa pocetkom u [from, to] (ms od epohe), najvise limit poslednjih, rastucim redom;
+     * bez interval-a koristi se prvi iz candles.intervals
+     * @return
+     */
+    @GetMapping
+    public List<Candle> getCandles(@RequestParam(defaultValue = Order.DEFAULT_SYMBOL) String symbol,
+                                   @RequestParam(required = false) String interval,
+                                   @RequestParam(defaultValue = "0") long from,
+                                   @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                                   @RequestParam(defaultValue = "500") int limit) {
+        return orderService.getCandles(symbol, interval, from, to, limit);
+    }
+
+    /**
+     * GET /api/candles/intervals
+     * Podeseni intervali (candles.intervals)
+     * @return
+     */
+    @GetMapping("/intervals")
+    public Set<String> getIntervals() {
+        return orderService.getCandleIntervals();
+    }
+}
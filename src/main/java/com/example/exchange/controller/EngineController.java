@@ -0,0 +1,66 @@
+package com.example.exchange.controller;
+
+import com.example.exchange.model.AdmissionStats;
+import com.example.exchange.model.BroadcastStats;
+import com.example.exchange.model.EngineMetrics;
+import com.example.exchange.model.StageStats;
+import com.example.exchange.service.OrderService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/engine")
+public class EngineController {
+
+    private final OrderService orderService;
+    private final OrderWebSocketHandler webSocketHandler;
+
+    public EngineController(OrderService orderService, OrderWebSocketHandler webSocketHandler) {
+        this.orderService = orderService;
+        this.webSocketHandler = webSocketHandler;
+    }
+
+    /**
+     * GET /api/engine/admission
+     * Dubina redova engine-a, watermark-ovi i broj odbijenih naloga (ukupno i po sekundi)
+     * @return
+     */
+    @GetMapping("/admission")
+    public AdmissionStats getAdmission() {
+        return orderService.getAdmissionStats();
+    }
+
+    /**
+     * GET /api/engine/metrics
+     * Percentili (od starta) cekanja u redu, uparivanja, broja trejdova po nalogu, upisa u istoriju
+     * i WebSocket broadcast-a, uz dubinu knjiga, broj naloga u knjigama i dubinu redova
+     * @return
+     */
+    @GetMapping("/metrics")
+    public EngineMetrics getMetrics() {
+        return orderService.getEngineMetrics();
+    }
+
+    /**
+     * GET /api/engine/stages
+     * Faze obrade trejdova: broj objavljenih i odbacenih dogadjaja i trenutno zaostajanje
+     * @return
+     */
+    @GetMapping("/stages")
+    public List<StageStats> getStages() {
+        return orderService.getEventStats();
+    }
+
+    /**
+     * GET /api/engine/broadcast
+     * WebSocket multicast: broj sesija, poslatih i odbacenih trejdova i zatvorenih sporih sesija
+     * @return
+     */
+    @GetMapping("/broadcast")
+    public BroadcastStats getBroadcast() {
+        return webSocketHandler.getBroadcastStats();
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.exchange.controller;
+
+import com.example.exchange.model.Order;
+import com.example.exchange.model.PriceLevel;
+import com.example.exchange.model.TopOrdersResponse;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JSON poruke koje server najcesce salje (ORDER_ACCEPTED, ORDER_MATCHED, TOP_ORDERS), pisane kao
+ * ASCII bajtovi direktno u radni niz koji se ponovo koristi – bez String.format-a, Jackson-a i
+ * medjustringova. Gotova poruka se kopira u pooled DataBuffer sesije, ili u niz tacne duzine
+ * kad je deli vise primalaca (trejdovi, kesiran pogled na knjigu).
+ * Cena se pise kao najkraci decimalni zapis koji se cita nazad u isti double, bez eksponenta.
+ * Instanca nije thread-safe; local() vraca instancu tekuce niti.
+ */
+public final class JsonEncoder {
+
+    private static final ThreadLocal<JsonEncoder> LOCAL = ThreadLocal.withInitial(JsonEncoder::new);
+
+    private static final int MAX_DECIMALS = 9;
+    private static final long[] POWERS_OF_TEN = new long[19];
+    private static final double[] DOUBLE_POWERS_OF_TEN = new double[MAX_DECIMALS + 1];
+    // do 2^53 su long i double vrednosti tacne
+    private static final double MAX_EXACT = 1L << 53;
+
+    static {
+        long power = 1;
+        for (int i = 0; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = power;
+            power *= 10;
+        }
+        for (int i = 0; i <= MAX_DECIMALS; i++) {
+            DOUBLE_POWERS_OF_TEN[i] = POWERS_OF_TEN[i];
+        }
+    }
+
+    // stalni delovi poruka, kopiraju se jednim arraycopy-jem
+    private static final byte[] TOP_ORDERS_PREFIX = asciiBytes("{\"action\":\"TOP_ORDERS\",\"payload\":");
+    private static final byte[] ACCEPTED_ID = asciiBytes("{\"action\":\"ORDER_ACCEPTED\",\"payload\":{\"id\":");
+    private static final byte[] MATCHED_SYMBOL = asciiBytes("{\"action\":\"ORDER_MATCHED\",\"payload\":{\"symbol\":\"");
+    private static final byte[] SYMBOL = asciiBytes(",\"symbol\":\"");
+    private static final byte[] PRICE = asciiBytes("\",\"price\":");
+    private static final byte[] AMOUNT = asciiBytes(",\"amount\":");
+    private static final byte[] TYPE = asciiBytes(",\"type\":\"");
+    private static final byte[] TRADE_ID = asciiBytes("\",\"tradeId\":");
+    private static final byte[] BUY_ORDER_ID = asciiBytes(",\"buyOrderId\":");
+    private static final byte[] SELL_ORDER_ID = asciiBytes(",\"sellOrderId\":");
+    private static final byte[] BUY_PRICE = asciiBytes(",\"buyPrice\":");
+    private static final byte[] SELL_PRICE = asciiBytes(",\"sellPrice\":");
+    private static final byte[] BUY_ORDERS = asciiBytes("{\"buyOrders\":[");
+    private static final byte[] SELL_ORDERS = asciiBytes("],\"sellOrders\":[");
+    private static final byte[] LEVEL_PRICE = asciiBytes("{\"price\":");
+    private static final byte[] TOTAL_AMOUNT = asciiBytes(",\"totalAmount\":");
+    private static final byte[] ORDER_COUNT = asciiBytes(",\"orderCount\":");
+    private static final byte[] END_OBJECT = asciiBytes("\"}");
+    private static final byte[] END_MESSAGE = asciiBytes("\"}}");
+
+    private byte[] bytes = new byte[256];
+    private int length;
+
+    public static JsonEncoder local() {
+        return LOCAL.get();
+    }
+
+    public JsonEncoder orderAccepted(Order order) {
+        length = 0;
+        raw(ACCEPTED_ID);
+        number(order.getId());
+        raw(SYMBOL);
+        ascii(order.getSymbol());
+        raw(PRICE);
+        price(order.getPrice());
+        raw(AMOUNT);
+        number(order.getAmount());
+        raw(TYPE);
+        ascii(order.getType().name());
+        raw(END_MESSAGE);
+        return this;
+    }
+
+    public JsonEncoder orderMatched(String symbol, long tradeId, long buyOrderId, long sellOrderId,
+                                   double buyPrice, double sellPrice, int amount) {
+        length = 0;
+        raw(MATCHED_SYMBOL);
+        ascii(symbol);
+        raw(TRADE_ID);
+        number(tradeId);
+        raw(BUY_ORDER_ID);
+        number(buyOrderId);
+        raw(SELL_ORDER_ID);
+        number(sellOrderId);
+        raw(BUY_PRICE);
+        price(buyPrice);
+        raw(SELL_PRICE);
+        price(sellPrice);
+        raw(AMOUNT);
+        number(amount);
+        put('}');
+        put('}');
+        return this;
+    }
+
+    /**
+     * Samo payload (isti JSON koji vraca REST /api/orders/top); WebSocket ga obmotava sa topOrdersMessage.
+     */
+    public JsonEncoder topOrders(TopOrdersResponse top) {
+        length = 0;
+        raw(BUY_ORDERS);
+        levels(top.getBuyOrders());
+        raw(SELL_ORDERS);
+        levels(top.getSellOrders());
+        put(']');
+        put('}');
+        return this;
+    }
+
+    /**
+     * TOP_ORDERS poruka u pooled buffer-u, oko vec serijalizovanog payload-a
+     */
+    public static DataBuffer topOrdersMessage(DataBufferFactory factory, byte[] payload) {
+        DataBuffer buffer = factory.allocateBuffer(TOP_ORDERS_PREFIX.length + payload.length + 1);
+        return buffer.write(TOP_ORDERS_PREFIX).write(payload).write((byte) '}');
+    }
+
+    private void levels(List<PriceLevel> levels) {
+        for (int i = 0; i < levels.size(); i++) {
+            PriceLevel level = levels.get(i);
+            if (i > 0) {
+                put(',');
+            }
+            raw(LEVEL_PRICE);
+            price(level.getPrice());
+            raw(TOTAL_AMOUNT);
+            number(level.getTotalAmount());
+            raw(ORDER_COUNT);
+            number(level.getOrderCount());
+            raw(TYPE);
+            ascii(level.getType().name());
+            raw(END_OBJECT);
+        }
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    public DataBuffer toDataBuffer(DataBufferFactory factory) {
+        return factory.allocateBuffer(length).write(bytes, 0, length);
+    }
+
+    /**
+     * Najmanji broj decimala (do MAX_DECIMALS) za koji units / 10^d daje isti double; deljenje
+     * tacnih celih brojeva je tacno zaokruzeno, pa se zapis cita nazad u istu vrednost.
+     * Cene su umnosci tick-a, pa drugi slucaj prakticno ne postoji.
+     */
+    private void price(double value) {
+        if (value < 0) {
+            put('-');
+            value = -value;
+        }
+        for (int decimals = 0; decimals <= MAX_DECIMALS; decimals++) {
+            double scaled = value * DOUBLE_POWERS_OF_TEN[decimals];
+            if (scaled >= MAX_EXACT) {
+                break;
+            }
+            long units = Math.round(scaled);
+            if (units / DOUBLE_POWERS_OF_TEN[decimals] == value) {
+                decimal(units, decimals);
+                return;
+            }
+        }
+        ascii(Double.toString(value));
+    }
+
+    /**
+     * units / 10^decimals, sa bar jednom cifrom pre i posle tacke; pise se zdesna nalevo u jednom prolazu
+     */
+    private void decimal(long units, int decimals) {
+        int total = Math.max(1, digitCount(units) - decimals) + 1 + Math.max(1, decimals);
+        ensureCapacity(total);
+        int index = length + total - 1;
+        if (decimals == 0) {
+            bytes[index--] = '0';
+        }
+        for (int i = 0; i < decimals; i++) {
+            bytes[index--] = (byte) ('0' + units % 10);
+            units /= 10;
+        }
+        bytes[index--] = '.';
+        do {
+            bytes[index--] = (byte) ('0' + units % 10);
+            units /= 10;
+        } while (units > 0);
+        length += total;
+    }
+
+    private void number(long value) {
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                ascii(Long.toString(value));
+                return;
+            }
+            put('-');
+            value = -value;
+        }
+        int digits = digitCount(value);
+        ensureCapacity(digits);
+        for (int i = length + digits - 1; i >= length; i--) {
+            bytes[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length += digits;
+    }
+
+    private static int digitCount(long value) {
+        int digits = 1;
+        while (digits < POWERS_OF_TEN.length && value >= POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        return digits;
+    }
+
+    private void raw(byte[] part) {
+        ensureCapacity(part.length);
+        System.arraycopy(part, 0, bytes, length, part.length);
+        length += part.length;
+    }
+
+    /**
+     * Samo ASCII (simboli su validirani regex-om, ostalo su konstante i imena enum-a)
+     */
+    private void ascii(String text) {
+        ensureCapacity(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            bytes[length++] = (byte) text.charAt(i);
+        }
+    }
+
+    private static byte[] asciiBytes(String text) {
+        byte[] result = new byte[text.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (byte) text.charAt(i);
+        }
+        return result;
+    }
+
+    private void put(char c) {
+        ensureCapacity(1);
+        bytes[length++] = (byte) c;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+        }
+    }
+}
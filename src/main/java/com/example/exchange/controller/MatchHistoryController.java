@@ -1,10 +1,16 @@
 package com.example.exchange.controller;
 
+import com.example.exchange.model.MatchPage;
+import com.example.exchange.model.MatchQuery;
 import com.example.exchange.model.MatchRecord;
 import com.example.exchange.service.OrderService;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
@@ -18,13 +24,48 @@ public class MatchHistoryController {
         this.orderService = orderService;
     }
 
+    /**
+     * GET /api/matches?cursor=0&limit=100&symbol=AAPL&fromTime=...&toTime=...&minPrice=...&maxPrice=...
+     * Jedna strana istorije; sledeca se trazi sa nextCursor iz odgovora
+     * @return
+     */
+    @GetMapping
+    public Mono<MatchPage> getMatches(@RequestParam(defaultValue = "0") long cursor,
+                                @RequestParam(defaultValue = "100") int limit,
+                                @RequestParam(required = false) String symbol,
+                                @RequestParam(required = false) Long fromTime,
+                                @RequestParam(required = false) Long toTime,
+                                @RequestParam(required = false) Double minPrice,
+                                @RequestParam(required = false) Double maxPrice) {
+        return orderService.getMatches(cursor, limit, new MatchQuery(symbol, fromTime, toTime, minPrice, maxPrice));
+    }
+
+    /**
+     * GET /api/matches/stream – NDJSON izvoz, trejd po trejd, sa istim filterima
+     * @return
+     */
+    @GetMapping(path = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<MatchRecord> streamMatches(@RequestParam(defaultValue = "0") long cursor,
+                                           @RequestParam(required = false) String symbol,
+                                           @RequestParam(required = false) Long fromTime,
+                                           @RequestParam(required = false) Long toTime,
+                                           @RequestParam(required = false) Double minPrice,
+                                           @RequestParam(required = false) Double maxPrice) {
+        return orderService.streamMatches(cursor, new MatchQuery(symbol, fromTime, toTime, minPrice, maxPrice));
+    }
+
+    /**
+     * GET /api/matches/all – cela istorija kao JSON niz, citana u delovima kao /stream,
+     * pa ni velika arhiva ne ide u memoriju odjednom
+     * @return
+     */
     @GetMapping(path = "/all")
-    public List<MatchRecord> getAllMatches() {
-        return orderService.getMatchHistory();
+    public Flux<MatchRecord> getAllMatches() {
+        return orderService.streamAllMatches();
     }
 
     @GetMapping(path = "/latest")
     public List<MatchRecord> getLatestMatches() {
         return orderService.getLatestMatches(10);
     }
-}
\ No newline at end of file
+}
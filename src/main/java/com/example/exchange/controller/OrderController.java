@@ -1,13 +1,22 @@
 package com.example.exchange.controller;
 
+import com.example.exchange.model.AmendRequest;
+import com.example.exchange.model.BestBidOffer;
+import com.example.exchange.model.CancelResult;
+import com.example.exchange.model.CancelStatus;
 import com.example.exchange.model.Order;
+import com.example.exchange.model.OrderAck;
 import com.example.exchange.model.OrderRequest;
-import com.example.exchange.model.TopOrdersResponse;
 import com.example.exchange.service.OrderService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
@@ -21,25 +30,89 @@ public class OrderController {
     /**
      *
      * POST /api/orders
-     * Prima JSON: { "price": 100.5, "amount": 10, "type": "BUY" }
+     * Prima JSON: { "symbol": "AAPL", "price": 100.5, "amount": 10, "type": "BUY" }
+     * uz opcione "timeInForce" (GTC, IOC, FOK) i "kind" (LIMIT, MARKET)
      * @param requestMono
      * @return
      */
     @PostMapping
     public Mono<Order> createOrder(@RequestBody @Valid Mono<OrderRequest> requestMono) {
         return requestMono
-                .map(req -> new Order(req.getPrice(), req.getAmount(), req.getType()))
+                .map(OrderRequest::toOrder)
                 .flatMap(orderService::addOrder);
     }
 
     /**
-     * GET /api/orders/top
-     * Vraća JSON sa buyOrders i sellOrders listama
+     * POST /api/orders/batch
+     * Prima JSON niz naloga (najvise 1000); svaki se validira zasebno i dobija svoju potvrdu
+     * @param requestsMono
      * @return
      */
+    @PostMapping("/batch")
+    public Mono<List<OrderAck>> createOrders(@RequestBody Mono<List<OrderRequest>> requestsMono) {
+        return requestsMono.flatMap(orderService::addOrders);
+    }
+
+    /**
+     * DELETE /api/orders/{id}?symbol=AAPL
+     * Otkazuje nalog iz knjige; symbol je obavezan (nalog se trazi samo u njegovoj knjizi), 404 ako nalog nije u knjizi
+     * @param id
+     * @param symbol
+     * @return
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<CancelResult>> cancelOrder(@PathVariable long id,
+                                                          @RequestParam String symbol) {
+        return orderService.cancelOrder(symbol, id).map(OrderController::toResponse);
+    }
 
-    @GetMapping("/top")
-    public Mono<TopOrdersResponse> getTopOrders() {
-        return orderService.getTopOrders();
+    /**
+     * PATCH /api/orders/{id}
+     * Prima JSON: { "symbol": "AAPL", "quantity": 5 } – kolicina moze samo da se smanji
+     * @param id
+     * @param requestMono
+     * @return
+     */
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<CancelResult>> amendOrder(@PathVariable long id,
+                                                         @RequestBody @Valid Mono<AmendRequest> requestMono) {
+        return requestMono
+                .flatMap(req -> orderService.amendOrder(req.getSymbol(), id, req.getQuantity()))
+                .map(OrderController::toResponse);
+    }
+
+    private static ResponseEntity<CancelResult> toResponse(CancelResult result) {
+        if (result.getStatus() == CancelStatus.NOT_FOUND) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(result);
+        }
+        if (result.getStatus() == CancelStatus.REJECTED) {
+            return ResponseEntity.badRequest().body(result);
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    /**
+     * GET /api/orders/top?symbol=AAPL&depth=10
+     * Vraća JSON sa buyOrders i sellOrders listama za simbol; bajtovi su vec serijalizovani u pogledu knjige
+     * @param symbol
+     * @param depth broj cenovnih nivoa po strani
+     * @return
+     */
+
+    @GetMapping(value = "/top", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<byte[]> getTopOrders(@RequestParam(defaultValue = Order.DEFAULT_SYMBOL) String symbol,
+                                     @RequestParam(defaultValue = "10") int depth) {
+        return orderService.getTopOrdersJson(symbol, depth);
+    }
+
+    /**
+     * GET /api/orders/bbo?symbol=AAPL
+     * Najbolja BUY i SELL cena sa kolicinama; cena je null kad je strana prazna
+     * @param symbol
+     * @return
+     */
+    @GetMapping("/bbo")
+    public BestBidOffer getBestBidOffer(@RequestParam(defaultValue = Order.DEFAULT_SYMBOL) String symbol) {
+        return orderService.getBestBidOffer(symbol);
     }
 }
\ No newline at end of file
@@ -1,16 +1,33 @@
 package com.example.exchange.controller;
 
+import com.example.exchange.engine.EngineBusyException;
+import com.example.exchange.model.BookDelta;
+import com.example.exchange.model.BroadcastStats;
+import com.example.exchange.model.Candle;
+import com.example.exchange.model.CancelResult;
 import com.example.exchange.model.Order;
 import com.example.exchange.model.OrderRequest;
-import com.example.exchange.model.TopOrdersResponse;
+import com.example.exchange.model.OrderKind;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.TimeInForce;
 import com.example.exchange.service.OrderService;
 import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.CloseStatus;
 import org.springframework.web.reactive.socket.WebSocketHandler;
 import org.springframework.web.reactive.socket.WebSocketSession;
 import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.reactivestreams.Publisher;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.JsonNode;
 
@@ -18,6 +35,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class OrderWebSocketHandler implements WebSocketHandler {
@@ -26,6 +44,30 @@ public class OrderWebSocketHandler implements WebSocketHandler {
     private final ObjectMapper objectMapper;
     private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
 
+    private static final Logger logger = LoggerFactory.getLogger(OrderWebSocketHandler.class);
+
+    // Broj trejdova koji mogu da cekaju na slanje po sesiji
+    @Value("${websocket.session-buffer-size:256}")
+    private int sessionBufferSize = 256;
+
+    @Value("${websocket.overflow-policy:DROP}")
+    private OverflowPolicy overflowPolicy = OverflowPolicy.DROP;
+
+    // Zajednicki tokovi vec serijalizovanih trejdova (JSON i binarni); emituje ih samo nit broadcast faze
+    private final Sinks.Many<byte[]> trades = Sinks.many().multicast().directBestEffort();
+    private final Sinks.Many<byte[]> binaryTrades = Sinks.many().multicast().directBestEffort();
+
+    // koristi se samo sa niti broadcast faze
+    private final JsonEncoder tradeEncoder = new JsonEncoder();
+
+    // aktivne SUBSCRIBE_BOOK pretplate, kljuc je sessionId + '/' + simbol
+    private final Map<String, Sinks.Empty<Void>> bookSubscriptions = new ConcurrentHashMap<>();
+    private final Map<String, Sinks.Empty<Void>> candleSubscriptions = new ConcurrentHashMap<>();
+
+    private final AtomicLong publishedTrades = new AtomicLong();
+    private final AtomicLong droppedTrades = new AtomicLong();
+    private final AtomicLong disconnectedSessions = new AtomicLong();
+
     public OrderWebSocketHandler(OrderService orderService) {
         this.orderService = orderService;
         this.objectMapper = new ObjectMapper();
@@ -42,32 +84,92 @@ public class OrderWebSocketHandler implements WebSocketHandler {
         sessions.remove(session.getId());
     }
 
-    // Šaljemo meč poruku svima
-    public void broadcastMatch(double buyPrice, double sellPrice, int amount) {
-        String json = String.format(
-                "{\"action\":\"ORDER_MATCHED\",\"payload\":{\"buyPrice\":%f,\"sellPrice\":%f,\"amount\":%d}}",
-                buyPrice, sellPrice, amount
-        );
+    /**
+     * Serijalizuj trejd jednom i posalji ga svim sesijama; svaka sesija deli isti niz bajtova.
+     * Poziva se samo sa niti broadcast faze.
+     */
+    public void broadcastMatch(String symbol, long tradeId, long buyOrderId, long sellOrderId,
+                               double buyPrice, double sellPrice, int amount) {
+        if (binaryTrades.currentSubscriberCount() > 0) {
+            binaryTrades.tryEmitNext(BinaryProtocol.trade(symbol, tradeId, buyOrderId, sellOrderId, buyPrice, sellPrice, amount));
+        }
+        if (trades.currentSubscriberCount() == 0) {
+            return;
+        }
+        if (trades.tryEmitNext(encodeTrade(symbol, tradeId, buyOrderId, sellOrderId, buyPrice, sellPrice, amount)).isSuccess()) {
+            publishedTrades.incrementAndGet();
+        }
+    }
 
-        sessions.values().forEach(session -> {
-            if (session.isOpen()) {
-                session.send(Mono.just(session.textMessage(json))).subscribe();
-            }
-        });
+    /**
+     * ORDER_MATCHED poruka kao ASCII bajtovi; koristi zajednicki tradeEncoder, pa samo sa niti broadcast faze.
+     * Niz deli vise sesija, pa se pravi tacne duzine umesto pooled buffer-a po sesiji.
+     */
+    byte[] encodeTrade(String symbol, long tradeId, long buyOrderId, long sellOrderId,
+                       double buyPrice, double sellPrice, int amount) {
+        return tradeEncoder.orderMatched(symbol, tradeId, buyOrderId, sellOrderId, buyPrice, sellPrice, amount)
+                .toByteArray();
+    }
+
+    /**
+     * ORDER_ACCEPTED poruka u pooled buffer-u sesije
+     */
+    DataBuffer encodeOrderAccepted(DataBufferFactory factory, Order order) {
+        return JsonEncoder.local().orderAccepted(order).toDataBuffer(factory);
+    }
+
+    /**
+     * Trejdovi za jednu sesiju: ograniceni buffer izmedju zajednickog toka i sporog klijenta.
+     * Bajtovi se samo obmotavaju (bez kopiranja) u buffer sesije.
+     */
+    private Flux<WebSocketMessage> tradesFor(WebSocketSession session, boolean binary) {
+        Flux<byte[]> stream = binary ? binaryTrades.asFlux() : trades.asFlux();
+        WebSocketMessage.Type type = binary ? WebSocketMessage.Type.BINARY : WebSocketMessage.Type.TEXT;
+        Flux<byte[]> buffered = switch (overflowPolicy) {
+            case DROP -> stream.onBackpressureBuffer(sessionBufferSize, dropped -> droppedTrades.incrementAndGet(),
+                    BufferOverflowStrategy.DROP_LATEST);
+            case CONFLATE -> stream.onBackpressureBuffer(sessionBufferSize, dropped -> droppedTrades.incrementAndGet(),
+                    BufferOverflowStrategy.DROP_OLDEST);
+            case DISCONNECT -> stream.onBackpressureBuffer(sessionBufferSize, dropped -> droppedTrades.incrementAndGet(),
+                    BufferOverflowStrategy.ERROR);
+        };
+
+        return buffered
+                .map(bytes -> new WebSocketMessage(type, session.bufferFactory().wrap(bytes)))
+                .onErrorResume(Exceptions::isOverflow, e -> {
+                    disconnectedSessions.incrementAndGet();
+                    logger.warn("WebSocket sesija {} ne stize da prima trejdove – zatvaram je", session.getId());
+                    return session.close(CloseStatus.POLICY_VIOLATION).then(Mono.empty());
+                })
+                .takeUntilOther(session.closeStatus());
+    }
+
+    public BroadcastStats getBroadcastStats() {
+        return new BroadcastStats(sessions.size(), publishedTrades.get(), droppedTrades.get(), disconnectedSessions.get());
+    }
+
+    /**
+     * Klijent bira binarni protokol preko Sec-WebSocket-Protocol zaglavlja; bez njega ostaje JSON.
+     */
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(BinaryProtocol.SUBPROTOCOL);
     }
 
     @Override
     public Mono<Void> handle(WebSocketSession session) {
         registerSession(session); // dodato zbog broadcast-a
 
+        boolean binary = BinaryProtocol.SUBPROTOCOL.equals(session.getHandshakeInfo().getSubProtocol());
         Flux<WebSocketMessage> inputMessages = session.receive()
-                .flatMap(message -> handleMessage(session, message))
-                .doFinally(signal -> unregisterSession(session));
+                .flatMap(message -> binary ? handleBinaryMessage(session, message) : handleMessage(session, message));
 
-        return session.send(inputMessages);
+        // odgovori i trejdovi idu kroz jedan izlazni tok sesije
+        return session.send(Flux.merge(inputMessages, tradesFor(session, binary)))
+                .doFinally(signal -> unregisterSession(session));
     }
 
-    private Mono<WebSocketMessage> handleMessage(WebSocketSession session, WebSocketMessage message) {
+    private Publisher<WebSocketMessage> handleMessage(WebSocketSession session, WebSocketMessage message) {
         String payload = message.getPayloadAsText(StandardCharsets.UTF_8);
 
         try {
@@ -83,39 +185,119 @@ public class OrderWebSocketHandler implements WebSocketHandler {
                 OrderRequest req = objectMapper.treeToValue(orderNode, OrderRequest.class);
 
                 // Validacija
-                if (req.getPrice() < 0 || req.getAmount() <= 0 || req.getType() == null) {
+                if (req.validate() != null) {
                     return Mono.just(session.textMessage("{\"action\":\"ERROR\",\"payload\":\"Invalid order data\"}"));
                 }
 
-                Order order = new Order(req.getPrice(), req.getAmount(), req.getType());
+                Order order = req.toOrder();
 
                 return orderService.addOrder(order)
-                        .map(savedOrder -> {
-                            String json = String.format(
-                                    "{\"action\":\"ORDER_ACCEPTED\",\"payload\":{\"id\":\"%s\",\"price\":%f,\"amount\":%d,\"type\":\"%s\"}}",
-                                    savedOrder.getId(),
-                                    savedOrder.getPrice(),
-                                    savedOrder.getAmount(),
-                                    savedOrder.getType().name()
-                            );
-                            return session.textMessage(json);
-                        });
+                        .map(savedOrder -> new WebSocketMessage(WebSocketMessage.Type.TEXT,
+                                encodeOrderAccepted(session.bufferFactory(), savedOrder)))
+                        .onErrorResume(EngineBusyException.class, e ->
+                                Mono.just(session.textMessage("{\"action\":\"REJECTED\",\"payload\":\"Engine busy, retry later\"}")))
+                        .onErrorResume(IllegalArgumentException.class, e ->
+                                Mono.just(session.textMessage("{\"action\":\"ERROR\",\"payload\":\"Invalid order data\"}")));
 
-            } else if ("GET_TOP_ORDERS".equalsIgnoreCase(action)) {
-                return orderService.getTopOrders()
-                        .map(top -> {
+            } else if ("NEW_ORDERS".equalsIgnoreCase(action)) {
+                JsonNode ordersNode = root.get("payload");
+                if (ordersNode == null || !ordersNode.isArray()) {
+                    return Mono.just(session.textMessage("{\"action\":\"ERROR\",\"payload\":\"Payload must be an array of orders\"}"));
+                }
+
+                List<OrderRequest> requests = objectMapper.readerForListOf(OrderRequest.class).readValue(ordersNode);
+
+                return orderService.addOrders(requests)
+                        .map(acks -> {
                             try {
-                                String json = objectMapper.writeValueAsString(
-                                        Map.of(
-                                                "action", "TOP_ORDERS",
-                                                "payload", top
-                                        )
-                                );
-                                return session.textMessage(json);
+                                return session.textMessage(objectMapper.writeValueAsString(Map.of(
+                                        "action", "ORDER_ACKS",
+                                        "payload", acks
+                                )));
                             } catch (Exception e) {
                                 return session.textMessage("{\"action\":\"ERROR\",\"payload\":\"Serialization error\"}");
                             }
-                        });
+                        })
+                        .onErrorResume(IllegalArgumentException.class, e ->
+                                Mono.just(session.textMessage("{\"action\":\"ERROR\",\"payload\":\"Invalid batch size\"}")));
+
+            } else if ("CANCEL_ORDER".equalsIgnoreCase(action) || "AMEND_ORDER".equalsIgnoreCase(action)) {
+                boolean cancel = "CANCEL_ORDER".equalsIgnoreCase(action);
+                JsonNode node = root.path("payload");
+                long orderId = node.path("id").asLong(0);
+                // simbol je obavezan, nalog se trazi samo u knjizi tog simbola
+                String symbol = node.path("symbol").asText("");
+                int quantity = node.path("quantity").asInt(0);
+                if (orderId <= 0 || !symbol.matches(OrderRequest.SYMBOL_REGEX) || (!cancel && quantity <= 0)) {
+                    return Mono.just(session.textMessage("{\"action\":\"ERROR\",\"payload\":\"Invalid order data\"}"));
+                }
+
+                Mono<CancelResult> result = cancel
+                        ? orderService.cancelOrder(symbol, orderId)
+                        : orderService.amendOrder(symbol, orderId, quantity);
+                String reply = cancel ? "CANCEL_RESULT" : "AMEND_RESULT";
+                return result
+                        .map(r -> {
+                            try {
+                                return session.textMessage(objectMapper.writeValueAsString(Map.of(
+                                        "action", reply,
+                                        "payload", r
+                                )));
+                            } catch (Exception e) {
+                                return session.textMessage("{\"action\":\"ERROR\",\"payload\":\"Serialization error\"}");
+                            }
+                        })
+                        .onErrorResume(EngineBusyException.class, e ->
+                                Mono.just(session.textMessage("{\"action\":\"REJECTED\",\"payload\":\"Engine busy, retry later\"}")));
+
+            } else if ("GET_TOP_ORDERS".equalsIgnoreCase(action)) {
+                JsonNode symbolNode = root.path("payload").path("symbol");
+                String symbol = symbolNode.isTextual() ? symbolNode.asText() : Order.DEFAULT_SYMBOL;
+                if (!symbol.matches(OrderRequest.SYMBOL_REGEX)) {
+                    return Mono.just(session.textMessage("{\"action\":\"ERROR\",\"payload\":\"Invalid symbol\"}"));
+                }
+
+                int depth = root.path("payload").path("depth").asInt(OrderService.DEFAULT_DEPTH);
+
+                return orderService.getTopOrdersJson(symbol, depth)
+                        .map(json -> new WebSocketMessage(WebSocketMessage.Type.TEXT,
+                                JsonEncoder.topOrdersMessage(session.bufferFactory(), json)))
+                        .onErrorResume(IllegalArgumentException.class, e ->
+                                Mono.just(session.textMessage("{\"action\":\"ERROR\",\"payload\":\"Invalid depth\"}")));
+            } else if ("SUBSCRIBE_BOOK".equalsIgnoreCase(action)) {
+                JsonNode symbolNode = root.path("payload").path("symbol");
+                String symbol = symbolNode.isTextual() ? symbolNode.asText() : Order.DEFAULT_SYMBOL;
+                if (!symbol.matches(OrderRequest.SYMBOL_REGEX)) {
+                    return Mono.just(session.textMessage("{\"action\":\"ERROR\",\"payload\":\"Invalid symbol\"}"));
+                }
+
+                int depth = root.path("payload").path("depth").asInt(OrderService.DEFAULT_DEPTH);
+                return subscribeBook(session, symbol, depth, false, 0);
+
+            } else if ("UNSUBSCRIBE_BOOK".equalsIgnoreCase(action)) {
+                JsonNode symbolNode = root.path("payload").path("symbol");
+                String symbol = symbolNode.isTextual() ? symbolNode.asText() : Order.DEFAULT_SYMBOL;
+
+                unsubscribeBook(session, symbol);
+                return Mono.empty();
+
+            } else if ("SUBSCRIBE_CANDLES".equalsIgnoreCase(action) || "UNSUBSCRIBE_CANDLES".equalsIgnoreCase(action)) {
+                JsonNode symbolNode = root.path("payload").path("symbol");
+                String symbol = symbolNode.isTextual() ? symbolNode.asText() : Order.DEFAULT_SYMBOL;
+                String interval = root.path("payload").path("interval").asText("");
+                if (!symbol.matches(OrderRequest.SYMBOL_REGEX)) {
+                    return Mono.just(session.textMessage("{\"action\":\"ERROR\",\"payload\":\"Invalid symbol\"}"));
+                }
+
+                if ("UNSUBSCRIBE_CANDLES".equalsIgnoreCase(action)) {
+                    Sinks.Empty<Void> stop = candleSubscriptions.get(session.getId() + "/" + symbol + "/" + interval);
+                    if (stop != null) {
+                        stop.tryEmitEmpty();
+                    }
+                    return Mono.empty();
+                }
+                return subscribeCandles(session, symbol, interval);
+
             } else {
                 return Mono.just(session.textMessage("{\"action\":\"ERROR\",\"payload\":\"Unknown action\"}"));
             }
@@ -125,6 +307,170 @@ public class OrderWebSocketHandler implements WebSocketHandler {
         }
     }
 
+    /**
+     * Binarna poruka se dekodira direktno iz DataBuffer-a; odgovor je uvek ACK sa clientTag-om iz zahteva.
+     */
+    private Publisher<WebSocketMessage> handleBinaryMessage(WebSocketSession session, WebSocketMessage message) {
+        DataBuffer payload = message.getPayload();
+        int length = payload.readableByteCount();
+        byte type = BinaryProtocol.type(payload);
+        long clientTag = length >= 9 ? BinaryProtocol.getLong(payload, 1) : 0;
+
+        if (type == BinaryProtocol.NEW_ORDER && length == BinaryProtocol.NEW_ORDER_LENGTH) {
+            OrderType side = BinaryProtocol.getSide(payload, 9);
+            TimeInForce timeInForce = BinaryProtocol.getTimeInForce(payload, 9);
+            OrderKind kind = BinaryProtocol.getKind(payload, 9);
+            double price = BinaryProtocol.getDouble(payload, 10);
+            int amount = BinaryProtocol.getInt(payload, 18);
+            String symbol = BinaryProtocol.getSymbol(payload, 22);
+            if (side == null || timeInForce == null || symbol == null || !(price >= 0) || amount <= 0) {
+                return Mono.just(binaryAck(session, clientTag, BinaryProtocol.INVALID, 0));
+            }
+
+            return orderService.addOrder(new Order(symbol, price, amount, side, timeInForce, kind))
+                    .map(savedOrder -> binaryAck(session, clientTag, BinaryProtocol.ACCEPTED, savedOrder.getId()))
+                    .onErrorResume(EngineBusyException.class, e ->
+                            Mono.just(binaryAck(session, clientTag, BinaryProtocol.BUSY, 0)))
+                    .onErrorResume(IllegalArgumentException.class, e ->
+                            Mono.just(binaryAck(session, clientTag, BinaryProtocol.INVALID, 0)));
+
+        } else if (type == BinaryProtocol.CANCEL && length == BinaryProtocol.CANCEL_LENGTH) {
+            long orderId = BinaryProtocol.getLong(payload, 9);
+            String symbol = BinaryProtocol.getSymbol(payload, 17);
+            if (symbol == null) {
+                return Mono.just(binaryAck(session, clientTag, BinaryProtocol.INVALID, orderId));
+            }
+            return binaryCancelAck(session, clientTag, orderId, orderService.cancelOrder(symbol, orderId));
+
+        } else if (type == BinaryProtocol.AMEND && length == BinaryProtocol.AMEND_LENGTH) {
+            long orderId = BinaryProtocol.getLong(payload, 9);
+            int quantity = BinaryProtocol.getInt(payload, 17);
+            String symbol = BinaryProtocol.getSymbol(payload, 21);
+            if (symbol == null || quantity <= 0) {
+                return Mono.just(binaryAck(session, clientTag, BinaryProtocol.INVALID, orderId));
+            }
+            return binaryCancelAck(session, clientTag, orderId, orderService.amendOrder(symbol, orderId, quantity));
+
+        } else if (type == BinaryProtocol.SUBSCRIBE_BOOK && length == BinaryProtocol.SUBSCRIBE_BOOK_LENGTH) {
+            int depth = BinaryProtocol.getUnsignedShort(payload, 9);
+            String symbol = BinaryProtocol.getSymbol(payload, 11);
+            if (symbol == null) {
+                return Mono.just(binaryAck(session, clientTag, BinaryProtocol.INVALID, 0));
+            }
+            return subscribeBook(session, symbol, depth, true, clientTag);
+
+        } else if (type == BinaryProtocol.UNSUBSCRIBE_BOOK && length == BinaryProtocol.UNSUBSCRIBE_BOOK_LENGTH) {
+            String symbol = BinaryProtocol.getSymbol(payload, 9);
+            if (symbol != null) {
+                unsubscribeBook(session, symbol);
+            }
+            return Mono.just(binaryAck(session, clientTag, symbol != null ? BinaryProtocol.ACCEPTED : BinaryProtocol.INVALID, 0));
+        }
+
+        return Mono.just(binaryAck(session, clientTag, BinaryProtocol.INVALID, 0));
+    }
+
+    private Mono<WebSocketMessage> binaryCancelAck(WebSocketSession session, long clientTag, long orderId,
+                                                   Mono<CancelResult> result) {
+        return result
+                .map(r -> binaryAck(session, clientTag, switch (r.getStatus()) {
+                    case CANCELLED, AMENDED -> BinaryProtocol.ACCEPTED;
+                    case NOT_FOUND -> BinaryProtocol.NOT_FOUND;
+                    case REJECTED -> BinaryProtocol.INVALID;
+                }, orderId))
+                .onErrorResume(EngineBusyException.class, e ->
+                        Mono.just(binaryAck(session, clientTag, BinaryProtocol.BUSY, orderId)));
+    }
+
+    private WebSocketMessage binaryAck(WebSocketSession session, long clientTag, byte status, long orderId) {
+        return new WebSocketMessage(WebSocketMessage.Type.BINARY,
+                BinaryProtocol.ack(session.bufferFactory(), clientTag, status, orderId));
+    }
+
+    /**
+     * Snapshot knjige pa delte do UNSUBSCRIBE_BOOK ili zatvaranja sesije. Ako klijent ne stize da
+     * primi delte, pretplata se prekida (knjiga bi inace bila netacna) i klijent treba ponovo da se pretplati.
+     */
+    private Flux<WebSocketMessage> subscribeBook(WebSocketSession session, String symbol, int depth,
+                                                 boolean binary, long clientTag) {
+        String key = session.getId() + "/" + symbol;
+        Sinks.Empty<Void> stop = Sinks.empty();
+        if (bookSubscriptions.putIfAbsent(key, stop) != null) {
+            return Flux.just(bookError(session, binary, clientTag, BinaryProtocol.INVALID, "Already subscribed"));
+        }
+
+        return orderService.subscribeBook(symbol, depth)
+                .onBackpressureBuffer(sessionBufferSize, BufferOverflowStrategy.ERROR)
+                .map(delta -> binary
+                        ? new WebSocketMessage(WebSocketMessage.Type.BINARY, BinaryProtocol.bookDelta(session.bufferFactory(), delta))
+                        : session.textMessage(encodeBook(delta)))
+                .takeUntilOther(stop.asMono())
+                .takeUntilOther(session.closeStatus())
+                .onErrorResume(Exceptions::isOverflow, e ->
+                        Mono.just(bookError(session, binary, clientTag, BinaryProtocol.FEED_OVERFLOW, "Book feed overflow, resubscribe")))
+                .onErrorResume(IllegalArgumentException.class, e ->
+                        Mono.just(bookError(session, binary, clientTag, BinaryProtocol.INVALID, "Invalid symbol or depth")))
+                .doFinally(signal -> bookSubscriptions.remove(key, stop));
+    }
+
+    /**
+     * Trenutni bar pa izmene do UNSUBSCRIBE_CANDLES ili zatvaranja sesije; kao kod knjige,
+     * klijent koji ne stize da prima izmene dobija ERROR i treba ponovo da se pretplati.
+     */
+    private Flux<WebSocketMessage> subscribeCandles(WebSocketSession session, String symbol, String interval) {
+        String key = session.getId() + "/" + symbol + "/" + interval;
+        Sinks.Empty<Void> stop = Sinks.empty();
+        if (candleSubscriptions.putIfAbsent(key, stop) != null) {
+            return Flux.just(bookError(session, false, 0, BinaryProtocol.INVALID, "Already subscribed"));
+        }
+
+        return orderService.subscribeCandles(symbol, interval)
+                .onBackpressureBuffer(sessionBufferSize, BufferOverflowStrategy.ERROR)
+                .map(candle -> session.textMessage(encodeCandle(candle)))
+                .takeUntilOther(stop.asMono())
+                .takeUntilOther(session.closeStatus())
+                .onErrorResume(Exceptions::isOverflow, e ->
+                        Mono.just(bookError(session, false, 0, BinaryProtocol.FEED_OVERFLOW, "Candle feed overflow, resubscribe")))
+                .onErrorResume(IllegalArgumentException.class, e ->
+                        Mono.just(bookError(session, false, 0, BinaryProtocol.INVALID, "Invalid symbol or interval")))
+                .doFinally(signal -> candleSubscriptions.remove(key, stop));
+    }
+
+    private String encodeCandle(Candle candle) {
+        try {
+            return objectMapper.writeValueAsString(Map.of(
+                    "action", "CANDLE",
+                    "payload", candle
+            ));
+        } catch (Exception e) {
+            return "{\"action\":\"ERROR\",\"payload\":\"Serialization error\"}";
+        }
+    }
+
+    private WebSocketMessage bookError(WebSocketSession session, boolean binary, long clientTag, byte status, String reason) {
+        return binary
+                ? binaryAck(session, clientTag, status, 0)
+                : session.textMessage("{\"action\":\"ERROR\",\"payload\":\"" + reason + "\"}");
+    }
+
+    private void unsubscribeBook(WebSocketSession session, String symbol) {
+        Sinks.Empty<Void> stop = bookSubscriptions.get(session.getId() + "/" + symbol);
+        if (stop != null) {
+            stop.tryEmitEmpty();
+        }
+    }
+
+    private String encodeBook(BookDelta delta) {
+        try {
+            return objectMapper.writeValueAsString(Map.of(
+                    "action", delta.isSnapshot() ? "BOOK_SNAPSHOT" : "BOOK_DELTA",
+                    "payload", delta
+            ));
+        } catch (Exception e) {
+            return "{\"action\":\"ERROR\",\"payload\":\"Serialization error\"}";
+        }
+    }
+
     @PreDestroy
     public void closeAllSessions() {
         System.out.println("Zatvaram sve WebSocket sesije...");
@@ -141,6 +487,8 @@ public class OrderWebSocketHandler implements WebSocketHandler {
                 .toList();
 
         sessions.clear();
+        trades.tryEmitComplete();
+        binaryTrades.tryEmitComplete();
 
         Mono.when(closeMonos).block(); // blokira dok se sve sesije ne zatvore
     }
@@ -0,0 +1,13 @@
+package com.example.exchange.controller;
+
+/**
+ * Sta raditi kad WebSocket klijent ne stize da primi trejdove i njegov buffer se napuni.
+ */
+public enum OverflowPolicy {
+    /** novi trejdovi se odbacuju dok se buffer ne isprazni */
+    DROP,
+    /** odbacuju se najstariji trejdovi iz buffer-a – klijent uvek dobija najsvezije */
+    CONFLATE,
+    /** spora sesija se zatvara */
+    DISCONNECT
+}
@@ -0,0 +1,28 @@
+package com.example.exchange.controller;
+
+import com.example.exchange.model.PersistenceStatus;
+import com.example.exchange.service.OrderService;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/persistence")
+public class PersistenceController {
+
+    private final OrderService orderService;
+
+    public PersistenceController(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    /**
+     * GET /api/persistence/status
+     * Pozicija journal-a, trajanje poslednjeg snapshot-a i poslednjeg oporavka
+     * @return
+     */
+    @GetMapping("/status")
+    public PersistenceStatus getStatus() {
+        return orderService.getPersistenceStatus();
+    }
+}
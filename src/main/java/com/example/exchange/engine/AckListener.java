@@ -0,0 +1,31 @@
+package com.example.exchange.engine;
+
+import com.example.exchange.model.Order;
+import reactor.core.publisher.MonoSink;
+
+/**
+ * Potvrda naloga koju engine zavrsava sa svoje niti kad je nalog upisan u journal.
+ */
+public interface AckListener {
+
+    void onAccepted(Order order);
+
+    void onFailed(Order order, Exception error);
+
+    /**
+     * Potvrda jednog naloga preko Reactor sink-a
+     */
+    static AckListener of(MonoSink<Order> sink) {
+        return new AckListener() {
+            @Override
+            public void onAccepted(Order order) {
+                sink.success(order);
+            }
+
+            @Override
+            public void onFailed(Order order, Exception error) {
+                sink.error(error);
+            }
+        };
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.exchange.engine;
+
+/**
+ * Jedan cenovni nivo u ladder-u. Nivoi se alociraju jednom po tick-u i
+ * ponovo koriste kad se isprazne. Nalozi su u intrusivnoj dvostruko povezanoj FIFO listi,
+ * pa dodavanje, skidanje i otkazivanje iz sredine ne alociraju cvorove i rade u O(1).
+ */
+public class BookLevel {
+
+    final long priceTicks;
+
+    private RestingOrder head;
+    private RestingOrder tail;
+
+    // agregati koje engine odrzava pri svakom dodavanju, punjenju i uklanjanju
+    long totalQuantity;
+    int orderCount;
+
+    // true dok je nivo van prozora ladder-a (cuva se u sortiranoj mapi)
+    boolean overflow;
+
+    BookLevel(long priceTicks) {
+        this.priceTicks = priceTicks;
+    }
+
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
+    public long getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    public int getOrderCount() {
+        return orderCount;
+    }
+
+    RestingOrder head() {
+        return head;
+    }
+
+    void add(RestingOrder order) {
+        order.level = this;
+        order.prev = tail;
+        order.next = null;
+        if (tail == null) {
+            head = order;
+        } else {
+            tail.next = order;
+        }
+        tail = order;
+        totalQuantity += order.remaining;
+        orderCount++;
+    }
+
+    /**
+     * Smanji kolicinu prvog naloga na mestu; ako je ispunjen, skini ga sa nivoa.
+     * @return skinuti nalog (za vracanje u pool) ili null ako je ostao na nivou
+     */
+    RestingOrder fillHead(int amount) {
+        RestingOrder order = head;
+        order.remaining -= amount;
+        totalQuantity -= amount;
+        if (order.remaining > 0) {
+            return null;
+        }
+        head = order.next;
+        if (head == null) {
+            tail = null;
+        } else {
+            head.prev = null;
+        }
+        orderCount--;
+        return order;
+    }
+
+    /**
+     * Skini nalog sa bilo kog mesta u listi.
+     */
+    void remove(RestingOrder order) {
+        if (order.prev == null) {
+            head = order.next;
+        } else {
+            order.prev.next = order.next;
+        }
+        if (order.next == null) {
+            tail = order.prev;
+        } else {
+            order.next.prev = order.prev;
+        }
+        totalQuantity -= order.remaining;
+        orderCount--;
+    }
+
+    /**
+     * Smanji kolicinu naloga na mestu – zadrzava prioritet u redu.
+     */
+    void reduce(RestingOrder order, int quantity) {
+        totalQuantity -= order.remaining - quantity;
+        order.remaining = quantity;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.exchange.engine;
+
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.PriceLevel;
+import com.example.exchange.model.TickSize;
+import com.example.exchange.model.TopOrdersResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Function;
+
+/**
+ * Nepromenljiv pogled na vrh knjige: prvih depth nivoa obe strane, zamrznutih na kraju jednog
+ * batch-a engine-a. Engine ga pravi i zamenjuje jednim volatile upisom, pa citaoci nikad ne prolaze
+ * kroz knjigu koju engine menja i uvek vide obe strane iz istog trenutka (bez ukrstene knjige).
+ * Serijalizovan JSON pravi prvi citalac za datu dubinu i kesira ga ovde.
+ */
+public class BookView {
+
+    private final String symbol;
+    private final long version;
+    private final long tradeSequence;
+    private final int depth;
+
+    private final double[] buyPrices;
+    private final long[] buyQuantities;
+    private final int[] buyCounts;
+    private final double[] sellPrices;
+    private final long[] sellQuantities;
+    private final int[] sellCounts;
+
+    // JSON po dubini (indeks = depth); trka dva citaoca samo dvaput serijalizuje isto
+    private final AtomicReferenceArray<byte[]> encoded;
+
+    BookView(String symbol, long version, long tradeSequence, int depth, TickSize tickSize,
+             List<BookLevel> buys, List<BookLevel> sells) {
+        this.symbol = symbol;
+        this.version = version;
+        this.tradeSequence = tradeSequence;
+        this.depth = depth;
+        this.buyPrices = new double[buys.size()];
+        this.buyQuantities = new long[buys.size()];
+        this.buyCounts = new int[buys.size()];
+        this.sellPrices = new double[sells.size()];
+        this.sellQuantities = new long[sells.size()];
+        this.sellCounts = new int[sells.size()];
+        copy(buys, tickSize, buyPrices, buyQuantities, buyCounts);
+        copy(sells, tickSize, sellPrices, sellQuantities, sellCounts);
+        this.encoded = new AtomicReferenceArray<>(depth + 1);
+    }
+
+    private static void copy(List<BookLevel> levels, TickSize tickSize, double[] prices, long[] quantities, int[] counts) {
+        for (int i = 0; i < prices.length; i++) {
+            BookLevel level = levels.get(i);
+            prices[i] = tickSize.toPrice(level.priceTicks);
+            quantities[i] = level.totalQuantity;
+            counts[i] = level.orderCount;
+        }
+    }
+
+    /**
+     * Prvih n nivoa po strani, n <= getDepth()
+     */
+    public TopOrdersResponse toTopOrders(int n) {
+        return new TopOrdersResponse(
+                levels(buyPrices, buyQuantities, buyCounts, OrderType.BUY, n),
+                levels(sellPrices, sellQuantities, sellCounts, OrderType.SELL, n));
+    }
+
+    private static List<PriceLevel> levels(double[] prices, long[] quantities, int[] counts, OrderType type, int n) {
+        int size = Math.min(n, prices.length);
+        List<PriceLevel> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(new PriceLevel(prices[i], quantities[i], counts[i], type));
+        }
+        return result;
+    }
+
+    /**
+     * toTopOrders(n) serijalizovan datim encoder-om; posle prvog poziva za n vraca iste bajtove.
+     */
+    public byte[] encoded(int n, Function<TopOrdersResponse, byte[]> encoder) {
+        byte[] bytes = encoded.get(n);
+        if (bytes == null) {
+            bytes = encoder.apply(toTopOrders(n));
+            encoded.set(n, bytes);
+        }
+        return bytes;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Raste sa svakim objavljenim pogledom ove knjige
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Redni broj poslednjeg trejda ukljucenog u pogled
+     */
+    public long getTradeSequence() {
+        return tradeSequence;
+    }
+
+    /**
+     * Najveci broj nivoa po strani koji pogled sadrzi (engine.view-depth)
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public boolean hasBid() {
+        return buyPrices.length > 0;
+    }
+
+    public boolean hasAsk() {
+        return sellPrices.length > 0;
+    }
+
+    public double getBidPrice() {
+        return buyPrices[0];
+    }
+
+    public long getBidQuantity() {
+        return buyQuantities[0];
+    }
+
+    public double getAskPrice() {
+        return sellPrices[0];
+    }
+
+    public long getAskQuantity() {
+        return sellQuantities[0];
+    }
+}
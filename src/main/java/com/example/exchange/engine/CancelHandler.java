@@ -0,0 +1,16 @@
+package com.example.exchange.engine;
+
+/**
+ * Primenjuje otkazivanje ili izmenu naloga na knjigu; poziva se na engine niti.
+ */
+@FunctionalInterface
+public interface CancelHandler {
+
+    CancelHandler NONE = (symbol, orderId, quantity) -> OrderBook.NOT_FOUND;
+
+    /**
+     * @param quantity 0 za otkazivanje, inace nova preostala kolicina
+     * @return rezultat kao kod OrderBook.cancel/amend
+     */
+    int onCancel(String symbol, long orderId, int quantity);
+}
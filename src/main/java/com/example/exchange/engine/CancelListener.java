@@ -0,0 +1,14 @@
+package com.example.exchange.engine;
+
+/**
+ * Rezultat otkazivanja ili izmene naloga; engine ga javlja sa svoje niti posle obrade.
+ */
+public interface CancelListener {
+
+    /**
+     * @param result preostala kolicina (0 posle otkazivanja), OrderBook.NOT_FOUND ili OrderBook.REJECTED
+     */
+    void onResult(long orderId, int result);
+
+    void onFailed(long orderId, Exception error);
+}
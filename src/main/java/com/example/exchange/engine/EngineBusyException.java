@@ -0,0 +1,11 @@
+package com.example.exchange.engine;
+
+/**
+ * Engine trenutno ne prima naloge (red je iznad watermark-a ili pun); klijent treba da pokusa kasnije.
+ */
+public class EngineBusyException extends RuntimeException {
+
+    public EngineBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.exchange.engine;
+
+import com.example.exchange.model.Order;
+
+/**
+ * Unapred alocirani slot u ring buffer-u. Producer popunjava polja,
+ * matching nit ih cita i brise posle obrade.
+ * Slot bez naloga (order == null) je otkazivanje ili izmena naloga orderId.
+ */
+public class EngineCommand {
+
+    Order order;
+
+    // potvrda koju engine zavrsava kad je nalog upisan u journal (null ako nije potrebna)
+    AckListener ack;
+
+    // System.nanoTime() pri objavi – za vreme cekanja u redu
+    long publishNanos;
+
+    // otkazivanje (quantity == 0) ili izmena naloga u knjizi
+    String symbol;
+    long orderId;
+    int quantity;
+    CancelListener cancelAck;
+
+    // rezultat otkazivanja; javlja se tek posle objave pogleda batch-a
+    int result;
+
+    public Order getOrder() {
+        return order;
+    }
+
+    void clear() {
+        order = null;
+        ack = null;
+        symbol = null;
+        orderId = 0;
+        quantity = 0;
+        cancelAck = null;
+        result = 0;
+    }
+}
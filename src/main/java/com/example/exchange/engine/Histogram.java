@@ -0,0 +1,100 @@
+package com.example.exchange.engine;
+
+import com.example.exchange.model.HistogramStats;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram sa log-linearnim korpama (kao HdrHistogram): svaki stepen dvojke podeljen je na
+ * SUB_BUCKETS jednakih korpi, pa je relativna greska percentila najvise 1/SUB_BUCKETS (~3%).
+ * Upisuje samo jedna nit (engine ili faza) – upis je par citanja i lazySet-ova, bez zakljucavanja
+ * i bez alokacije. Citaoci sa drugih niti dobijaju priblizno tacan pogled.
+ */
+public class Histogram {
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Upisi vrednost; negativne (npr. skok sata) se racunaju kao 0. Poziva je samo nit vlasnik.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        int index = bucketOf(value);
+        counts.lazySet(index, counts.get(index) + 1);
+        sum.lazySet(sum.get() + value);
+        if (value > max.get()) {
+            max.lazySet(value);
+        }
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BITS + 1) << SUB_BITS) + sub;
+    }
+
+    /**
+     * Najveca vrednost koja upada u korpu – percentil se ne potcenjuje.
+     */
+    static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = (bucket >>> SUB_BITS) - 1;
+        long lowest = (long) (SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1))) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /**
+     * Spoji histograme (npr. istu meru sa svih engine-a) i izracunaj percentile.
+     */
+    public static HistogramStats stats(String name, String unit, List<Histogram> histograms) {
+        long[] merged = new long[BUCKETS];
+        long total = 0;
+        long sum = 0;
+        long max = 0;
+        for (Histogram histogram : histograms) {
+            for (int i = 0; i < BUCKETS; i++) {
+                long count = histogram.counts.get(i);
+                merged[i] += count;
+                total += count;
+            }
+            sum += histogram.sum.get();
+            max = Math.max(max, histogram.max.get());
+        }
+        if (total == 0) {
+            return new HistogramStats(name, unit, 0, 0, 0, 0, 0, 0, 0);
+        }
+        return new HistogramStats(name, unit, total, (double) sum / total,
+                percentile(merged, total, max, 0.50),
+                percentile(merged, total, max, 0.90),
+                percentile(merged, total, max, 0.99),
+                percentile(merged, total, max, 0.999),
+                max);
+    }
+
+    private static long percentile(long[] counts, long total, long max, double percentile) {
+        long rank = Math.max(1, (long) Math.ceil(percentile * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+}
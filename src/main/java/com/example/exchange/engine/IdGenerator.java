@@ -0,0 +1,82 @@
+package com.example.exchange.engine;
+
+/**
+ * 64-bitni ID-jevi za naloge i trejdove jednog engine-a: u gornjim bitovima je shard,
+ * u donjim brojac tog engine-a. Engine-i ne dele nijedan brojac, a ID-jevi su monotoni
+ * u redosledu obrade svog engine-a.
+ *
+ * ID naloga se izvodi iz sekvence ring buffer-a (koja je redosled obrade), pa ga producer
+ * dodeljuje bez ikakvog dodatnog atomic-a. ID trejda dodeljuje engine nit; replay naloga
+ * jednog shard-a istim redom zato daje iste ID-jeve trejdova kao i live obrada.
+ */
+public class IdGenerator {
+
+    public static final int SHARD_SHIFT = 48;
+    public static final int MAX_SHARDS = 1 << 15;
+    private static final long COUNTER_MASK = (1L << SHARD_SHIFT) - 1;
+
+    private final long prefix;
+
+    // poslednji brojac naloga pre starta engine-a; posle starta se ne menja
+    private volatile long orderBase;
+
+    // menja ga samo nit koja uparuje naloge ovog shard-a (engine, ili replay pre starta)
+    private long lastTrade;
+
+    public IdGenerator(int shard) {
+        if (shard < 0 || shard >= MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard must be between 0 and " + (MAX_SHARDS - 1) + ": " + shard);
+        }
+        this.prefix = (long) shard << SHARD_SHIFT;
+    }
+
+    /**
+     * ID naloga objavljenog na datoj sekvenci ring buffer-a (sekvence krecu od 0).
+     */
+    public long orderId(long sequence) {
+        return prefix | (orderBase + sequence + 1);
+    }
+
+    /**
+     * Sledeci ID naloga mimo ring buffer-a (npr. dummy nalozi); sme samo pre starta engine-a.
+     */
+    public long nextOrderId() {
+        return prefix | ++orderBase;
+    }
+
+    public long nextTradeId() {
+        return prefix | ++lastTrade;
+    }
+
+    /**
+     * Posle replay-a journal-a novi ID-jevi moraju da nastave iza poslednjeg upisanog.
+     * ID-jevi drugih shard-ova se ignorisu.
+     */
+    public void advanceOrderId(long orderId) {
+        if (shardOf(orderId) == shard()) {
+            orderBase = Math.max(orderBase, orderId & COUNTER_MASK);
+        }
+    }
+
+    public void advanceTradeId(long tradeId) {
+        if (shardOf(tradeId) == shard()) {
+            lastTrade = Math.max(lastTrade, tradeId & COUNTER_MASK);
+        }
+    }
+
+    public long getLastOrderId() {
+        return prefix | orderBase;
+    }
+
+    public long getLastTradeId() {
+        return prefix | lastTrade;
+    }
+
+    public int shard() {
+        return (int) (prefix >>> SHARD_SHIFT);
+    }
+
+    public static int shardOf(long id) {
+        return (int) (id >>> SHARD_SHIFT);
+    }
+}
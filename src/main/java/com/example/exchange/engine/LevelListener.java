@@ -0,0 +1,22 @@
+package com.example.exchange.engine;
+
+/**
+ * Poziva se sa matching niti svaki put kad se promeni agregat nekog nivoa u knjizi.
+ * Vrednosti su nove (apsolutne), pa je ponovna primena iste promene bezopasna.
+ */
+@FunctionalInterface
+public interface LevelListener {
+
+    LevelListener NONE = (buySide, priceTicks, totalQuantity, orderCount) -> { };
+
+    /**
+     * @param totalQuantity nova ukupna kolicina nivoa, 0 ako je nivo ispraznjen
+     */
+    void onLevelChange(boolean buySide, long priceTicks, long totalQuantity, int orderCount);
+
+    /**
+     * Engine je objavio novi pogled; knjiga je u tom trenutku tacno jednaka pogledu.
+     */
+    default void onViewPublished(BookView view) {
+    }
+}
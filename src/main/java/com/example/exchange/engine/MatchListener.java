@@ -0,0 +1,17 @@
+package com.example.exchange.engine;
+
+/**
+ * Poziva se sa matching niti za svaki izvrseni meč.
+ * Argumenti su primitivni da punjenje ne bi alociralo.
+ */
+@FunctionalInterface
+public interface MatchListener {
+
+    /**
+     * @param sequence redni broj trejda u okviru simbola (bez rupa)
+     * @param tradeId jedinstven ID trejda, monoton u okviru engine-a (shard je u gornjim bitovima)
+     * @param price cena izvrsenja – cena naloga koji je bio u knjizi
+     */
+    void onMatch(String symbol, long sequence, long tradeId, long buyOrderId, long sellOrderId,
+                 double buyPrice, double sellPrice, double price, int amount);
+}
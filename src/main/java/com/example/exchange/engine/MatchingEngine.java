@@ -0,0 +1,417 @@
+package com.example.exchange.engine;
+
+import com.example.exchange.journal.OrderJournal;
+import com.example.exchange.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Single-writer matching engine: jedna nit cita komande iz ring buffer-a
+ * i jedina menja knjigu naloga, pa je redosled obrade deterministican.
+ */
+public class MatchingEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatchingEngine.class);
+    private static final int MAX_BATCH = 256;
+
+    private final String name;
+    private final RingBuffer<EngineCommand> ringBuffer;
+    private final Consumer<Order> orderHandler;
+    private final CancelHandler cancelHandler;
+
+    // pool naloga u knjizi – deli ga sve knjige ovog engine-a, koristi ga samo engine nit
+    private final OrderPool orderPool = new OrderPool();
+
+    // ID-jevi naloga i trejdova ovog engine-a; ne deli se sa drugim engine-ima
+    private IdGenerator idGenerator = new IdGenerator(0);
+
+    // journal se upisuje po batch-u, pre potvrde i uparivanja naloga
+    private OrderJournal journal;
+
+    // poziva se na engine niti posle svakog batch-a (npr. objava pogleda na knjige)
+    private Runnable batchListener = () -> { };
+
+    private volatile WaitStrategy waitStrategy = WaitStrategy.PARK;
+
+    private int highWatermark;
+    private int lowWatermark;
+    private volatile boolean busy;
+    private final RateMeter rejections = new RateMeter();
+
+    // upisuje ih samo engine nit (fillsPerOrder upisuje orderHandler, koji radi na njoj)
+    private final Histogram queueWait = new Histogram();
+    private final Histogram matchTime = new Histogram();
+    private final Histogram fillsPerOrder = new Histogram();
+    private volatile boolean running;
+    private Thread thread;
+
+    public MatchingEngine(String name, int capacity, Consumer<Order> orderHandler) {
+        this(name, capacity, orderHandler, CancelHandler.NONE);
+    }
+
+    public MatchingEngine(String name, int capacity, Consumer<Order> orderHandler, CancelHandler cancelHandler) {
+        this.name = name;
+        this.ringBuffer = new RingBuffer<>(capacity, EngineCommand::new);
+        this.orderHandler = orderHandler;
+        this.cancelHandler = cancelHandler;
+        this.highWatermark = capacity;
+        this.lowWatermark = capacity / 2;
+    }
+
+    /**
+     * Pokusaj da objavis nalog bez cekanja. ID naloga dodeljuje engine pri zauzimanju slota.
+     * @param ack potvrda koju engine zavrsava kad je nalog upisan u journal (null ako nije potrebna)
+     * @return false ako engine trenutno ne prima naloge
+     */
+    public boolean tryPublish(Order order, AckListener ack) {
+        if (!admit(1)) {
+            return false;
+        }
+        long sequence = ringBuffer.tryClaim(1);
+        if (sequence < 0) {
+            rejections.mark(1);
+            return false;
+        }
+        // sekvenca je redosled obrade, pa su ID-jevi monotoni bez dodatnog brojaca
+        order.assignId(idGenerator.orderId(sequence));
+        EngineCommand command = ringBuffer.get(sequence);
+        command.order = order;
+        command.ack = ack;
+        command.publishNanos = System.nanoTime();
+        ringBuffer.publish(sequence);
+        return true;
+    }
+
+    /**
+     * Objavi vise naloga jednim zauzimanjem uzastopnih slotova, pa ih engine obradjuje zajedno
+     * (i upisuje u journal u istom batch-u). Ili se prihvataju svi ili nijedan.
+     * @param orders
+     * @param ack zajednicka potvrda, poziva se za svaki nalog (null ako nije potrebna)
+     * @return false ako engine trenutno ne prima naloge
+     */
+    public boolean tryPublishAll(List<Order> orders, AckListener ack) {
+        int count = orders.size();
+        if (!admit(count)) {
+            return false;
+        }
+        long last = count <= ringBuffer.getCapacity() ? ringBuffer.tryClaim(count) : -1;
+        if (last < 0) {
+            rejections.mark(count);
+            return false;
+        }
+        long first = last - count + 1;
+        long now = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            Order order = orders.get(i);
+            order.assignId(idGenerator.orderId(first + i));
+            EngineCommand command = ringBuffer.get(first + i);
+            command.order = order;
+            command.ack = ack;
+            command.publishNanos = now;
+        }
+        for (long sequence = first; sequence <= last; sequence++) {
+            ringBuffer.publish(sequence);
+        }
+        return true;
+    }
+
+    /**
+     * Objavi otkazivanje (quantity == 0) ili smanjenje naloga. Ne prolazi kroz watermark-e:
+     * otkazivanje smanjuje knjigu, pa se odbija samo kad je ring buffer stvarno pun.
+     * @param listener dobija rezultat posle obrade na engine niti
+     * @return false ako u ring buffer-u nema mesta
+     */
+    public boolean tryCancel(String symbol, long orderId, int quantity, CancelListener listener) {
+        long sequence = ringBuffer.tryClaim(1);
+        if (sequence < 0) {
+            rejections.mark(1);
+            return false;
+        }
+        EngineCommand command = ringBuffer.get(sequence);
+        command.symbol = symbol;
+        command.orderId = orderId;
+        command.quantity = quantity;
+        command.cancelAck = listener;
+        command.publishNanos = System.nanoTime();
+        ringBuffer.publish(sequence);
+        return true;
+    }
+
+    /**
+     * Kontrola prijema sa histerezom: kad red predje high watermark engine odbija naloge
+     * sve dok se ne isprazni do low watermark-a, pa ne osciluje oko jedne granice.
+     */
+    private boolean admit(int count) {
+        long depth = ringBuffer.size();
+        if (busy) {
+            if (depth > lowWatermark) {
+                rejections.mark(count);
+                return false;
+            }
+            busy = false;
+        }
+        if (depth + count > highWatermark) {
+            busy = true;
+            rejections.mark(count);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Granice reda za prijem naloga; postavlja se pre start()-a.
+     */
+    public void setWatermarks(int highWatermark, int lowWatermark) {
+        if (lowWatermark < 0 || lowWatermark >= highWatermark || highWatermark > ringBuffer.getCapacity()) {
+            throw new IllegalArgumentException("Watermarks must satisfy 0 <= low < high <= " + ringBuffer.getCapacity());
+        }
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+    }
+
+    /**
+     * Postavlja se pre start()-a.
+     */
+    public void setJournal(OrderJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Postavlja se pre start()-a. Rezultati otkazivanja i izmena iz batch-a javljaju se tek
+     * posle njega, pa klijent koji dobije rezultat vidi i objavljeno stanje knjige.
+     */
+    public void setBatchListener(Runnable batchListener) {
+        this.batchListener = batchListener;
+    }
+
+    /**
+     * Postavlja se pre start()-a, posle oporavka ID-jeva iz snapshot-a i journal-a.
+     */
+    public void setIdGenerator(IdGenerator idGenerator) {
+        this.idGenerator = idGenerator;
+    }
+
+    public IdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    public boolean isJournaled() {
+        return journal != null;
+    }
+
+    public synchronized void start(WaitStrategy waitStrategy) {
+        if (running) {
+            return;
+        }
+        if (ringBuffer.isClosed()) {
+            throw new IllegalStateException(name + " is stopped");
+        }
+        this.waitStrategy = waitStrategy;
+        this.running = true;
+        this.thread = new Thread(this::run, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+        logger.info("{} pokrenut (wait strategy: {})", name, waitStrategy);
+    }
+
+    /**
+     * Zatvara ring buffer za nove komande, pa engine pre izlaska obradi sve vec objavljene,
+     * tako da svaka prihvacena komanda dobije potvrdu ili rezultat. Engine se posle toga ne pokrece ponovo.
+     */
+    public synchronized void stop() throws InterruptedException {
+        ringBuffer.close();
+        running = false;
+        if (thread == null) {
+            // engine nije ni pokrenut – komande iz reda dobijaju gresku umesto da cekaju zauvek
+            failPending(new IllegalStateException(name + " was stopped before it started"));
+            return;
+        }
+        thread.join(5_000);
+        if (thread.isAlive()) {
+            logger.warn("{} nije zavrsio na vreme – prekidam.", name);
+            thread.interrupt();
+        }
+    }
+
+    private void failPending(Exception error) {
+        while (ringBuffer.size() > 0) {
+            int count = ringBuffer.available(MAX_BATCH);
+            if (count == 0) {
+                Thread.onSpinWait(); // producer je zauzeo slot, a jos ga nije objavio
+                continue;
+            }
+            long first = ringBuffer.nextSequence();
+            for (long sequence = first; sequence < first + count; sequence++) {
+                handle(ringBuffer.get(sequence), error);
+            }
+            ringBuffer.release(count);
+        }
+    }
+
+    private void run() {
+        // posle stop()-a ring buffer je zatvoren, pa size() pada na nulu kad se obradi i poslednja zauzeta komanda
+        while (running || ringBuffer.size() > 0) {
+            int count = ringBuffer.available(MAX_BATCH);
+            if (count == 0) {
+                waitStrategy.idle();
+                continue;
+            }
+
+            long first = ringBuffer.nextSequence();
+            Exception journalError = journalBatch(first, count);
+            // posle journal-a: upis batch-a ulazi u queueWait, a ne u matchTime prvog naloga
+            long start = System.nanoTime();
+            for (long sequence = first; sequence < first + count; sequence++) {
+                // kraj jedne komande je pocetak sledece – jedan nanoTime() po komandi
+                EngineCommand command = ringBuffer.get(sequence);
+                boolean isOrder = command.order != null;
+                queueWait.record(start - command.publishNanos);
+                handle(command, journalError);
+                long end = System.nanoTime();
+                if (isOrder) {
+                    matchTime.record(end - start);
+                }
+                start = end;
+            }
+            try {
+                batchListener.run();
+            } catch (Exception e) {
+                logger.error("{} greska na kraju batch-a", name, e);
+            }
+            completeCancels(first, count);
+            ringBuffer.release(count);
+        }
+    }
+
+    /**
+     * Upisi ceo batch u journal jednim zakljucavanjem i (u SYNC modu) jednim fsync-om.
+     * @return greska ako upis nije uspeo, inace null
+     */
+    private Exception journalBatch(long first, int count) {
+        if (journal == null) {
+            return null;
+        }
+        journal.beginBatch();
+        try {
+            for (long sequence = first; sequence < first + count; sequence++) {
+                EngineCommand command = ringBuffer.get(sequence);
+                if (command.order != null) {
+                    journal.writeNewOrder(command.order);
+                } else if (command.quantity == 0) {
+                    journal.writeCancel(command.orderId, command.symbol);
+                } else {
+                    journal.writeAmend(command.orderId, command.symbol, command.quantity);
+                }
+            }
+            journal.commitBatch();
+            return null;
+        } catch (Exception e) {
+            logger.error("{} greska pri upisu u journal – odbijam {} naloga", name, count, e);
+            return e;
+        } finally {
+            journal.endBatch();
+        }
+    }
+
+    private void handle(EngineCommand command, Exception journalError) {
+        if (command.order == null) {
+            handleCancel(command, journalError);
+            return;
+        }
+        try {
+            if (journalError != null) {
+                if (command.ack != null) {
+                    command.ack.onFailed(command.order, journalError);
+                }
+                return;
+            }
+            if (command.ack != null) {
+                command.ack.onAccepted(command.order);
+            }
+            orderHandler.accept(command.order);
+        } catch (Exception e) {
+            logger.error("{} greska pri obradi naloga: {}", name, command.order, e);
+        } finally {
+            command.clear();
+        }
+    }
+
+    private void handleCancel(EngineCommand command, Exception journalError) {
+        try {
+            if (journalError != null) {
+                command.cancelAck.onFailed(command.orderId, journalError);
+                command.clear();
+                return;
+            }
+            command.result = cancelHandler.onCancel(command.symbol, command.orderId, command.quantity);
+        } catch (Exception e) {
+            logger.error("{} greska pri otkazivanju naloga {}", name, command.orderId, e);
+            // bez ovoga bi onaj ko ceka rezultat cekao zauvek
+            try {
+                command.cancelAck.onFailed(command.orderId, e);
+            } catch (Exception ackError) {
+                logger.error("{} greska pri javljanju greske za nalog {}", name, command.orderId, ackError);
+            }
+            command.clear();
+        }
+    }
+
+    /**
+     * Javi rezultate otkazivanja i izmena obradjenih u batch-u (komande koje jos imaju listener).
+     */
+    private void completeCancels(long first, int count) {
+        for (long sequence = first; sequence < first + count; sequence++) {
+            EngineCommand command = ringBuffer.get(sequence);
+            if (command.cancelAck == null) {
+                continue;
+            }
+            try {
+                command.cancelAck.onResult(command.orderId, command.result);
+            } catch (Exception e) {
+                logger.error("{} greska pri javljanju rezultata za nalog {}", name, command.orderId, e);
+            } finally {
+                command.clear();
+            }
+        }
+    }
+
+    public OrderPool getOrderPool() {
+        return orderPool;
+    }
+
+    public long getQueueDepth() {
+        return ringBuffer.size();
+    }
+
+    public boolean isBusy() {
+        return busy;
+    }
+
+    public RateMeter getRejections() {
+        return rejections;
+    }
+
+    /**
+     * Od objave do pocetka obrade komande (ukljucuje upis batch-a u journal)
+     */
+    public Histogram getQueueWait() {
+        return queueWait;
+    }
+
+    /**
+     * Obrada jednog naloga na engine niti: potvrda i uparivanje sa knjigom
+     */
+    public Histogram getMatchTime() {
+        return matchTime;
+    }
+
+    /**
+     * Broj trejdova po nalogu; upisuje ga orderHandler
+     */
+    public Histogram getFillsPerOrder() {
+        return fillsPerOrder;
+    }
+}
@@ -0,0 +1,369 @@
+package com.example.exchange.engine;
+
+import com.example.exchange.journal.BookSnapshot;
+import com.example.exchange.model.Order;
+import com.example.exchange.model.OrderKind;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.PriceLevel;
+import com.example.exchange.model.TickSize;
+import com.example.exchange.model.TimeInForce;
+import com.example.exchange.model.TopOrdersResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Knjiga naloga za jedan simbol. Menja je iskljucivo engine nit kojoj je simbol dodeljen;
+ * citaoci (top orders) citaju BookView koji ta nit objavljuje posle svakog batch-a.
+ * Cene su u tick-ovima (long), a svaka strana je niz nivoa indeksiran tick-om.
+ */
+public class OrderBook {
+
+    private final String symbol;
+    private final TickSize tickSize;
+    private final MatchListener matchListener;
+    private final OrderPool orderPool;
+    private final IdGenerator idGenerator;
+
+    // redni broj poslednjeg trejda u ovoj knjizi
+    private long tradeSequence;
+
+    // menja se sa niti pretplatnika (BookFeed se prikljucuje i odvaja), cita engine
+    private volatile LevelListener levelListener = LevelListener.NONE;
+
+    // pogled za citaoce, objavljuje ga engine nit na kraju batch-a
+    private volatile BookView view;
+    private long viewVersion;
+    // postavlja se pre izmene knjige, brise posle objave; BookFeed po njemu zna da li je pogled tacan
+    private volatile boolean viewStale;
+
+    // rezultati cancel/amend kad nalog nije u knjizi, odnosno kad izmena nije dozvoljena
+    public static final int NOT_FOUND = -1;
+    public static final int REJECTED = -2;
+
+    // nalozi u knjizi po ID-ju, za otkazivanje i izmenu
+    private final OrderIndex index = new OrderIndex(1024);
+
+    // BUY strana – najbolja je najveća cena
+    private final PriceLadder buyOrders = new PriceLadder(true);
+
+    // SELL strana – najbolja je najmanja cena
+    private final PriceLadder sellOrders = new PriceLadder(false);
+
+    public OrderBook(String symbol, TickSize tickSize, OrderPool orderPool, IdGenerator idGenerator,
+                     MatchListener matchListener) {
+        this.symbol = symbol;
+        this.tickSize = tickSize;
+        this.orderPool = orderPool;
+        this.idGenerator = idGenerator;
+        this.matchListener = matchListener;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public TickSize getTickSize() {
+        return tickSize;
+    }
+
+    /**
+     * top N BUY i SELL nivoa – O(N), iz agregata nivoa
+     * @param n
+     * @return
+     */
+    public TopOrdersResponse getTopOrders(int n) {
+        List<PriceLevel> topBuys = getTopNByPriceLevels(buyOrders, OrderType.BUY, n);
+        List<PriceLevel> topSells = getTopNByPriceLevels(sellOrders, OrderType.SELL, n);
+        return new TopOrdersResponse(topBuys, topSells);
+    }
+
+    private List<PriceLevel> getTopNByPriceLevels(PriceLadder ladder, OrderType type, int n) {
+        List<PriceLevel> result = new ArrayList<>(n);
+
+        for (BookLevel level : ladder.top(n)) {
+            result.add(new PriceLevel(tickSize.toPrice(level.priceTicks), level.totalQuantity, level.orderCount, type));
+        }
+
+        return result;
+    }
+
+    /**
+     * Poslednji objavljeni pogled ili null ako ga knjiga jos nema
+     */
+    public BookView getView() {
+        return view;
+    }
+
+    /**
+     * Oznaci da pogled vise ne odgovara knjizi, pre prve izmene u batch-u. Sme da se poziva samo sa
+     * niti koja menja knjigu.
+     * @return true ako pogled do sada nije bio zastareo (knjigu treba dodati u listu za objavu)
+     */
+    public boolean markViewStale() {
+        if (viewStale) {
+            return false;
+        }
+        viewStale = true;
+        return true;
+    }
+
+    /**
+     * Napravi novi pogled sa prvih depth nivoa po strani i zameni prethodni. Sme da se poziva samo
+     * sa niti koja menja knjigu, kad je knjiga konzistentna (izmedju naloga).
+     */
+    public BookView publishView(int depth) {
+        BookView published = new BookView(symbol, ++viewVersion, tradeSequence, depth, tickSize,
+                buyOrders.top(depth), sellOrders.top(depth));
+        viewStale = false;
+        view = published;
+        levelListener.onViewPublished(published);
+        return published;
+    }
+
+    /**
+     * true od prve izmene knjige do objave pogleda koji je sadrzi
+     */
+    public boolean isViewStale() {
+        return viewStale;
+    }
+
+    public void setLevelListener(LevelListener levelListener) {
+        this.levelListener = levelListener != null ? levelListener : LevelListener.NONE;
+    }
+
+    public long getTradeSequence() {
+        return tradeSequence;
+    }
+
+    /**
+     * Kopija svih naloga u redosledu cena-vreme. Sme da se poziva samo sa niti koja menja knjigu.
+     */
+    public BookSnapshot toSnapshot() {
+        List<BookLevel> buys = buyOrders.top(Integer.MAX_VALUE);
+        List<BookLevel> sells = sellOrders.top(Integer.MAX_VALUE);
+
+        int count = 0;
+        for (BookLevel level : buys) {
+            count += level.orderCount;
+        }
+        for (BookLevel level : sells) {
+            count += level.orderCount;
+        }
+
+        long[] orderIds = new long[count];
+        boolean[] buySide = new boolean[count];
+        long[] priceTicks = new long[count];
+        int[] remaining = new int[count];
+
+        int i = 0;
+        for (int side = 0; side < 2; side++) {
+            for (BookLevel level : side == 0 ? buys : sells) {
+                for (RestingOrder order = level.head(); order != null; order = order.next) {
+                    orderIds[i] = order.orderId;
+                    buySide[i] = side == 0;
+                    priceTicks[i] = order.priceTicks;
+                    remaining[i] = order.remaining;
+                    i++;
+                }
+            }
+        }
+
+        return new BookSnapshot(symbol, tickSize.doubleValue(), tradeSequence, orderIds, buySide, priceTicks, remaining);
+    }
+
+    /**
+     * Vraca naloge iz snapshot-a u praznu knjigu, istim redosledom.
+     * Ako se tick u medjuvremenu promenio, cene se preracunavaju.
+     */
+    public void restore(BookSnapshot snapshot) {
+        TickSize snapshotTick = TickSize.of(snapshot.getTickSize());
+        boolean sameTick = snapshotTick.doubleValue() == tickSize.doubleValue();
+
+        for (int i = 0; i < snapshot.getOrderCount(); i++) {
+            RestingOrder entry = orderPool.acquire();
+            entry.orderId = snapshot.getOrderId(i);
+            entry.priceTicks = sameTick
+                    ? snapshot.getPriceTicks(i)
+                    : tickSize.nearestTicks(snapshotTick.toPrice(snapshot.getPriceTicks(i)));
+            entry.remaining = snapshot.getRemaining(i);
+            entry.buySide = snapshot.isBuy(i);
+
+            PriceLadder ladder = entry.buySide ? buyOrders : sellOrders;
+            BookLevel level = ladder.level(entry.priceTicks);
+            level.add(entry);
+            ladder.markNonEmpty(level);
+            index.put(entry.orderId, entry);
+        }
+        tradeSequence = snapshot.getTradeSequence();
+    }
+
+    /**
+     * Dodaje nalog direktno u knjigu, bez uparivanja (npr. dummy nalozi pri startu).
+     */
+    public void addResting(Order order) {
+        order.applyTickSize(tickSize);
+        rest(order.getType() == OrderType.BUY ? buyOrders : sellOrders, order, order.getAmount());
+    }
+
+    private void rest(PriceLadder ladder, Order order, int remaining) {
+        RestingOrder entry = orderPool.acquire();
+        entry.orderId = order.getId();
+        entry.priceTicks = order.getPriceTicks();
+        entry.remaining = remaining;
+        entry.buySide = ladder == buyOrders;
+
+        BookLevel level = ladder.level(entry.priceTicks);
+        level.add(entry);
+        ladder.markNonEmpty(level);
+        index.put(entry.orderId, entry);
+        levelListener.onLevelChange(ladder == buyOrders, level.priceTicks, level.totalQuantity, level.orderCount);
+    }
+
+    /**
+     * Upari nalog sa knjigom. Neispunjeni deo ostaje u knjizi samo za GTC limit nalog;
+     * IOC i market nalozi ga odbacuju, a FOK se izvrsava samo ako agregati nivoa pokazuju
+     * da je dovoljno kolicine – inace se odbija bez ijednog trejda i bez diranja knjige.
+     * @return neispunjena kolicina
+     */
+    public int match(Order incomingOrder) {
+        boolean buy = incomingOrder.getType() == OrderType.BUY;
+        boolean market = incomingOrder.getKind() == OrderKind.MARKET;
+        long limitTicks = !market ? incomingOrder.getPriceTicks() : buy ? Long.MAX_VALUE : 0;
+        int remaining = incomingOrder.getAmount();
+
+        if (incomingOrder.getTimeInForce() == TimeInForce.FOK
+                && (buy ? sellOrders : buyOrders).quantityUpTo(limitTicks, remaining) < remaining) {
+            return remaining;
+        }
+
+        if (buy) {
+            remaining = matchBuyOrder(incomingOrder.getId(), limitTicks, market, remaining);
+        } else {
+            remaining = matchSellOrder(incomingOrder.getId(), limitTicks, market, remaining);
+        }
+        if (remaining > 0 && incomingOrder.isResting()) {
+            rest(buy ? buyOrders : sellOrders, incomingOrder, remaining);
+        }
+        return remaining;
+    }
+
+    /**
+     * @param market cena market naloga u trejdu je cena naloga iz knjige
+     */
+    private int matchBuyOrder(long buyOrderId, long buyPriceTicks, boolean market, int remaining) {
+        while (remaining > 0) {
+            BookLevel bestSell = sellOrders.best();
+            if (bestSell == null || buyPriceTicks < bestSell.priceTicks) {
+                break;
+            }
+
+            RestingOrder sellOrder = bestSell.head();
+            int matchedAmount = Math.min(remaining, sellOrder.remaining);
+            double price = tickSize.toPrice(sellOrder.priceTicks);
+
+            matchListener.onMatch(symbol, ++tradeSequence, idGenerator.nextTradeId(), buyOrderId, sellOrder.orderId,
+                    market ? price : tickSize.toPrice(buyPriceTicks), price, price, matchedAmount);
+
+            remaining -= matchedAmount;
+            fillHead(sellOrders, bestSell, matchedAmount);
+        }
+        return remaining;
+    }
+
+    private int matchSellOrder(long sellOrderId, long sellPriceTicks, boolean market, int remaining) {
+        while (remaining > 0) {
+            BookLevel bestBuy = buyOrders.best();
+            if (bestBuy == null || bestBuy.priceTicks < sellPriceTicks) {
+                break;
+            }
+
+            RestingOrder buyOrder = bestBuy.head();
+            int matchedAmount = Math.min(remaining, buyOrder.remaining);
+            double price = tickSize.toPrice(buyOrder.priceTicks);
+
+            matchListener.onMatch(symbol, ++tradeSequence, idGenerator.nextTradeId(), buyOrder.orderId, sellOrderId,
+                    price, market ? price : tickSize.toPrice(sellPriceTicks), price, matchedAmount);
+
+            remaining -= matchedAmount;
+            fillHead(buyOrders, bestBuy, matchedAmount);
+        }
+        return remaining;
+    }
+
+    /**
+     * Otkazi nalog iz knjige – O(1): nalog se nadje preko indeksa i izvuce iz liste svog nivoa.
+     * @return otkazana preostala kolicina ili NOT_FOUND
+     */
+    public int cancel(long orderId) {
+        RestingOrder order = index.get(orderId);
+        if (order == null) {
+            return NOT_FOUND;
+        }
+        int remaining = order.remaining;
+        BookLevel level = order.level;
+        PriceLadder ladder = order.buySide ? buyOrders : sellOrders;
+
+        level.remove(order);
+        index.remove(orderId);
+        if (level.orderCount == 0) {
+            ladder.markEmpty(level);
+        }
+        levelListener.onLevelChange(order.buySide, level.priceTicks, level.totalQuantity, level.orderCount);
+        orderPool.release(order);
+        return remaining;
+    }
+
+    /**
+     * Smanji preostalu kolicinu naloga; nalog zadrzava mesto u redu.
+     * Povecanje nije dozvoljeno jer bi nalog morao na kraj reda.
+     * @param quantity nova preostala kolicina, 1..trenutna
+     * @return nova kolicina, NOT_FOUND ili REJECTED
+     */
+    public int amend(long orderId, int quantity) {
+        RestingOrder order = index.get(orderId);
+        if (order == null) {
+            return NOT_FOUND;
+        }
+        if (quantity < 1 || quantity > order.remaining) {
+            return REJECTED;
+        }
+        BookLevel level = order.level;
+        level.reduce(order, quantity);
+        levelListener.onLevelChange(order.buySide, level.priceTicks, level.totalQuantity, level.orderCount);
+        return quantity;
+    }
+
+    /**
+     * Broj nepraznih cenovnih nivoa na BUY, odnosno SELL strani
+     */
+    public int getBuyLevelCount() {
+        return buyOrders.levelCount();
+    }
+
+    public int getSellLevelCount() {
+        return sellOrders.levelCount();
+    }
+
+    /**
+     * Broj naloga u knjizi
+     */
+    public int getRestingOrderCount() {
+        return index.size();
+    }
+
+    /**
+     * Smanji prvi nalog na nivou na mestu – delimicno ispunjen nalog ostaje na celu reda.
+     */
+    private void fillHead(PriceLadder ladder, BookLevel level, int amount) {
+        RestingOrder filled = level.fillHead(amount);
+        if (filled != null) {
+            index.remove(filled.orderId);
+            orderPool.release(filled);
+        }
+        if (level.orderCount == 0) {
+            ladder.markEmpty(level);
+        }
+        levelListener.onLevelChange(ladder == buyOrders, level.priceTicks, level.totalQuantity, level.orderCount);
+    }
+}
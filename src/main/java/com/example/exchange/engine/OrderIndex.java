@@ -0,0 +1,101 @@
+package com.example.exchange.engine;
+
+/**
+ * Indeks naloga u knjizi po ID-ju: otvoreno adresiranje sa linearnim probanjem nad
+ * primitivnim kljucevima. Brisanje pomera naredne ulaze unazad (bez tombstone-a),
+ * pa lookup ostaje kratak i posle mnogo otkazivanja. Koristi ga samo engine nit.
+ */
+final class OrderIndex {
+
+    private static final long EMPTY = 0; // ID-jevi naloga pocinju od 1
+
+    private long[] keys;
+    private RestingOrder[] values;
+    private int mask;
+    private int size;
+
+    OrderIndex(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(16, initialCapacity - 1) << 1);
+        keys = new long[capacity];
+        values = new RestingOrder[capacity];
+        mask = capacity - 1;
+    }
+
+    RestingOrder get(long orderId) {
+        int slot = slot(orderId);
+        while (true) {
+            long key = keys[slot];
+            if (key == orderId) {
+                return values[slot];
+            }
+            if (key == EMPTY) {
+                return null;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    void put(long orderId, RestingOrder order) {
+        if (size * 2 >= keys.length) {
+            grow();
+        }
+        int slot = slot(orderId);
+        while (keys[slot] != EMPTY && keys[slot] != orderId) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            size++;
+        }
+        keys[slot] = orderId;
+        values[slot] = order;
+    }
+
+    void remove(long orderId) {
+        int slot = slot(orderId);
+        while (keys[slot] != orderId) {
+            if (keys[slot] == EMPTY) {
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // pomeri unazad ulaze koji bi inace ostali iza rupe
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        RestingOrder[] oldValues = values;
+        keys = new long[oldKeys.length << 1];
+        values = new RestingOrder[oldKeys.length << 1];
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private int slot(long orderId) {
+        long h = orderId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
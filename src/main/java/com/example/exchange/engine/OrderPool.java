@@ -0,0 +1,40 @@
+package com.example.exchange.engine;
+
+/**
+ * Pool ulaza za naloge u knjizi. Koristi ga samo jedna engine nit, pa nema sinhronizacije.
+ */
+public class OrderPool {
+
+    private static final int DEFAULT_MAX_SIZE = 65_536;
+
+    private final RestingOrder[] free;
+    private int size;
+
+    public OrderPool() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public OrderPool(int maxSize) {
+        this.free = new RestingOrder[maxSize];
+    }
+
+    RestingOrder acquire() {
+        if (size == 0) {
+            return new RestingOrder();
+        }
+        RestingOrder entry = free[--size];
+        free[size] = null;
+        return entry;
+    }
+
+    void release(RestingOrder entry) {
+        entry.clear();
+        if (size < free.length) {
+            free[size++] = entry;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,315 @@
+package com.example.exchange.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Jedna strana knjige (BUY ili SELL) kao niz nivoa indeksiran tick-om,
+ * uz bitset zauzetih nivoa za brzo nalazenje najbolje cene.
+ * Prozor raste po potrebi do MAX_SPAN tick-ova; cene van njega idu u sortiranu mapu.
+ * Menja ga samo engine nit; citaoci dobijaju priblizno tacan pogled.
+ */
+class PriceLadder {
+
+    static final int INITIAL_SPAN = 1024;
+    static final int MAX_SPAN = 1 << 20;
+
+    private static final long NONE = -1;
+
+    private final boolean descending;
+
+    private volatile Window window;
+
+    // najbolji zauzet tick unutar prozora (NONE ako nema)
+    private volatile long bestTick = NONE;
+
+    // broj nepraznih nivoa (u prozoru i van njega)
+    private volatile int levelCount;
+
+    // nivoi izvan prozora – retko se koristi, samo za ekstremne cene
+    private final ConcurrentSkipListMap<Long, BookLevel> overflow = new ConcurrentSkipListMap<>();
+
+    private static final class Window {
+        final long baseTick;
+        final BookLevel[] levels;
+        final long[] occupied;
+
+        Window(long baseTick, int span) {
+            this.baseTick = baseTick;
+            this.levels = new BookLevel[span];
+            this.occupied = new long[span >>> 6];
+        }
+
+        boolean covers(long tick) {
+            return tick >= baseTick && tick < baseTick + levels.length;
+        }
+    }
+
+    PriceLadder(boolean descending) {
+        this.descending = descending;
+    }
+
+    /**
+     * Nivo za dati tick; alocira se samo prvi put.
+     */
+    BookLevel level(long tick) {
+        if (ensureCovers(tick)) {
+            Window w = window;
+            int index = (int) (tick - w.baseTick);
+            BookLevel level = w.levels[index];
+            if (level == null) {
+                level = new BookLevel(tick);
+                w.levels[index] = level;
+            }
+            return level;
+        }
+        BookLevel level = overflow.get(tick);
+        if (level == null) {
+            level = new BookLevel(tick);
+            level.overflow = true;
+            overflow.put(tick, level);
+        }
+        return level;
+    }
+
+    /**
+     * Oznaci da nivo sada ima naloge.
+     */
+    void markNonEmpty(BookLevel level) {
+        if (level.orderCount == 1) {
+            levelCount++;
+        }
+        if (level.overflow) {
+            return;
+        }
+        Window w = window;
+        int index = (int) (level.priceTicks - w.baseTick);
+        w.occupied[index >>> 6] |= 1L << index;
+        if (bestTick == NONE || isBetter(level.priceTicks, bestTick)) {
+            bestTick = level.priceTicks;
+        }
+    }
+
+    /**
+     * Oznaci da je nivo ispraznjen; po potrebi pronadji sledecu najbolju cenu.
+     */
+    void markEmpty(BookLevel level) {
+        levelCount--;
+        if (level.overflow) {
+            overflow.remove(level.priceTicks, level);
+            return;
+        }
+        Window w = window;
+        int index = (int) (level.priceTicks - w.baseTick);
+        w.occupied[index >>> 6] &= ~(1L << index);
+        if (level.priceTicks == bestTick) {
+            int next = descending ? prevSetBit(w.occupied, index) : nextSetBit(w.occupied, index);
+            bestTick = next < 0 ? NONE : w.baseTick + next;
+        }
+    }
+
+    /**
+     * Najbolji neprazan nivo ili null.
+     */
+    BookLevel best() {
+        if (!overflow.isEmpty()) {
+            Map.Entry<Long, BookLevel> far = descending ? overflow.lastEntry() : overflow.firstEntry();
+            long best = bestTick;
+            if (far != null && (best == NONE || isBetter(far.getKey(), best))) {
+                return far.getValue();
+            }
+        }
+        long best = bestTick;
+        if (best == NONE) {
+            return null;
+        }
+        Window w = window;
+        return w.levels[(int) (best - w.baseTick)];
+    }
+
+    int levelCount() {
+        return levelCount;
+    }
+
+    boolean isEmpty() {
+        return bestTick == NONE && overflow.isEmpty();
+    }
+
+    /**
+     * Prvih n nepraznih nivoa od najbolje cene.
+     */
+    List<BookLevel> top(int n) {
+        List<BookLevel> result = new ArrayList<>(Math.min(n, 64));
+        Window w = window;
+        if (w == null) {
+            addOverflow(result, overflow, n);
+            return result;
+        }
+        long end = w.baseTick + w.levels.length;
+        NavigableMap<Long, BookLevel> better = descending ? overflow.tailMap(end, true) : overflow.headMap(w.baseTick, false);
+        NavigableMap<Long, BookLevel> worse = descending ? overflow.headMap(w.baseTick, false) : overflow.tailMap(end, true);
+
+        addOverflow(result, better, n);
+
+        long best = bestTick;
+        if (best != NONE && best >= w.baseTick && best < end) {
+            int index = (int) (best - w.baseTick);
+            while (index >= 0 && result.size() < n) {
+                BookLevel level = w.levels[index];
+                if (level != null && level.orderCount > 0) {
+                    result.add(level);
+                }
+                index = descending ? prevSetBit(w.occupied, index - 1) : nextSetBit(w.occupied, index + 1);
+            }
+        }
+
+        addOverflow(result, worse, n);
+        return result;
+    }
+
+    /**
+     * Kolicina na nivoima koji nisu losiji od limitTick, od najbolje cene; staje cim dostigne needed.
+     * Cita samo agregate nivoa i ne alocira (osim retkih nivoa van prozora).
+     */
+    long quantityUpTo(long limitTick, long needed) {
+        long total = 0;
+        Window w = window;
+        long best = bestTick;
+        if (w != null && best != NONE) {
+            int index = (int) (best - w.baseTick);
+            while (index >= 0 && total < needed) {
+                long tick = w.baseTick + index;
+                if (descending ? tick < limitTick : tick > limitTick) {
+                    break;
+                }
+                total += w.levels[index].totalQuantity;
+                index = descending ? prevSetBit(w.occupied, index - 1) : nextSetBit(w.occupied, index + 1);
+            }
+        }
+        if (total < needed && !overflow.isEmpty()) {
+            NavigableMap<Long, BookLevel> crossing = descending
+                    ? overflow.tailMap(limitTick, true)
+                    : overflow.headMap(limitTick, true);
+            for (BookLevel level : crossing.values()) {
+                total += level.totalQuantity;
+                if (total >= needed) {
+                    break;
+                }
+            }
+        }
+        return total;
+    }
+
+    private void addOverflow(List<BookLevel> result, NavigableMap<Long, BookLevel> levels, int n) {
+        Iterable<BookLevel> ordered = descending ? levels.descendingMap().values() : levels.values();
+        for (BookLevel level : ordered) {
+            if (result.size() >= n) {
+                return;
+            }
+            if (level.orderCount > 0) {
+                result.add(level);
+            }
+        }
+    }
+
+    private boolean isBetter(long tick, long than) {
+        return descending ? tick > than : tick < than;
+    }
+
+    /**
+     * Prosiri prozor tako da pokrije tick, ako to ne prelazi MAX_SPAN.
+     */
+    private boolean ensureCovers(long tick) {
+        Window w = window;
+        if (w == null) {
+            window = new Window(Math.max(0, alignDown(tick - INITIAL_SPAN / 2)), INITIAL_SPAN);
+            return true;
+        }
+        if (w.covers(tick)) {
+            return true;
+        }
+
+        long oldEnd = w.baseTick + w.levels.length;
+        long lo = Math.min(w.baseTick, alignDown(tick));
+        long hi = Math.max(oldEnd, alignDown(tick) + 64);
+        long needed = hi - lo;
+        if (needed > MAX_SPAN) {
+            return false;
+        }
+
+        // udvostruci prozor, a visak ostavi na strani na koju raste
+        int span = (int) Math.min(MAX_SPAN, Math.max(needed, 2L * w.levels.length));
+        long base = tick < w.baseTick ? Math.max(0, hi - span) : lo;
+        Window grown = new Window(base, span);
+
+        int offset = (int) (w.baseTick - base);
+        System.arraycopy(w.levels, 0, grown.levels, offset, w.levels.length);
+        System.arraycopy(w.occupied, 0, grown.occupied, offset >>> 6, w.occupied.length);
+
+        // nivoi iz mape koji su sada u prozoru prelaze u ladder
+        NavigableMap<Long, BookLevel> covered = overflow.subMap(base, true, base + span, false);
+        for (BookLevel level : covered.values()) {
+            int index = (int) (level.priceTicks - base);
+            level.overflow = false;
+            grown.levels[index] = level;
+            if (level.orderCount > 0) {
+                grown.occupied[index >>> 6] |= 1L << index;
+                if (bestTick == NONE || isBetter(level.priceTicks, bestTick)) {
+                    bestTick = level.priceTicks;
+                }
+            }
+        }
+        covered.clear();
+
+        window = grown;
+        return true;
+    }
+
+    private static long alignDown(long tick) {
+        return Math.max(0, tick) & ~63L;
+    }
+
+    static int nextSetBit(long[] words, int from) {
+        if (from < 0) {
+            from = 0;
+        }
+        int wordIndex = from >>> 6;
+        if (wordIndex >= words.length) {
+            return -1;
+        }
+        long word = words[wordIndex] & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+
+    static int prevSetBit(long[] words, int from) {
+        if (from < 0) {
+            return -1;
+        }
+        int wordIndex = from >>> 6;
+        if (wordIndex >= words.length) {
+            wordIndex = words.length - 1;
+            from = (words.length << 6) - 1;
+        }
+        long word = words[wordIndex] & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (word != 0) {
+                return (wordIndex << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (wordIndex-- == 0) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+    }
+}
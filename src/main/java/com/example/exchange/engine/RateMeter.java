@@ -0,0 +1,47 @@
+package com.example.exchange.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Brojac dogadjaja po sekundi u kratkom prozoru (prsten brojaca po sekundama).
+ * Rezultat je priblizan – dovoljan za metrike, bez zakljucavanja.
+ */
+public class RateMeter {
+
+    private static final int WINDOW_SECONDS = 10;
+
+    private final AtomicLongArray counts = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLongArray seconds = new AtomicLongArray(WINDOW_SECONDS);
+    private final AtomicLong total = new AtomicLong();
+
+    public void mark(long count) {
+        long second = System.currentTimeMillis() / 1000;
+        int slot = (int) (second % WINDOW_SECONDS);
+        long stamp = seconds.get(slot);
+        if (stamp != second && seconds.compareAndSet(slot, stamp, second)) {
+            counts.set(slot, 0);
+        }
+        counts.addAndGet(slot, count);
+        total.addAndGet(count);
+    }
+
+    /**
+     * Prosek po sekundi za poslednjih WINDOW_SECONDS - 1 zavrsenih sekundi
+     */
+    public double ratePerSecond() {
+        long now = System.currentTimeMillis() / 1000;
+        long sum = 0;
+        for (int i = 0; i < WINDOW_SECONDS; i++) {
+            long second = seconds.get(i);
+            if (second < now && second > now - WINDOW_SECONDS) {
+                sum += counts.get(i);
+            }
+        }
+        return sum / (double) (WINDOW_SECONDS - 1);
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+}
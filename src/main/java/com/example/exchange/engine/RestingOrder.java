@@ -0,0 +1,29 @@
+package com.example.exchange.engine;
+
+/**
+ * Nalog koji stoji u knjizi. Ulazi se uzimaju iz OrderPool-a i menjaju na mestu
+ * (preostala kolicina se smanjuje), pa delimicno punjenje ne alocira nista
+ * i nalog zadrzava svoje mesto u redu.
+ */
+final class RestingOrder {
+
+    long orderId;
+    long priceTicks;
+    int remaining;
+    boolean buySide;
+
+    // nivo na kom nalog stoji i susedi u njegovoj FIFO listi – otkazivanje je O(1)
+    BookLevel level;
+    RestingOrder prev;
+    RestingOrder next;
+
+    void clear() {
+        orderId = 0;
+        priceTicks = 0;
+        remaining = 0;
+        buySide = false;
+        level = null;
+        prev = null;
+        next = null;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.exchange.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Lock-free ring buffer sa vise producera i jednim consumerom.
+ * Svi slotovi se alociraju unapred; producer zauzme sekvencu (CAS),
+ * popuni slot i objavi ga, a jedini consumer ih cita redom.
+ */
+public class RingBuffer<E> {
+
+    private final Object[] entries;
+    private final int mask;
+    private final int capacity;
+
+    // poslednja zauzeta sekvenca (producer strana); posle close() uvecana za CLOSED
+    private final AtomicLong claimSequence = new AtomicLong(-1);
+
+    // sekvence nikad ne stignu do ovoga, pa je pomak ujedno i oznaka zatvorenog buffer-a
+    private static final long CLOSED = 1L << 62;
+
+    // za svaki slot: sekvenca koja je u njemu objavljena
+    private final AtomicLongArray published;
+
+    // poslednja obradjena sekvenca (consumer strana)
+    private final AtomicLong consumerSequence = new AtomicLong(-1);
+
+    public RingBuffer(int capacity, Supplier<E> factory) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.entries = new Object[capacity];
+        this.published = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            entries[i] = factory.get();
+            published.set(i, -1);
+        }
+    }
+
+    /**
+     * Pokusaj da zauzmes n uzastopnih slotova bez cekanja.
+     * @return poslednja zauzeta sekvenca ili -1 ako nema mesta (ili je buffer zatvoren)
+     */
+    public long tryClaim(int n) {
+        if (n < 1 || n > capacity) {
+            throw new IllegalArgumentException("Invalid claim size: " + n);
+        }
+        while (true) {
+            long current = claimSequence.get();
+            if (current >= CLOSED - 1) {
+                return -1;
+            }
+            long next = current + n;
+            if (next - capacity > consumerSequence.get()) {
+                return -1;
+            }
+            if (claimSequence.compareAndSet(current, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Zauzmi jedan slot, cekajuci po zadatoj strategiji dok se ne oslobodi mesto.
+     */
+    public long claim(WaitStrategy waitStrategy) {
+        long sequence;
+        while ((sequence = tryClaim(1)) < 0) {
+            waitStrategy.idle();
+        }
+        return sequence;
+    }
+
+    /**
+     * Zatvori buffer za producere. Zatvaranje je CAS na istoj sekvenci kao i zauzimanje,
+     * pa posle njega nijedno zauzimanje ne uspeva, a sva ranija su ukljucena u vracenu sekvencu.
+     * @return poslednja zauzeta sekvenca; consumer je obradjuje do nje
+     */
+    public long close() {
+        while (true) {
+            long current = claimSequence.get();
+            if (current >= CLOSED - 1) {
+                return current - CLOSED;
+            }
+            if (claimSequence.compareAndSet(current, current + CLOSED)) {
+                return current;
+            }
+        }
+    }
+
+    public boolean isClosed() {
+        return claimSequence.get() >= CLOSED - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E get(long sequence) {
+        return (E) entries[(int) (sequence & mask)];
+    }
+
+    public void publish(long sequence) {
+        published.lazySet((int) (sequence & mask), sequence);
+    }
+
+    /**
+     * Obradi do maxBatch objavljenih slotova redom. Sme da je poziva samo jedna nit.
+     * @return broj obradjenih slotova
+     */
+    public int drain(Consumer<E> handler, int maxBatch) {
+        int available = available(maxBatch);
+        long next = nextSequence();
+        for (int i = 0; i < available; i++) {
+            handler.accept(get(next + i));
+        }
+        release(available);
+        return available;
+    }
+
+    /**
+     * Sekvenca prvog neobradjenog slota (consumer strana).
+     */
+    public long nextSequence() {
+        return consumerSequence.get() + 1;
+    }
+
+    /**
+     * Broj uzastopnih objavljenih slotova od nextSequence(), najvise maxBatch.
+     * Slotovi ostaju zauzeti dok ih consumer ne oslobodi sa release().
+     */
+    public int available(int maxBatch) {
+        long next = nextSequence();
+        int count = 0;
+        while (count < maxBatch && published.get((int) ((next + count) & mask)) == next + count) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Oslobodi count obradjenih slotova za producere.
+     */
+    public void release(int count) {
+        if (count > 0) {
+            consumerSequence.lazySet(consumerSequence.get() + count);
+        }
+    }
+
+    /**
+     * Broj zauzetih a jos neobradjenih slotova (priblizno).
+     */
+    public long size() {
+        long claimed = claimSequence.get();
+        if (claimed >= CLOSED - 1) {
+            claimed -= CLOSED;
+        }
+        return claimed - consumerSequence.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
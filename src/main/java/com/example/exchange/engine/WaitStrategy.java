@@ -0,0 +1,38 @@
+package com.example.exchange.engine;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Strategija cekanja kada ring buffer nema novih komandi (consumer)
+ * ili nema slobodnih mesta (producer).
+ */
+public enum WaitStrategy {
+
+    /** Najmanja latencija, zauzima celo jezgro */
+    BUSY_SPIN {
+        @Override
+        public void idle() {
+            Thread.onSpinWait();
+        }
+    },
+
+    /** Prepusta jezgro drugim nitima, i dalje brzo reaguje */
+    YIELD {
+        @Override
+        public void idle() {
+            Thread.yield();
+        }
+    },
+
+    /** Parkira nit na kratko – najmanje trosi CPU */
+    PARK {
+        @Override
+        public void idle() {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    };
+
+    private static final long PARK_NANOS = 50_000;
+
+    public abstract void idle();
+}
@@ -0,0 +1,199 @@
+package com.example.exchange.events;
+
+import com.example.exchange.engine.BookView;
+import com.example.exchange.engine.LevelListener;
+import com.example.exchange.engine.OrderBook;
+import com.example.exchange.model.BookDelta;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.PriceLevel;
+import com.example.exchange.model.TickSize;
+import com.example.exchange.model.TopOrdersResponse;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Inkrementalni feed jedne knjige: engine upisuje promenjene nivoe, a flush ih periodicno
+ * objavljuje kao jednu deltu sa rednim brojem. Vise promena istog nivoa u intervalu se spaja u jednu,
+ * pa cena feed-a raste sa brojem promenjenih nivoa, a ne sa velicinom knjige.
+ * Novi pretplatnik dobija snapshot iz pogleda koji je objavio engine, nikad iz same knjige.
+ * Feed postoji samo dok ima pretplatnika i ne pravi knjigu: prikljucuje se postojecoj (attach),
+ * ili knjizi koju engine napravi kasnije, za prvi nalog tog simbola.
+ */
+public class BookFeed implements LevelListener {
+
+    private final String symbol;
+    private final TickSize tickSize;
+
+    // null dok knjiga simbola ne postoji; upisuje se pre nego sto knjiga dobije ovaj feed kao listener
+    private volatile OrderBook book;
+
+    // broj prijava; menja se samo unutar compute-a mape knjiga (retain/release)
+    private int references;
+    private final Sinks.Many<BookDelta> deltas = Sinks.many().multicast().directBestEffort();
+
+    // pretplatnici i prijave u toku; raste pre citanja pogleda, pa engine od tada belezi svaku promenu
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    // stiti pending, waiting i sequence; engine ga uzima samo dok neko prati knjigu
+    private final Object lock = new Object();
+    private final LevelDeltaMap pending = new LevelDeltaMap(64);
+    private final List<Waiting> waiting = new ArrayList<>();
+    private long sequence;
+
+    public BookFeed(String symbol, TickSize tickSize) {
+        this.symbol = symbol;
+        this.tickSize = tickSize;
+    }
+
+    /**
+     * Prikljuci feed knjizi simbola; posle ovoga knjiga javlja promene nivoa ovom feed-u.
+     */
+    public void attach(OrderBook book) {
+        this.book = book;
+        book.setLevelListener(this);
+    }
+
+    /**
+     * Odvoji feed od knjige (poslednji pretplatnik je otisao).
+     */
+    public void detach() {
+        OrderBook current = book;
+        if (current != null) {
+            current.setLevelListener(null);
+        }
+    }
+
+    public void retain() {
+        references++;
+    }
+
+    /**
+     * @return true kad je otisla poslednja prijava i feed treba ukloniti
+     */
+    public boolean release() {
+        return --references == 0;
+    }
+
+    @Override
+    public void onLevelChange(boolean buySide, long priceTicks, long totalQuantity, int orderCount) {
+        if (subscribers.get() == 0) {
+            return;
+        }
+        synchronized (lock) {
+            pending.put(buySide, priceTicks, totalQuantity, orderCount);
+        }
+    }
+
+    /**
+     * Objavi nivoe promenjene od prethodnog flush-a kao jednu deltu.
+     */
+    public void flush() {
+        synchronized (lock) {
+            flushLocked();
+        }
+    }
+
+    private void flushLocked() {
+        if (pending.size() == 0) {
+            return;
+        }
+        if (deltas.currentSubscriberCount() > 0) {
+            // vece promene idu kao vise uzastopnih delti; nivoi su apsolutni, pa je podela bezbedna
+            for (int from = 0; from < pending.size(); from += BookDelta.MAX_LEVELS) {
+                int to = Math.min(pending.size(), from + BookDelta.MAX_LEVELS);
+                List<PriceLevel> levels = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    levels.add(new PriceLevel(tickSize.toPrice(pending.priceTicks(i)), pending.total(i),
+                            pending.count(i), pending.isBuy(i) ? OrderType.BUY : OrderType.SELL));
+                }
+                deltas.tryEmitNext(new BookDelta(symbol, ++sequence, false, levels));
+            }
+        }
+        pending.clear();
+    }
+
+    /**
+     * Snapshot prvih depth nivoa iz pogleda, pa sve delte posle njega; depth <= dubina pogleda.
+     * Ako knjiga nema izmena koje pogled ne sadrzi, snapshot se uzima odmah; inace prijava ceka
+     * kraj batch-a i pogled koji engine tada objavi (onViewPublished). Promene posle prijave
+     * engine belezi u pending pod istim lock-om, pa nijedna ne promakne izmedju snapshot-a i delti.
+     * Ako knjiga jos ne postoji, snapshot je prazan, a njene promene od nastanka idu kao delte.
+     * @param depth
+     * @return
+     */
+    public Flux<BookDelta> subscribe(int depth) {
+        return Flux.create(sink -> {
+            Disposable.Composite resources = Disposables.composite(subscribers::decrementAndGet);
+            subscribers.incrementAndGet();
+            sink.onDispose(resources);
+            synchronized (lock) {
+                OrderBook current = book;
+                if (current != null && current.isViewStale()) {
+                    waiting.add(new Waiting(sink, depth, resources));
+                } else {
+                    flushLocked(); // ranije promene idu postojecim pretplatnicima, novi ih vidi u pogledu
+                    seed(sink, depth, resources, current != null ? current.getView() : null);
+                }
+            }
+        });
+    }
+
+    /**
+     * Engine nit, odmah posle objave pogleda: prijave koje su cekale dobijaju snapshot iz njega.
+     * Knjiga je tada tacno jednaka pogledu.
+     */
+    @Override
+    public void onViewPublished(BookView view) {
+        if (subscribers.get() == 0) {
+            return;
+        }
+        synchronized (lock) {
+            if (waiting.isEmpty()) {
+                return;
+            }
+            flushLocked();
+            for (Waiting w : waiting) {
+                seed(w.sink, w.depth, w.resources, view);
+            }
+            waiting.clear();
+        }
+    }
+
+    private void seed(FluxSink<BookDelta> sink, int depth, Disposable.Composite resources, BookView view) {
+        List<PriceLevel> levels = new ArrayList<>();
+        if (view != null) {
+            TopOrdersResponse top = view.toTopOrders(depth);
+            levels.addAll(top.getBuyOrders());
+            levels.addAll(top.getSellOrders());
+        }
+        sink.next(new BookDelta(symbol, sequence, true, levels));
+        resources.add(deltas.asFlux().subscribe(sink::next, sink::error, sink::complete));
+    }
+
+    public void close() {
+        deltas.tryEmitComplete();
+        synchronized (lock) {
+            waiting.forEach(w -> w.sink.complete());
+            waiting.clear();
+        }
+    }
+
+    private static final class Waiting {
+        final FluxSink<BookDelta> sink;
+        final int depth;
+        final Disposable.Composite resources;
+
+        Waiting(FluxSink<BookDelta> sink, int depth, Disposable.Composite resources) {
+            this.sink = sink;
+            this.depth = depth;
+            this.resources = resources;
+        }
+    }
+}
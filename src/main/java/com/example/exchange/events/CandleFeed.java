@@ -0,0 +1,116 @@
+package com.example.exchange.events;
+
+import com.example.exchange.history.CandleSeries;
+import com.example.exchange.model.Candle;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Feed barova jedne serije: flush periodicno salje barove promenjene od prethodnog flush-a,
+ * pa klijent dobija najvise jednu poruku po baru i intervalu flush-a bez obzira na broj trejdova.
+ * Poruka nosi ceo bar; klijent menja bar sa istim startTime-om. Kad pocne novi bar, salje se
+ * i konacna verzija prethodnog. Serija se trazi tek kad simbol dobije prvi trejd, pa se feed moze
+ * otvoriti i za simbol bez trejdova.
+ */
+public class CandleFeed {
+
+    private static final int MAX_PER_FLUSH = 16;
+
+    private final Supplier<CandleSeries> lookup;
+    private final Sinks.Many<Candle> updates = Sinks.many().multicast().directBestEffort();
+
+    // stiti stanje poslednjeg flush-a, da prijava ne bi promasila izmenu
+    private final Object lock = new Object();
+    private CandleSeries series;
+    private long sentVersion;
+    private long sentStart = Long.MIN_VALUE;
+
+    // broj prijava; menja se samo unutar compute-a mape feed-ova (retain/release)
+    private int references;
+
+    /**
+     * @param lookup vraca seriju ili null dok simbol nema trejdova
+     */
+    public CandleFeed(Supplier<CandleSeries> lookup) {
+        this.lookup = lookup;
+        CandleSeries bars = resolve();
+        if (bars != null) {
+            Candle latest = bars.latest();
+            this.sentStart = latest != null ? latest.getStartTime() : Long.MIN_VALUE;
+            this.sentVersion = bars.getVersion();
+        }
+    }
+
+    private CandleSeries resolve() {
+        if (series == null) {
+            series = lookup.get();
+        }
+        return series;
+    }
+
+    public void retain() {
+        references++;
+    }
+
+    /**
+     * @return true kad je otisla poslednja prijava i feed treba ukloniti
+     */
+    public boolean release() {
+        return --references == 0;
+    }
+
+    public void flush() {
+        synchronized (lock) {
+            flushLocked();
+        }
+    }
+
+    private void flushLocked() {
+        CandleSeries series = resolve();
+        if (series == null) {
+            return;
+        }
+        long version = series.getVersion();
+        if (version == sentVersion) {
+            return;
+        }
+        sentVersion = version;
+        List<Candle> changed = series.range(sentStart, Long.MAX_VALUE, MAX_PER_FLUSH);
+        if (changed.isEmpty()) {
+            return;
+        }
+        sentStart = changed.get(changed.size() - 1).getStartTime();
+        if (updates.currentSubscriberCount() > 0) {
+            for (Candle candle : changed) {
+                updates.tryEmitNext(candle);
+            }
+        }
+    }
+
+    /**
+     * Trenutni bar (ako postoji), pa izmene. Kao kod BookFeed-a, prijava ide pod lock-om flush-a.
+     */
+    public Flux<Candle> subscribe() {
+        return Flux.create(sink -> {
+            synchronized (lock) {
+                flushLocked(); // ranije izmene idu postojecim pretplatnicima, novi ih vidi u trenutnom baru
+
+                CandleSeries bars = resolve();
+                Candle latest = bars != null ? bars.latest() : null;
+                if (latest != null) {
+                    sink.next(latest);
+                }
+                Disposable subscription = updates.asFlux().subscribe(sink::next, sink::error, sink::complete);
+                sink.onDispose(subscription);
+            }
+        });
+    }
+
+    public void close() {
+        updates.tryEmitComplete();
+    }
+}
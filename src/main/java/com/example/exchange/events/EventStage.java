@@ -0,0 +1,117 @@
+package com.example.exchange.events;
+
+import com.example.exchange.engine.RingBuffer;
+import com.example.exchange.engine.WaitStrategy;
+import com.example.exchange.model.StageStats;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Jedna faza obrade trejdova: sopstveni ograniceni ring buffer i sopstvena nit.
+ * Lossless faza ceka kad je buffer pun (engine usporava), ostale odbacuju dogadjaj i broje ga.
+ */
+public class EventStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventStage.class);
+    private static final int MAX_BATCH = 256;
+
+    private final String name;
+    private final boolean lossless;
+    private final RingBuffer<TradeEvent> ringBuffer;
+    private final TradeEventHandler handler;
+    private final WaitStrategy waitStrategy;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public EventStage(String name, int capacity, boolean lossless, WaitStrategy waitStrategy, TradeEventHandler handler) {
+        this.name = name;
+        this.lossless = lossless;
+        this.ringBuffer = new RingBuffer<>(capacity, TradeEvent::new);
+        this.waitStrategy = waitStrategy;
+        this.handler = handler;
+    }
+
+    /**
+     * Zauzmi slot za dogadjaj; -1 ako je buffer pun i faza odbacuje.
+     */
+    long claim() {
+        long sequence = lossless ? ringBuffer.claim(waitStrategy) : ringBuffer.tryClaim(1);
+        if (sequence < 0) {
+            dropped.incrementAndGet();
+        }
+        return sequence;
+    }
+
+    TradeEvent get(long sequence) {
+        return ringBuffer.get(sequence);
+    }
+
+    void publish(long sequence) {
+        ringBuffer.publish(sequence);
+        published.incrementAndGet();
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "TradeStage-" + name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() throws InterruptedException {
+        running = false;
+        if (thread != null) {
+            thread.join(5_000);
+        }
+    }
+
+    private void run() {
+        while (running || ringBuffer.size() > 0) {
+            int processed = ringBuffer.drain(this::handle, MAX_BATCH);
+            if (processed == 0) {
+                if (!running) {
+                    break;
+                }
+                waitStrategy.idle();
+            }
+        }
+    }
+
+    private void handle(TradeEvent event) {
+        try {
+            handler.onTrade(event);
+        } catch (Exception e) {
+            logger.error("Faza {} – greska pri obradi trejda {}", name, event.tradeId, e);
+        } finally {
+            event.clear();
+        }
+    }
+
+    /**
+     * Sacekaj da faza obradi sve do sada objavljene dogadjaje.
+     * @return true ako je stigla na vreme
+     */
+    public boolean awaitDrained(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (ringBuffer.size() > 0) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    public StageStats getStats() {
+        return new StageStats(name, lossless, published.get(), dropped.get(), ringBuffer.size(), ringBuffer.getCapacity());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.exchange.events;
+
+import java.util.Arrays;
+
+/**
+ * Poslednje stanje promenjenih nivoa, kljuc je (tick, strana). Otvoreno adresiranje nad
+ * primitivnim nizovima, pa upis sa engine niti ne alocira dok se mapa ne prosiri.
+ */
+class LevelDeltaMap {
+
+    private static final long EMPTY = -1;
+
+    private long[] keys;
+    private long[] totals;
+    private int[] counts;
+    // redosled upisa, da bi se prazne pozicije brzo ocistile
+    private int[] used;
+    private int size;
+
+    LevelDeltaMap(int initialCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(16, initialCapacity - 1) << 1);
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        totals = new long[capacity];
+        counts = new int[capacity];
+        used = new int[capacity];
+        size = 0;
+    }
+
+    void put(boolean buySide, long priceTicks, long total, int count) {
+        if (size * 2 >= keys.length) {
+            grow();
+        }
+        long key = priceTicks << 1 | (buySide ? 1 : 0);
+        int mask = keys.length - 1;
+        int slot = (int) (mix(key) & mask);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            used[size++] = slot;
+        }
+        totals[slot] = total;
+        counts[slot] = count;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldTotals = totals;
+        int[] oldCounts = counts;
+        int[] oldUsed = used;
+        int oldSize = size;
+        allocate(keys.length << 1);
+        for (int i = 0; i < oldSize; i++) {
+            int slot = oldUsed[i];
+            long key = oldKeys[slot];
+            put((key & 1) == 1, key >>> 1, oldTotals[slot], oldCounts[slot]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isBuy(int index) {
+        return (keys[used[index]] & 1) == 1;
+    }
+
+    long priceTicks(int index) {
+        return keys[used[index]] >>> 1;
+    }
+
+    long total(int index) {
+        return totals[used[index]];
+    }
+
+    int count(int index) {
+        return counts[used[index]];
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            keys[used[i]] = EMPTY;
+        }
+        size = 0;
+    }
+
+    private static long mix(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return key ^ (key >>> 32);
+    }
+}
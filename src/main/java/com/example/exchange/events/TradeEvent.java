@@ -0,0 +1,71 @@
+package com.example.exchange.events;
+
+/**
+ * Kompaktan, mutabilan trejd dogadjaj. Slotovi se alociraju unapred u ring buffer-u
+ * svake faze, pa objavljivanje ne alocira.
+ */
+public class TradeEvent {
+
+    String symbol;
+    long sequence;
+    long tradeId;
+    long buyOrderId;
+    long sellOrderId;
+    double buyPrice;
+    double sellPrice;
+    // cena izvrsenja (cena naloga iz knjige)
+    double price;
+    int amount;
+    long timestamp;
+
+    // trejd nastao ponovnim uparivanjem iz journal-a pri startu
+    boolean replay;
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTradeId() {
+        return tradeId;
+    }
+
+    public long getBuyOrderId() {
+        return buyOrderId;
+    }
+
+    public long getSellOrderId() {
+        return sellOrderId;
+    }
+
+    public double getBuyPrice() {
+        return buyPrice;
+    }
+
+    public double getSellPrice() {
+        return sellPrice;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    public int getAmount() {
+        return amount;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public boolean isReplay() {
+        return replay;
+    }
+
+    void clear() {
+        symbol = null;
+    }
+}
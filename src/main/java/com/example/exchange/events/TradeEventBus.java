@@ -0,0 +1,74 @@
+package com.example.exchange.events;
+
+import com.example.exchange.model.StageStats;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-process bus za trejdove: engine objavljuje jedan kompaktan dogadjaj, a svaka faza
+ * (istorija, log, WebSocket, ...) dobija sopstvenu kopiju u svom buffer-u i obradjuje je na svojoj niti.
+ */
+public class TradeEventBus {
+
+    private final List<EventStage> stages = new ArrayList<>();
+
+    public TradeEventBus addStage(EventStage stage) {
+        stages.add(stage);
+        return this;
+    }
+
+    /**
+     * Objavi trejd svim fazama; poziva se sa engine niti i ne alocira.
+     */
+    public void publish(String symbol, long sequence, long tradeId, long buyOrderId, long sellOrderId,
+                        double buyPrice, double sellPrice, double price, int amount, long timestamp, boolean replay) {
+        for (int i = 0; i < stages.size(); i++) {
+            EventStage stage = stages.get(i);
+            long slot = stage.claim();
+            if (slot < 0) {
+                continue;
+            }
+            TradeEvent event = stage.get(slot);
+            event.symbol = symbol;
+            event.sequence = sequence;
+            event.tradeId = tradeId;
+            event.buyOrderId = buyOrderId;
+            event.sellOrderId = sellOrderId;
+            event.buyPrice = buyPrice;
+            event.sellPrice = sellPrice;
+            event.price = price;
+            event.amount = amount;
+            event.timestamp = timestamp;
+            event.replay = replay;
+            stage.publish(slot);
+        }
+    }
+
+    public void start() {
+        stages.forEach(EventStage::start);
+    }
+
+    public void stop() throws InterruptedException {
+        for (EventStage stage : stages) {
+            stage.stop();
+        }
+    }
+
+    public boolean awaitDrained(long timeoutMillis) throws InterruptedException {
+        for (EventStage stage : stages) {
+            if (!stage.awaitDrained(timeoutMillis)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<StageStats> getStats() {
+        List<StageStats> stats = new ArrayList<>(stages.size());
+        for (EventStage stage : stages) {
+            stats.add(stage.getStats());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.exchange.events;
+
+/**
+ * Obrada trejd dogadjaja u jednoj fazi; poziva se uvek sa iste niti te faze.
+ * Dogadjaj vazi samo tokom poziva – polja treba kopirati ako su potrebna kasnije.
+ */
+@FunctionalInterface
+public interface TradeEventHandler {
+
+    void onTrade(TradeEvent event);
+}
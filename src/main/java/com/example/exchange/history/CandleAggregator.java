@@ -0,0 +1,86 @@
+package com.example.exchange.history;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * OHLCV barovi za sve simbole i sve podesene intervale (npr. 1s, 1m, 5m, 1h).
+ * Svaki trejd azurira po jedan bar svakog intervala – O(broj intervala), bez alokacije
+ * posle prvog trejda simbola.
+ */
+public class CandleAggregator {
+
+    // naziv intervala ("1m") -> trajanje u ms, redom kako su zadati
+    private final Map<String, Long> intervals;
+    private final int capacity;
+
+    // simbol -> serije po intervalima, istim redom kao intervals
+    private final Map<String, CandleSeries[]> series = new ConcurrentHashMap<>();
+
+    /**
+     * @param intervals nazivi intervala i njihova trajanja
+     * @param capacity broj barova koji se cuva po simbolu i intervalu
+     */
+    public CandleAggregator(Map<String, Duration> intervals, int capacity) {
+        if (intervals.isEmpty() || capacity < 1) {
+            throw new IllegalArgumentException("At least one interval and a positive capacity are required");
+        }
+        Map<String, Long> millis = new LinkedHashMap<>();
+        intervals.forEach((name, duration) -> {
+            if (duration.toMillis() < 1) {
+                throw new IllegalArgumentException("Candle interval must be at least 1ms: " + name);
+            }
+            millis.put(name, duration.toMillis());
+        });
+        this.intervals = millis;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Poziva se sa niti faze candles, za svaki trejd.
+     */
+    public void onTrade(String symbol, double price, int amount, long timestamp) {
+        for (CandleSeries bars : seriesFor(symbol)) {
+            bars.update(price, amount, timestamp);
+        }
+    }
+
+    /**
+     * Serija za simbol i interval ili null ako simbol jos nema trejdova. Serije pravi samo onTrade,
+     * pa upiti za nepostojece simbole ne zauzimaju memoriju.
+     * @throws IllegalArgumentException ako interval nije podesen
+     */
+    public CandleSeries series(String symbol, String interval) {
+        int index = 0;
+        for (String name : intervals.keySet()) {
+            if (name.equals(interval)) {
+                CandleSeries[] bars = series.get(symbol);
+                return bars != null ? bars[index] : null;
+            }
+            index++;
+        }
+        throw new IllegalArgumentException("Unknown candle interval " + interval + ", expected one of " + intervals.keySet());
+    }
+
+    private CandleSeries[] seriesFor(String symbol) {
+        CandleSeries[] bars = series.get(symbol);
+        if (bars == null) {
+            bars = series.computeIfAbsent(symbol, s -> {
+                CandleSeries[] created = new CandleSeries[intervals.size()];
+                int index = 0;
+                for (Map.Entry<String, Long> interval : intervals.entrySet()) {
+                    created[index++] = new CandleSeries(s, interval.getKey(), interval.getValue(), capacity);
+                }
+                return created;
+            });
+        }
+        return bars;
+    }
+
+    public Set<String> getIntervals() {
+        return intervals.keySet();
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.exchange.history;
+
+import com.example.exchange.model.Candle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OHLCV barovi jednog simbola za jedan interval, u prstenu primitivnih nizova fiksne velicine.
+ * Cuvaju se samo intervali u kojima je bilo trejdova, rastucim redom; kad se prsten napuni,
+ * najstariji bar se prepisuje. Trejd azurira bar u O(1) i ne alocira.
+ * Pise jedna nit (faza candles), citaoci dobijaju konzistentan bar preko istog monitora.
+ */
+public class CandleSeries {
+
+    private final String symbol;
+    private final String interval;
+    private final long intervalMillis;
+    private final int capacity;
+
+    private final long[] startTime;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final long[] volume;
+    private final int[] trades;
+
+    // ukupan broj barova ikad otvorenih; poslednji je na (count - 1) % capacity
+    private long count;
+
+    // raste pri svakoj promeni – feed po njemu zna da li ima sta da posalje
+    private volatile long version;
+
+    public CandleSeries(String symbol, String interval, long intervalMillis, int capacity) {
+        this.symbol = symbol;
+        this.interval = interval;
+        this.intervalMillis = intervalMillis;
+        this.capacity = capacity;
+        this.startTime = new long[capacity];
+        this.open = new double[capacity];
+        this.high = new double[capacity];
+        this.low = new double[capacity];
+        this.close = new double[capacity];
+        this.volume = new long[capacity];
+        this.trades = new int[capacity];
+    }
+
+    /**
+     * Dodaj trejd u bar njegovog intervala. Trejd sa vremenom pre poslednjeg bara (npr. sat je
+     * vracen unazad) ulazi u poslednji bar, da bi barovi ostali sortirani.
+     */
+    public synchronized void update(double price, int amount, long timestamp) {
+        long start = timestamp - Math.floorMod(timestamp, intervalMillis);
+        int slot = (int) ((count - 1) % capacity);
+        if (count == 0 || start > startTime[slot]) {
+            slot = (int) (count % capacity);
+            startTime[slot] = start;
+            open[slot] = price;
+            high[slot] = price;
+            low[slot] = price;
+            close[slot] = price;
+            volume[slot] = amount;
+            trades[slot] = 1;
+            count++;
+        } else {
+            high[slot] = Math.max(high[slot], price);
+            low[slot] = Math.min(low[slot], price);
+            close[slot] = price;
+            volume[slot] += amount;
+            trades[slot]++;
+        }
+        version++;
+    }
+
+    /**
+     * Barovi sa pocetkom u [from, to], najvise limit poslednjih, rastucim redom – O(log n + limit).
+     */
+    public synchronized List<Candle> range(long from, long to, int limit) {
+        long oldest = Math.max(0, count - capacity);
+        long end = to == Long.MAX_VALUE ? count : firstStartingAt(oldest, count, to + 1);
+        long begin = Math.max(firstStartingAt(oldest, end, from), end - limit);
+
+        List<Candle> result = new ArrayList<>((int) (end - begin));
+        for (long i = begin; i < end; i++) {
+            result.add(toCandle((int) (i % capacity)));
+        }
+        return result;
+    }
+
+    /**
+     * Binarna pretraga: prvi bar u [lo, hi) koji pocinje u time ili kasnije (hi ako ga nema).
+     */
+    private long firstStartingAt(long lo, long hi, long time) {
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (startTime[(int) (mid % capacity)] < time) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Poslednji (otvoreni) bar ili null ako jos nije bilo trejdova.
+     */
+    public synchronized Candle latest() {
+        return count == 0 ? null : toCandle((int) ((count - 1) % capacity));
+    }
+
+    private Candle toCandle(int slot) {
+        return new Candle(symbol, interval, startTime[slot], open[slot], high[slot], low[slot], close[slot],
+                volume[slot], trades[slot]);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public String getInterval() {
+        return interval;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.exchange.history;
+
+import com.example.exchange.model.MatchRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Arhiva starijih trejdova na disku, u fajlovima (chunk-ovima) od CHUNK_RECORDS zapisa fiksne duzine,
+ * pa se svaki trejd cita direktno po indeksu.
+ */
+class TradeArchive implements Closeable {
+
+    static final int SYMBOL_BYTES = 16;
+    static final int RECORD_SIZE = 7 * Long.BYTES + Integer.BYTES + SYMBOL_BYTES;
+    static final int CHUNK_RECORDS = 1 << 16;
+
+    private static final int STAGING_RECORDS = 256;
+
+    private final Path directory;
+    private final ByteBuffer staging = ByteBuffer.allocateDirect(STAGING_RECORDS * RECORD_SIZE);
+
+    private FileChannel chunk;
+    private long chunkIndex = -1;
+
+    // broj zapisa predatih arhivi (ukljucujuci one jos u staging bufferu)
+    private long size;
+
+    TradeArchive(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        // arhiva vazi za jedan rad aplikacije – istorija se posle restarta obnavlja iz journal-a
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(p -> p.getFileName().toString().startsWith("trades-")).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    synchronized void append(long sequence, long tradeId, String symbol, long buyOrderId, long sellOrderId,
+                             double buyPrice, double sellPrice, int amount, long timestamp) throws IOException {
+        long firstStaged = size - staging.position() / RECORD_SIZE;
+        // staging sme da sadrzi samo zapise iz istog chunk-a
+        if (!staging.hasRemaining() || firstStaged / CHUNK_RECORDS != size / CHUNK_RECORDS) {
+            flush();
+        }
+        staging.putLong(sequence);
+        staging.putLong(tradeId);
+        staging.putLong(buyOrderId);
+        staging.putLong(sellOrderId);
+        staging.putDouble(buyPrice);
+        staging.putDouble(sellPrice);
+        staging.putInt(amount);
+        staging.putLong(timestamp);
+        for (int i = 0; i < SYMBOL_BYTES; i++) {
+            staging.put(i < symbol.length() ? (byte) symbol.charAt(i) : 0);
+        }
+        size++;
+    }
+
+    /**
+     * Upisi staging buffer u chunk kome pripada prvi zapis u njemu.
+     */
+    synchronized void flush() throws IOException {
+        if (staging.position() == 0) {
+            return;
+        }
+        long firstIndex = size - staging.position() / RECORD_SIZE;
+        openChunk(firstIndex / CHUNK_RECORDS);
+        staging.flip();
+        long offset = (firstIndex % CHUNK_RECORDS) * RECORD_SIZE;
+        while (staging.hasRemaining()) {
+            offset += chunk.write(staging, offset);
+        }
+        staging.clear();
+    }
+
+    /**
+     * Procitaj count zapisa od indeksa from (ne preko size()). Monitor se drzi samo za flush i
+     * citanje size-a; zapisi ispod te granice su vec u chunk fajlovima i vise se ne menjaju, pa se
+     * citaju bez lock-a i ne zadrzavaju append (fazu history).
+     */
+    void read(long from, int count, List<MatchRecord> out) throws IOException {
+        long size;
+        synchronized (this) {
+            flush();
+            size = this.size;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE * Math.min(count, STAGING_RECORDS));
+        byte[] symbol = new byte[SYMBOL_BYTES];
+
+        long index = from;
+        long end = Math.min(from + count, size);
+        while (index < end) {
+            long chunkNumber = index / CHUNK_RECORDS;
+            int inChunk = (int) Math.min(end - index, CHUNK_RECORDS - index % CHUNK_RECORDS);
+            int batch = Math.min(inChunk, buffer.capacity() / RECORD_SIZE);
+
+            try (FileChannel channel = FileChannel.open(chunkPath(chunkNumber), StandardOpenOption.READ)) {
+                buffer.clear().limit(batch * RECORD_SIZE);
+                long offset = (index % CHUNK_RECORDS) * RECORD_SIZE;
+                while (buffer.hasRemaining()) {
+                    int read = channel.read(buffer, offset);
+                    if (read < 0) {
+                        throw new IOException("Neocekivan kraj arhive " + chunkPath(chunkNumber));
+                    }
+                    offset += read;
+                }
+            }
+            buffer.flip();
+
+            for (int i = 0; i < batch; i++) {
+                long sequence = buffer.getLong();
+                long tradeId = buffer.getLong();
+                long buyOrderId = buffer.getLong();
+                long sellOrderId = buffer.getLong();
+                double buyPrice = buffer.getDouble();
+                double sellPrice = buffer.getDouble();
+                int amount = buffer.getInt();
+                long timestamp = buffer.getLong();
+                buffer.get(symbol);
+                int length = 0;
+                while (length < SYMBOL_BYTES && symbol[length] != 0) {
+                    length++;
+                }
+                out.add(new MatchRecord(sequence, tradeId, new String(symbol, 0, length, StandardCharsets.US_ASCII),
+                        buyOrderId, sellOrderId, buyPrice, sellPrice, amount, timestamp));
+            }
+            index += batch;
+        }
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    private void openChunk(long number) throws IOException {
+        if (number == chunkIndex) {
+            return;
+        }
+        if (chunk != null) {
+            chunk.close();
+        }
+        chunk = FileChannel.open(chunkPath(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        chunkIndex = number;
+    }
+
+    private Path chunkPath(long number) {
+        return directory.resolve(String.format("trades-%06d.dat", number));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        if (chunk != null) {
+            chunk.close();
+        }
+    }
+}
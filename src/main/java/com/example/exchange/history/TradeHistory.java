@@ -0,0 +1,171 @@
+package com.example.exchange.history;
+
+import com.example.exchange.model.MatchRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Istorija trejdova: poslednjih capacity trejdova u ring buffer-u od primitivnih nizova,
+ * a stariji se prebacuju u arhivu na disku. Memorija ne raste sa brojem trejdova u toku dana.
+ * Svaki trejd ima indeks (0, 1, 2, ...) po redosledu upisa.
+ */
+public class TradeHistory implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(TradeHistory.class);
+
+    private final int capacity;
+
+    private final long[] sequences;
+    private final long[] tradeIds;
+    private final String[] symbols; // deljene reference na simbol knjige – bez alokacije po trejdu
+    private final long[] buyOrderIds;
+    private final long[] sellOrderIds;
+    private final double[] buyPrices;
+    private final double[] sellPrices;
+    private final int[] amounts;
+    private final long[] timestamps;
+
+    // ukupan broj upisanih trejdova; ring drzi indekse [total - size, total)
+    private long total;
+    private int size;
+
+    private Path archiveDirectory;
+    private TradeArchive archive;
+
+    public TradeHistory(int capacity) {
+        this.capacity = capacity;
+        this.sequences = new long[capacity];
+        this.tradeIds = new long[capacity];
+        this.symbols = new String[capacity];
+        this.buyOrderIds = new long[capacity];
+        this.sellOrderIds = new long[capacity];
+        this.buyPrices = new double[capacity];
+        this.sellPrices = new double[capacity];
+        this.amounts = new int[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    /**
+     * Direktorijum arhive; ako nije postavljen, koristi se privremeni direktorijum.
+     */
+    public void setArchiveDirectory(Path archiveDirectory) {
+        this.archiveDirectory = archiveDirectory;
+    }
+
+    public synchronized void append(long sequence, long tradeId, String symbol, long buyOrderId, long sellOrderId,
+                                    double buyPrice, double sellPrice, int amount, long timestamp) {
+        int slot = (int) (total % capacity);
+        if (size == capacity) {
+            evict(slot);
+        } else {
+            size++;
+        }
+
+        sequences[slot] = sequence;
+        tradeIds[slot] = tradeId;
+        symbols[slot] = symbol;
+        buyOrderIds[slot] = buyOrderId;
+        sellOrderIds[slot] = sellOrderId;
+        buyPrices[slot] = buyPrice;
+        sellPrices[slot] = sellPrice;
+        amounts[slot] = amount;
+        timestamps[slot] = timestamp;
+        total++;
+    }
+
+    /**
+     * Najstariji trejd u ring-u prelazi u arhivu.
+     */
+    private void evict(int slot) {
+        try {
+            archive().append(sequences[slot], tradeIds[slot], symbols[slot], buyOrderIds[slot], sellOrderIds[slot],
+                    buyPrices[slot], sellPrices[slot], amounts[slot], timestamps[slot]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Arhiviranje trejda nije uspelo", e);
+        }
+    }
+
+    private TradeArchive archive() throws IOException {
+        if (archive == null) {
+            Path directory = archiveDirectory != null ? archiveDirectory : Files.createTempDirectory("exchange-history");
+            archive = new TradeArchive(directory);
+            logger.info("Arhiva trejdova: {}", directory);
+        }
+        return archive;
+    }
+
+    /**
+     * Najvise maxCount trejdova od indeksa fromIndex, starijih prvo.
+     * Deo iz ring-a se kopira pod lock-om, deo iz arhive se cita posle.
+     */
+    public List<MatchRecord> read(long fromIndex, int maxCount) {
+        List<MatchRecord> fromRing;
+        long archivedEnd;
+        long from = Math.max(0, fromIndex);
+        long end;
+
+        synchronized (this) {
+            end = Math.min(total, from + maxCount);
+            archivedEnd = total - size;
+            fromRing = copyFromRing(Math.max(from, archivedEnd), end);
+        }
+
+        if (from >= archivedEnd) {
+            return fromRing;
+        }
+
+        List<MatchRecord> result = new ArrayList<>((int) (end - from));
+        try {
+            archive.read(from, (int) (Math.min(end, archivedEnd) - from), result);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Citanje arhive trejdova nije uspelo", e);
+        }
+        result.addAll(fromRing);
+        return result;
+    }
+
+    /**
+     * Poslednjih limit trejdova – O(limit).
+     */
+    public List<MatchRecord> latest(int limit) {
+        long end;
+        synchronized (this) {
+            end = total;
+        }
+        long from = Math.max(0, end - limit);
+        return read(from, (int) (end - from));
+    }
+
+    private List<MatchRecord> copyFromRing(long from, long end) {
+        List<MatchRecord> result = new ArrayList<>((int) Math.max(0, end - from));
+        for (long index = from; index < end; index++) {
+            int slot = (int) (index % capacity);
+            result.add(new MatchRecord(sequences[slot], tradeIds[slot], symbols[slot], buyOrderIds[slot], sellOrderIds[slot],
+                    buyPrices[slot], sellPrices[slot], amounts[slot], timestamps[slot]));
+        }
+        return result;
+    }
+
+    public synchronized long size() {
+        return total;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (archive != null) {
+            archive.close();
+        }
+    }
+}
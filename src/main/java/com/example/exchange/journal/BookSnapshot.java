@@ -0,0 +1,58 @@
+package com.example.exchange.journal;
+
+/**
+ * Stanje jedne knjige u snapshot-u: nalozi u redosledu cena-vreme, u primitivnim nizovima.
+ */
+public class BookSnapshot {
+
+    private final String symbol;
+    private final double tickSize;
+    private final long tradeSequence;
+    private final long[] orderIds;
+    private final boolean[] buySide;
+    private final long[] priceTicks;
+    private final int[] remaining;
+
+    public BookSnapshot(String symbol, double tickSize, long tradeSequence,
+                        long[] orderIds, boolean[] buySide, long[] priceTicks, int[] remaining) {
+        this.symbol = symbol;
+        this.tickSize = tickSize;
+        this.tradeSequence = tradeSequence;
+        this.orderIds = orderIds;
+        this.buySide = buySide;
+        this.priceTicks = priceTicks;
+        this.remaining = remaining;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public double getTickSize() {
+        return tickSize;
+    }
+
+    public long getTradeSequence() {
+        return tradeSequence;
+    }
+
+    public int getOrderCount() {
+        return orderIds.length;
+    }
+
+    public long getOrderId(int index) {
+        return orderIds[index];
+    }
+
+    public boolean isBuy(int index) {
+        return buySide[index];
+    }
+
+    public long getPriceTicks(int index) {
+        return priceTicks[index];
+    }
+
+    public int getRemaining(int index) {
+        return remaining[index];
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.exchange.journal;
+
+/**
+ * Kada se upisani batch spusta na disk.
+ */
+public enum FlushMode {
+
+    /** fsync posle svakog batch-a, pre potvrde naloga */
+    SYNC,
+
+    /** pozadinska nit periodicno radi fsync; potvrda ne ceka disk */
+    ASYNC
+}
@@ -0,0 +1,18 @@
+package com.example.exchange.journal;
+
+import com.example.exchange.model.OrderKind;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.TimeInForce;
+
+/**
+ * Prima zapise iz journal-a pri replay-u, redom kojim su upisani.
+ */
+public interface JournalListener {
+
+    void onNewOrder(long orderId, String symbol, OrderType type, double price, int amount,
+                    TimeInForce timeInForce, OrderKind kind);
+
+    void onCancel(long orderId, String symbol);
+
+    void onAmend(long orderId, String symbol, int quantity);
+}
@@ -0,0 +1,377 @@
+package com.example.exchange.journal;
+
+import com.example.exchange.model.Order;
+import com.example.exchange.model.OrderKind;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.TimeInForce;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only binarni journal naloga preko memory-mapped fajla.
+ * Fajl se mapira u regionima (podrazumevano REGION_SIZE bajtova); zapis nikad ne prelazi granicu
+ * regiona, a batch moze da je predje i tada se i potvrdjuje i ponistava u oba regiona.
+ *
+ * Format zapisa: [int duzina][byte tip][payload], duzina 0 oznacava kraj, -1 prelazak na sledeci region.
+ * Bajt strane u NEW_ORDER zapisu nosi i flag-ove: bit 0 strana, bitovi 1-2 time in force, bit 3 market
+ * (stari zapisi sa 0/1 citaju se kao GTC limit nalozi).
+ * Upis ide u batch-evima: beginBatch(), write...(), commitBatch(), endBatch().
+ */
+public class OrderJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderJournal.class);
+
+    static final int REGION_SIZE = 64 * 1024 * 1024;
+
+    static final byte NEW_ORDER = 1;
+    static final byte CANCEL = 2;
+    static final byte AMEND = 3;
+
+    private static final int SELL_FLAG = 1;
+    private static final int TIF_SHIFT = 1;
+    private static final int MARKET_FLAG = 1 << 3;
+    private static final TimeInForce[] TIME_IN_FORCE = TimeInForce.values();
+
+    private static final int END = 0;
+    private static final int PAD = -1;
+    private static final int MAX_RECORD_SIZE = 64;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final FlushMode flushMode;
+    private final int regionSize;
+    private final ReentrantLock lock = new ReentrantLock();
+    private ScheduledExecutorService flusher;
+
+    private MappedByteBuffer region;
+    private long regionStart;
+
+    // kraj poslednjeg potvrdjenog batch-a; citaoci (snapshot) ne idu dalje od njega
+    private volatile long committedPosition;
+
+    // region koji flusher nit spusta na disk (ASYNC)
+    private volatile MappedByteBuffer flushTarget;
+
+    // stanje trenutnog batch-a (pod lock-om)
+    private MappedByteBuffer batchRegion;
+    private int batchStart;
+    private long batchRegionStart;
+    private boolean committed;
+
+    public OrderJournal(Path path, FlushMode flushMode, long asyncFlushMillis) throws IOException {
+        this(path, flushMode, asyncFlushMillis, REGION_SIZE);
+    }
+
+    /**
+     * @param regionSize velicina jednog mapiranja; isti fajl mora uvek da se otvara sa istom velicinom
+     */
+    public OrderJournal(Path path, FlushMode flushMode, long asyncFlushMillis, int regionSize) throws IOException {
+        this.path = path;
+        this.flushMode = flushMode;
+        this.regionSize = regionSize;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        mapRegion(0);
+
+        if (flushMode == FlushMode.ASYNC) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "JournalFlusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, asyncFlushMillis, asyncFlushMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Procitaj sve zapise od date pozicije i postavi poziciju upisa na kraj journal-a.
+     * @return broj procitanih zapisa
+     */
+    public long replay(long fromPosition, JournalListener listener) throws IOException {
+        lock.lock();
+        try {
+            long[] end = new long[1];
+            long records = read(channel, regionSize, fromPosition, Long.MAX_VALUE, listener, end);
+
+            mapRegion(end[0] - end[0] % regionSize);
+            region.position((int) (end[0] - regionStart));
+            committedPosition = end[0];
+
+            logger.info("Journal {} procitan od pozicije {}: {} zapisa", path, fromPosition, records);
+            return records;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Citaj zapise od fromPosition do limit (ili do kraja) kroz zasebno read-only mapiranje,
+     * nezavisno od upisa. Koristi se i za replay i za snapshot.
+     * @param end na izlazu, pozicija iza poslednjeg procitanog zapisa
+     * @return broj procitanih zapisa
+     */
+    static long read(FileChannel channel, int regionSize, long fromPosition, long limit, JournalListener listener,
+                     long[] end) throws IOException {
+        long regionStart = fromPosition - fromPosition % regionSize;
+        MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionSize);
+        region.position((int) (fromPosition - regionStart));
+        long records = 0;
+        StringBuilder symbol = new StringBuilder(16);
+
+        while (regionStart + region.position() < limit) {
+            if (region.remaining() < Integer.BYTES) {
+                regionStart += regionSize;
+                region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionSize);
+                continue;
+            }
+            int position = region.position();
+            int length = region.getInt();
+            if (length == END) {
+                region.position(position);
+                break;
+            }
+            if (length == PAD) {
+                regionStart += regionSize;
+                region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, regionSize);
+                continue;
+            }
+
+            byte type = region.get();
+            if (type == NEW_ORDER) {
+                long orderId = region.getLong();
+                int flags = region.get();
+                OrderType side = (flags & SELL_FLAG) == 0 ? OrderType.BUY : OrderType.SELL;
+                TimeInForce timeInForce = TIME_IN_FORCE[(flags >> TIF_SHIFT) & 3];
+                OrderKind kind = (flags & MARKET_FLAG) == 0 ? OrderKind.LIMIT : OrderKind.MARKET;
+                double price = region.getDouble();
+                int amount = region.getInt();
+                listener.onNewOrder(orderId, readSymbol(region, symbol), side, price, amount, timeInForce, kind);
+            } else if (type == CANCEL) {
+                long orderId = region.getLong();
+                listener.onCancel(orderId, readSymbol(region, symbol));
+            } else if (type == AMEND) {
+                long orderId = region.getLong();
+                int quantity = region.getInt();
+                listener.onAmend(orderId, readSymbol(region, symbol), quantity);
+            } else {
+                logger.warn("Nepoznat tip zapisa {} na poziciji {} – preskacem", type, regionStart + position);
+            }
+            region.position(position + length);
+            records++;
+        }
+
+        end[0] = regionStart + region.position();
+        return records;
+    }
+
+    private static String readSymbol(MappedByteBuffer region, StringBuilder symbol) {
+        symbol.setLength(0);
+        int symbolLength = region.get();
+        for (int i = 0; i < symbolLength; i++) {
+            symbol.append((char) region.get());
+        }
+        return symbol.toString();
+    }
+
+    /**
+     * Procitaj potvrdjene zapise u [fromPosition, getCommittedPosition()) bez blokiranja upisa.
+     * @return pozicija iza poslednjeg procitanog zapisa
+     */
+    public long readCommitted(long fromPosition, JournalListener listener) throws IOException {
+        long[] end = new long[1];
+        read(channel, regionSize, fromPosition, committedPosition, listener, end);
+        return end[0];
+    }
+
+    /**
+     * Pozicija do koje su svi batch-evi potvrdjeni (commitBatch).
+     */
+    public long getCommittedPosition() {
+        return committedPosition;
+    }
+
+    public void beginBatch() {
+        lock.lock();
+        batchRegion = region;
+        batchStart = region.position();
+        batchRegionStart = regionStart;
+        committed = false;
+    }
+
+    public void writeNewOrder(Order order) throws IOException {
+        String symbol = order.getSymbol();
+        int length = Integer.BYTES + 1 + Long.BYTES + 1 + Double.BYTES + Integer.BYTES + 1 + symbol.length();
+        int start = reserve(length);
+
+        region.put(NEW_ORDER);
+        region.putLong(order.getId());
+        region.put((byte) ((order.getType() == OrderType.BUY ? 0 : SELL_FLAG)
+                | order.getTimeInForce().ordinal() << TIF_SHIFT
+                | (order.getKind() == OrderKind.MARKET ? MARKET_FLAG : 0)));
+        region.putDouble(order.getPrice());
+        region.putInt(order.getAmount());
+        writeSymbol(symbol);
+        region.putInt(start, length); // duzina na kraju – zapis je vidljiv tek kad je ceo upisan
+    }
+
+    /**
+     * Otkazivanje naloga; simbol je potreban da bi replay nasao knjigu.
+     */
+    public void writeCancel(long orderId, String symbol) throws IOException {
+        int length = Integer.BYTES + 1 + Long.BYTES + 1 + symbol.length();
+        int start = reserve(length);
+
+        region.put(CANCEL);
+        region.putLong(orderId);
+        writeSymbol(symbol);
+        region.putInt(start, length);
+    }
+
+    /**
+     * Smanjenje preostale kolicine naloga na quantity.
+     */
+    public void writeAmend(long orderId, String symbol, int quantity) throws IOException {
+        int length = Integer.BYTES + 1 + Long.BYTES + Integer.BYTES + 1 + symbol.length();
+        int start = reserve(length);
+
+        region.put(AMEND);
+        region.putLong(orderId);
+        region.putInt(quantity);
+        writeSymbol(symbol);
+        region.putInt(start, length);
+    }
+
+    private void writeSymbol(String symbol) {
+        region.put((byte) symbol.length());
+        for (int i = 0; i < symbol.length(); i++) {
+            region.put((byte) symbol.charAt(i));
+        }
+    }
+
+    /**
+     * Zavrsi batch; u SYNC modu radi fsync pre povratka. Ako je batch presao u novi region, deo u
+     * starom regionu je spusten na disk pri prelasku (mapRegion), pa ovde ostaje samo novi deo.
+     */
+    public void commitBatch() {
+        if (flushMode == FlushMode.SYNC) {
+            int from = batchRegionStart == regionStart ? batchStart : 0;
+            region.force(from, region.position() - from);
+        }
+        committed = true;
+        committedPosition = regionStart + region.position();
+    }
+
+    /**
+     * Oslobodi lock; ako batch nije potvrdjen, ponisti njegove zapise. Ako je batch presao u novi
+     * region, brise se i njegov pocetak tamo, kao i PAD oznaka, pa se upis vraca u stari region.
+     */
+    public void endBatch() {
+        try {
+            if (!committed) {
+                boolean crossed = batchRegionStart != regionStart;
+                if (crossed) {
+                    clear(region, 0, region.position());
+                    region = batchRegion;
+                    regionStart = batchRegionStart;
+                    flushTarget = region;
+                }
+                // iza poslednjeg zapisa moze biti PAD oznaka
+                int end = Math.min(region.position() + Integer.BYTES, region.limit());
+                clear(region, batchStart, end);
+                if (crossed) {
+                    // stari region je vec spusten na disk sa zapisima ovog batch-a
+                    region.force(batchStart, end - batchStart);
+                }
+                region.position(batchStart);
+            }
+        } finally {
+            batchRegion = null;
+            lock.unlock();
+        }
+    }
+
+    private static void clear(MappedByteBuffer region, int from, int to) {
+        for (int i = from; i < to; i++) {
+            region.put(i, (byte) 0);
+        }
+    }
+
+    /**
+     * Rezervisi mesto za zapis; ako ne staje u region, predji na sledeci.
+     * @return pozicija pocetka zapisa (tu se na kraju upisuje duzina)
+     */
+    private int reserve(int length) throws IOException {
+        if (length > MAX_RECORD_SIZE) {
+            throw new IllegalArgumentException("Journal record too large: " + length);
+        }
+        if (region.remaining() < length + Integer.BYTES) {
+            if (region.remaining() >= Integer.BYTES) {
+                region.putInt(region.position(), PAD);
+            }
+            mapRegion(regionStart + regionSize);
+        }
+        int start = region.position();
+        region.position(start + Integer.BYTES);
+        return start;
+    }
+
+    /**
+     * Predji na region od start; stari region (sa PAD oznakom) se prvo spusta na disk, jer ga
+     * posle toga ni flusher ni commitBatch vise ne vide.
+     */
+    private void mapRegion(long start) throws IOException {
+        if (region != null) {
+            region.force();
+        }
+        region = channel.map(FileChannel.MapMode.READ_WRITE, start, regionSize);
+        regionStart = start;
+        flushTarget = region;
+    }
+
+    private void flushQuietly() {
+        try {
+            MappedByteBuffer current = flushTarget;
+            if (current != null) {
+                current.force();
+            }
+        } catch (Exception e) {
+            logger.error("Greska pri flush-u journal-a", e);
+        }
+    }
+
+    /**
+     * Trenutna velicina upisanog dela journal-a u bajtovima.
+     */
+    public long getPosition() {
+        return regionStart + region.position();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        lock.lock();
+        try {
+            region.force();
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
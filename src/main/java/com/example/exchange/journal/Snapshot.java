@@ -0,0 +1,38 @@
+package com.example.exchange.journal;
+
+import java.util.List;
+
+/**
+ * Snapshot svih knjiga zajedno sa pozicijom u journal-u do koje je stanje primenjeno
+ * i poslednjim ID-jevima naloga i trejdova svakog shard-a.
+ */
+public class Snapshot {
+
+    private final long journalPosition;
+    private final long[] lastOrderIds;
+    private final long[] lastTradeIds;
+    private final List<BookSnapshot> books;
+
+    public Snapshot(long journalPosition, long[] lastOrderIds, long[] lastTradeIds, List<BookSnapshot> books) {
+        this.journalPosition = journalPosition;
+        this.lastOrderIds = lastOrderIds;
+        this.lastTradeIds = lastTradeIds;
+        this.books = books;
+    }
+
+    public long getJournalPosition() {
+        return journalPosition;
+    }
+
+    public long[] getLastOrderIds() {
+        return lastOrderIds;
+    }
+
+    public long[] getLastTradeIds() {
+        return lastTradeIds;
+    }
+
+    public List<BookSnapshot> getBooks() {
+        return books;
+    }
+}
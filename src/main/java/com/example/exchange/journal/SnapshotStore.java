@@ -0,0 +1,144 @@
+package com.example.exchange.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Cuva snapshot-e knjiga u kompaktnom binarnom formatu (snapshot-&lt;pozicija&gt;.dat).
+ * Upis ide u privremeni fajl koji se atomski preimenuje, pa se nedovrsen snapshot nikad ne cita.
+ */
+public class SnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(SnapshotStore.class);
+
+    private static final int MAGIC = 0x534E4150; // "SNAP"
+    // v2: poslednji ID-jevi po shard-u; v1 (jedan globalni par ID-jeva) se i dalje cita
+    private static final int VERSION = 2;
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".dat";
+
+    private final Path directory;
+    private final int retained;
+
+    public SnapshotStore(Path directory, int retained) throws IOException {
+        this.directory = directory;
+        this.retained = retained;
+        Files.createDirectories(directory);
+    }
+
+    public Path write(Snapshot snapshot) throws IOException {
+        Path target = directory.resolve(String.format("%s%020d%s", PREFIX, snapshot.getJournalPosition(), SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(snapshot.getJournalPosition());
+            out.writeInt(snapshot.getLastOrderIds().length);
+            for (long id : snapshot.getLastOrderIds()) {
+                out.writeLong(id);
+            }
+            out.writeInt(snapshot.getLastTradeIds().length);
+            for (long id : snapshot.getLastTradeIds()) {
+                out.writeLong(id);
+            }
+            out.writeInt(snapshot.getBooks().size());
+
+            for (BookSnapshot book : snapshot.getBooks()) {
+                out.writeUTF(book.getSymbol());
+                out.writeDouble(book.getTickSize());
+                out.writeLong(book.getTradeSequence());
+                out.writeInt(book.getOrderCount());
+                for (int i = 0; i < book.getOrderCount(); i++) {
+                    out.writeLong(book.getOrderId(i));
+                    out.writeBoolean(book.isBuy(i));
+                    out.writeLong(book.getPriceTicks(i));
+                    out.writeInt(book.getRemaining(i));
+                }
+            }
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        deleteOld();
+        return target;
+    }
+
+    /**
+     * Najnoviji snapshot ili null ako ga nema.
+     */
+    public Snapshot readLatest() throws IOException {
+        List<Path> files = list();
+        if (files.isEmpty()) {
+            return null;
+        }
+        Path latest = files.get(files.size() - 1);
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(latest), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Neispravan snapshot: " + latest);
+            }
+            int version = in.readInt();
+            if (version != 1 && version != VERSION) {
+                throw new IOException("Neispravan snapshot: " + latest);
+            }
+            long journalPosition = in.readLong();
+            long[] lastOrderIds = version == 1 ? new long[] { in.readLong() } : readIds(in);
+            long[] lastTradeIds = version == 1 ? new long[] { in.readLong() } : readIds(in);
+            int bookCount = in.readInt();
+
+            List<BookSnapshot> books = new ArrayList<>(bookCount);
+            for (int b = 0; b < bookCount; b++) {
+                String symbol = in.readUTF();
+                double tickSize = in.readDouble();
+                long tradeSequence = in.readLong();
+                int count = in.readInt();
+                long[] orderIds = new long[count];
+                boolean[] buySide = new boolean[count];
+                long[] priceTicks = new long[count];
+                int[] remaining = new int[count];
+                for (int i = 0; i < count; i++) {
+                    orderIds[i] = in.readLong();
+                    buySide[i] = in.readBoolean();
+                    priceTicks[i] = in.readLong();
+                    remaining[i] = in.readInt();
+                }
+                books.add(new BookSnapshot(symbol, tickSize, tradeSequence, orderIds, buySide, priceTicks, remaining));
+            }
+            return new Snapshot(journalPosition, lastOrderIds, lastTradeIds, books);
+        }
+    }
+
+    private static long[] readIds(DataInputStream in) throws IOException {
+        long[] ids = new long[in.readInt()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = in.readLong();
+        }
+        return ids;
+    }
+
+    private List<Path> list() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(p -> p.getFileName().toString().startsWith(PREFIX) && p.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private void deleteOld() throws IOException {
+        List<Path> files = list();
+        for (int i = 0; i < files.size() - retained; i++) {
+            try {
+                Files.deleteIfExists(files.get(i));
+            } catch (IOException e) {
+                logger.warn("Ne mogu da obrisem stari snapshot {}", files.get(i), e);
+            }
+        }
+    }
+}
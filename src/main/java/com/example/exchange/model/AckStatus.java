@@ -0,0 +1,10 @@
+package com.example.exchange.model;
+
+public enum AckStatus {
+    ACCEPTED,
+    INVALID,
+    // engine je preopterecen, nalog nije prosledjen
+    BUSY,
+    // nalog nije upisan u journal
+    FAILED
+}
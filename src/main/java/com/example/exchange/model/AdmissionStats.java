@@ -0,0 +1,56 @@
+package com.example.exchange.model;
+
+public class AdmissionStats {
+    private final long queueDepth;
+    private final long maxQueueDepth;
+    private final int highWatermark;
+    private final int lowWatermark;
+    private final int busyEngines;
+    private final long rejected;
+    private final double rejectedPerSecond;
+
+    public AdmissionStats(long queueDepth, long maxQueueDepth, int highWatermark, int lowWatermark,
+                          int busyEngines, long rejected, double rejectedPerSecond) {
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+        this.highWatermark = highWatermark;
+        this.lowWatermark = lowWatermark;
+        this.busyEngines = busyEngines;
+        this.rejected = rejected;
+        this.rejectedPerSecond = rejectedPerSecond;
+    }
+
+    /**
+     * Ukupan broj naloga koji cekaju u svim engine-ima
+     */
+    public long getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Najduzi red jednog engine-a – watermark-ovi vaze po engine-u
+     */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public int getHighWatermark() {
+        return highWatermark;
+    }
+
+    public int getLowWatermark() {
+        return lowWatermark;
+    }
+
+    public int getBusyEngines() {
+        return busyEngines;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public double getRejectedPerSecond() {
+        return rejectedPerSecond;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.exchange.model;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Izmena naloga u knjizi: nova preostala kolicina, najvise koliko je trenutno ostalo.
+ */
+public class AmendRequest {
+
+    @NotBlank(message = "Symbol must be provided")
+    @Pattern(regexp = OrderRequest.SYMBOL_REGEX, message = "Symbol must be 1-16 letters, digits, '.', '_' or '-'")
+    private String symbol;
+
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private int quantity;
+
+    public AmendRequest() {
+    }
+
+    public AmendRequest(String symbol, int quantity) {
+        this.symbol = symbol;
+        this.quantity = quantity;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(int quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.exchange.model;
+
+public class BestBidOffer {
+    private final String symbol;
+    private final long version;
+    private final Double bidPrice;
+    private final long bidAmount;
+    private final Double askPrice;
+    private final long askAmount;
+
+    public BestBidOffer(String symbol, long version, Double bidPrice, long bidAmount, Double askPrice, long askAmount) {
+        this.symbol = symbol;
+        this.version = version;
+        this.bidPrice = bidPrice;
+        this.bidAmount = bidAmount;
+        this.askPrice = askPrice;
+        this.askAmount = askAmount;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Verzija pogleda na knjigu iz kog je procitano (0 ako knjiga jos ne postoji)
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Najbolja BUY cena ili null ako je strana prazna
+     */
+    public Double getBidPrice() {
+        return bidPrice;
+    }
+
+    /**
+     * Ukupna kolicina na najboljem BUY nivou
+     */
+    public long getBidAmount() {
+        return bidAmount;
+    }
+
+    public Double getAskPrice() {
+        return askPrice;
+    }
+
+    public long getAskAmount() {
+        return askAmount;
+    }
+}
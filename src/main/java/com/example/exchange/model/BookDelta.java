@@ -0,0 +1,40 @@
+package com.example.exchange.model;
+
+import java.util.List;
+
+/**
+ * Promena knjige za WebSocket feed. Snapshot nosi prvih depth nivoa, delta samo nivoe
+ * koji su se promenili od prethodne sekvence (totalAmount 0 = nivo je uklonjen).
+ */
+public class BookDelta {
+    // najvise nivoa u jednoj poruci (u16 broj nivoa u binarnom protokolu)
+    public static final int MAX_LEVELS = 65_535;
+
+    private final String symbol;
+    private final long sequence;
+    private final boolean snapshot;
+    private final List<PriceLevel> levels;
+
+    public BookDelta(String symbol, long sequence, boolean snapshot, List<PriceLevel> levels) {
+        this.symbol = symbol;
+        this.sequence = sequence;
+        this.snapshot = snapshot;
+        this.levels = levels;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public boolean isSnapshot() {
+        return snapshot;
+    }
+
+    public List<PriceLevel> getLevels() {
+        return levels;
+    }
+}
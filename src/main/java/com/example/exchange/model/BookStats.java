@@ -0,0 +1,34 @@
+package com.example.exchange.model;
+
+public class BookStats {
+    private final String symbol;
+    private final int buyLevels;
+    private final int sellLevels;
+    private final int restingOrders;
+
+    public BookStats(String symbol, int buyLevels, int sellLevels, int restingOrders) {
+        this.symbol = symbol;
+        this.buyLevels = buyLevels;
+        this.sellLevels = sellLevels;
+        this.restingOrders = restingOrders;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Broj nepraznih cenovnih nivoa na BUY strani
+     */
+    public int getBuyLevels() {
+        return buyLevels;
+    }
+
+    public int getSellLevels() {
+        return sellLevels;
+    }
+
+    public int getRestingOrders() {
+        return restingOrders;
+    }
+}
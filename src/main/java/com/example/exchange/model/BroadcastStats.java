@@ -0,0 +1,34 @@
+package com.example.exchange.model;
+
+public class BroadcastStats {
+    private final int sessions;
+    private final long published;
+    private final long dropped;
+    private final long disconnected;
+
+    public BroadcastStats(int sessions, long published, long dropped, long disconnected) {
+        this.sessions = sessions;
+        this.published = published;
+        this.dropped = dropped;
+        this.disconnected = disconnected;
+    }
+
+    public int getSessions() {
+        return sessions;
+    }
+
+    /**
+     * Broj trejdova serijalizovanih za multicast (jednom po trejdu, ne po sesiji)
+     */
+    public long getPublished() {
+        return published;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    public long getDisconnected() {
+        return disconnected;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.exchange.model;
+
+/**
+ * Ishod otkazivanja ili izmene naloga.
+ */
+public class CancelResult {
+    private final long orderId;
+    private final String symbol;
+    private final CancelStatus status;
+    private final int remaining;
+
+    public CancelResult(long orderId, String symbol, CancelStatus status, int remaining) {
+        this.orderId = orderId;
+        this.symbol = symbol;
+        this.status = status;
+        this.remaining = remaining;
+    }
+
+    public long getOrderId() {
+        return orderId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public CancelStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * Kolicina koja je otkazana (CANCELLED) ili nova preostala kolicina (AMENDED), inace 0
+     */
+    public int getRemaining() {
+        return remaining;
+    }
+}
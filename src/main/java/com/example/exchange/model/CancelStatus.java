@@ -0,0 +1,10 @@
+package com.example.exchange.model;
+
+public enum CancelStatus {
+    CANCELLED,
+    AMENDED,
+    // nalog nije u knjizi (ispunjen, vec otkazan ili nepostojeci)
+    NOT_FOUND,
+    // izmena nije dozvoljena – kolicina moze samo da se smanji
+    REJECTED
+}
@@ -0,0 +1,71 @@
+package com.example.exchange.model;
+
+public class Candle {
+    private final String symbol;
+    private final String interval;
+    private final long startTime;
+    private final double open;
+    private final double high;
+    private final double low;
+    private final double close;
+    private final long volume;
+    private final int trades;
+
+    public Candle(String symbol, String interval, long startTime, double open, double high, double low,
+                  double close, long volume, int trades) {
+        this.symbol = symbol;
+        this.interval = interval;
+        this.startTime = startTime;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+        this.trades = trades;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Interval kako je zadat u candles.intervals, npr. "1m"
+     */
+    public String getInterval() {
+        return interval;
+    }
+
+    /**
+     * Pocetak intervala u ms od epohe (poravnat na interval)
+     */
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public double getOpen() {
+        return open;
+    }
+
+    public double getHigh() {
+        return high;
+    }
+
+    public double getLow() {
+        return low;
+    }
+
+    public double getClose() {
+        return close;
+    }
+
+    /**
+     * Ukupna izvrsena kolicina u intervalu
+     */
+    public long getVolume() {
+        return volume;
+    }
+
+    public int getTrades() {
+        return trades;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.exchange.model;
+
+import java.util.List;
+
+public class EngineMetrics {
+    private final long queueDepth;
+    private final long maxQueueDepth;
+    private final long restingOrders;
+    private final List<HistogramStats> histograms;
+    private final List<BookStats> books;
+
+    public EngineMetrics(long queueDepth, long maxQueueDepth, long restingOrders,
+                         List<HistogramStats> histograms, List<BookStats> books) {
+        this.queueDepth = queueDepth;
+        this.maxQueueDepth = maxQueueDepth;
+        this.restingOrders = restingOrders;
+        this.histograms = histograms;
+        this.books = books;
+    }
+
+    /**
+     * Ukupan broj komandi koje cekaju u svim engine-ima
+     */
+    public long getQueueDepth() {
+        return queueDepth;
+    }
+
+    public long getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * Ukupan broj naloga u svim knjigama
+     */
+    public long getRestingOrders() {
+        return restingOrders;
+    }
+
+    /**
+     * Percentili od starta servisa: queueWait, matchTime, fillsPerOrder, historyAppend, broadcastFanOut
+     */
+    public List<HistogramStats> getHistograms() {
+        return histograms;
+    }
+
+    public List<BookStats> getBooks() {
+        return books;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.exchange.model;
+
+public class HistogramStats {
+    private final String name;
+    private final String unit;
+    private final long count;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long p999;
+    private final long max;
+
+    public HistogramStats(String name, String unit, long count, double mean,
+                          long p50, long p90, long p99, long p999, long max) {
+        this.name = name;
+        this.unit = unit;
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.p999 = p999;
+        this.max = max;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Jedinica vrednosti: "ns" za vremena, "fills" za broj trejdova po nalogu
+     */
+    public String getUnit() {
+        return unit;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public long getP50() {
+        return p50;
+    }
+
+    public long getP90() {
+        return p90;
+    }
+
+    public long getP99() {
+        return p99;
+    }
+
+    public long getP999() {
+        return p999;
+    }
+
+    public long getMax() {
+        return max;
+    }
+}
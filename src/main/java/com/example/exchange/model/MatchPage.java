@@ -0,0 +1,30 @@
+package com.example.exchange.model;
+
+import java.util.List;
+
+public class MatchPage {
+    private final List<MatchRecord> matches;
+    private final long nextCursor;
+    private final boolean hasMore;
+
+    public MatchPage(List<MatchRecord> matches, long nextCursor, boolean hasMore) {
+        this.matches = matches;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<MatchRecord> getMatches() {
+        return matches;
+    }
+
+    /**
+     * Cursor za sledecu stranu (pozicija u istoriji od koje se nastavlja)
+     */
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
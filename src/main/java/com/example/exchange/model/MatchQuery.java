@@ -0,0 +1,63 @@
+package com.example.exchange.model;
+
+/**
+ * Filteri za listanje istorije trejdova. Null polje znaci da se po njemu ne filtrira.
+ * Cenovni opseg vazi i za kupovnu i za prodajnu cenu trejda.
+ */
+public class MatchQuery {
+    // bez filtera
+    public static final MatchQuery ALL = new MatchQuery(null, null, null, null, null);
+
+    private final String symbol;
+    private final Long fromTime;
+    private final Long toTime;
+    private final Double minPrice;
+    private final Double maxPrice;
+
+    public MatchQuery(String symbol, Long fromTime, Long toTime, Double minPrice, Double maxPrice) {
+        this.symbol = symbol;
+        this.fromTime = fromTime;
+        this.toTime = toTime;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    public boolean matches(MatchRecord record) {
+        if (symbol != null && !symbol.equals(record.getSymbol())) {
+            return false;
+        }
+        if (fromTime != null && record.getTimestamp() < fromTime) {
+            return false;
+        }
+        if (toTime != null && record.getTimestamp() >= toTime) {
+            return false;
+        }
+        if (minPrice != null && (record.getBuyPrice() < minPrice || record.getSellPrice() < minPrice)) {
+            return false;
+        }
+        if (maxPrice != null && (record.getBuyPrice() > maxPrice || record.getSellPrice() > maxPrice)) {
+            return false;
+        }
+        return true;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public Long getFromTime() {
+        return fromTime;
+    }
+
+    public Long getToTime() {
+        return toTime;
+    }
+
+    public Double getMinPrice() {
+        return minPrice;
+    }
+
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+}
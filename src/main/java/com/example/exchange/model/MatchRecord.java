@@ -1,14 +1,50 @@
 package com.example.exchange.model;
 
 public class MatchRecord {
+    private final long sequence;
+    private final long tradeId;
+    private final String symbol;
+    private final long buyOrderId;
+    private final long sellOrderId;
     private final double buyPrice;
     private final double sellPrice;
     private final int amount;
+    private final long timestamp;
 
-    public MatchRecord(double buyPrice, double sellPrice, int amount) {
+    public MatchRecord(long sequence, long tradeId, String symbol, long buyOrderId, long sellOrderId,
+                       double buyPrice, double sellPrice, int amount, long timestamp) {
+        this.sequence = sequence;
+        this.tradeId = tradeId;
+        this.symbol = symbol;
+        this.buyOrderId = buyOrderId;
+        this.sellOrderId = sellOrderId;
         this.buyPrice = buyPrice;
         this.sellPrice = sellPrice;
         this.amount = amount;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Redni broj trejda u okviru simbola
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    public long getTradeId() {
+        return tradeId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public long getBuyOrderId() {
+        return buyOrderId;
+    }
+
+    public long getSellOrderId() {
+        return sellOrderId;
     }
 
     public double getBuyPrice() {
@@ -22,4 +58,11 @@ public class MatchRecord {
     public int getAmount() {
         return amount;
     }
+
+    /**
+     * Vreme izvrsenja (epoch millis)
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
 }
@@ -1,28 +1,75 @@
 package com.example.exchange.model;
 
-import java.util.UUID;
-
 public class Order {
-    private final String id;
-    private final double price;
+    public static final String DEFAULT_SYMBOL = "DEFAULT";
+
+    private long id;
+    private final String symbol;
+    private double price;
+    private long priceTicks;
     private final int amount;
     private final OrderType type;
+    private final TimeInForce timeInForce;
+    private final OrderKind kind;
 
     public Order(double price, int amount, OrderType type) {
-        this.id = UUID.randomUUID().toString();
-        this.price = price;
+        this(DEFAULT_SYMBOL, price, amount, type);
+    }
+
+    public Order(String symbol, double price, int amount, OrderType type) {
+        this(symbol, price, amount, type, TimeInForce.GTC, OrderKind.LIMIT);
+    }
+
+    public Order(String symbol, double price, int amount, OrderType type, TimeInForce timeInForce, OrderKind kind) {
+        this.symbol = symbol;
+        this.price = kind == OrderKind.MARKET ? 0 : price;
         this.amount = amount;
         this.type = type;
+        this.timeInForce = timeInForce;
+        this.kind = kind;
+    }
+
+    /**
+     * ID dodeljuje matching engine kad nalog dobije slot u ring buffer-u.
+     */
+    public void assignId(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Prevodi cenu u tick-ove knjige; poziva se jednom, pre slanja u engine.
+     * @throws IllegalArgumentException ako cena nije umnozak tick-a
+     */
+    public void applyTickSize(TickSize tickSize) {
+        this.priceTicks = tickSize.toTicks(price);
+        this.price = tickSize.toPrice(priceTicks);
+    }
+
+    /**
+     * Kao applyTickSize, ali zaokruzuje na najblizi tick; za naloge iz journal-a, koji su vec
+     * prihvaceni (mozda sa drugim tick-om).
+     */
+    public void roundToTickSize(TickSize tickSize) {
+        this.priceTicks = tickSize.nearestTicks(price);
+        this.price = tickSize.toPrice(priceTicks);
     }
 
-    public String getId() {
+    public long getId() {
         return id;
     }
 
+    public String getSymbol() {
+        return symbol;
+    }
+
     public double getPrice() {
         return price;
     }
 
+    public long getPriceTicks() {
+        return priceTicks;
+    }
+
     public int getAmount() {
         return amount;
     }
@@ -30,4 +77,19 @@ public class Order {
     public OrderType getType() {
         return type;
     }
+
+    public TimeInForce getTimeInForce() {
+        return timeInForce;
+    }
+
+    public OrderKind getKind() {
+        return kind;
+    }
+
+    /**
+     * Da li neispunjeni deo naloga ostaje u knjizi
+     */
+    public boolean isResting() {
+        return kind == OrderKind.LIMIT && timeInForce == TimeInForce.GTC;
+    }
 }
@@ -0,0 +1,37 @@
+package com.example.exchange.model;
+
+/**
+ * Potvrda jednog naloga iz batch-a; index je pozicija naloga u zahtevu.
+ */
+public class OrderAck {
+    private final int index;
+    private final AckStatus status;
+    private final long id;
+    private final String reason;
+
+    public OrderAck(int index, AckStatus status, long id, String reason) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.reason = reason;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public AckStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * ID naloga, 0 ako nalog nije prihvacen
+     */
+    public long getId() {
+        return id;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.exchange.model;
+
+public enum OrderKind {
+    LIMIT,
+    // bez cene – uparuje se sa najboljim cenama u knjizi i nikad ne ostaje u njoj
+    MARKET
+}
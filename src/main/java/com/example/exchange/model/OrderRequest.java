@@ -1,10 +1,18 @@
 package com.example.exchange.model;
 
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 
 public class OrderRequest {
 
+    public static final String SYMBOL_REGEX = "[A-Za-z0-9._-]{1,16}";
+
+    @NotBlank(message = "Symbol must be provided")
+    @Pattern(regexp = SYMBOL_REGEX, message = "Symbol must be 1-16 letters, digits, '.', '_' or '-'")
+    private String symbol = Order.DEFAULT_SYMBOL;
+
     @Min(value = 0, message = "Price must be non-negative")
     private double price;
 
@@ -14,6 +22,12 @@ public class OrderRequest {
     @NotNull(message = "Order type must be provided")
     private OrderType type;
 
+    @NotNull(message = "Time in force must be provided")
+    private TimeInForce timeInForce = TimeInForce.GTC;
+
+    @NotNull(message = "Order kind must be provided")
+    private OrderKind kind = OrderKind.LIMIT;
+
     public OrderRequest() {
     }
 
@@ -23,6 +37,49 @@ public class OrderRequest {
         this.type = type;
     }
 
+    public OrderRequest(String symbol, double price, int amount, OrderType type) {
+        this(price, amount, type);
+        this.symbol = symbol;
+    }
+
+    /**
+     * Ista pravila kao anotacije, za batch-eve gde se svaki nalog proverava zasebno
+     * @return opis greske ili null ako je nalog ispravan
+     */
+    public String validate() {
+        if (symbol == null || !symbol.matches(SYMBOL_REGEX)) {
+            return "Symbol must be 1-16 letters, digits, '.', '_' or '-'";
+        }
+        if (!(price >= 0)) {
+            return "Price must be non-negative";
+        }
+        if (amount < 1) {
+            return "Amount must be at least 1";
+        }
+        if (type == null) {
+            return "Order type must be provided";
+        }
+        if (timeInForce == null) {
+            return "Time in force must be provided";
+        }
+        if (kind == null) {
+            return "Order kind must be provided";
+        }
+        return null;
+    }
+
+    public Order toOrder() {
+        return new Order(symbol, price, amount, type, timeInForce, kind);
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public void setSymbol(String symbol) {
+        this.symbol = symbol;
+    }
+
     public double getPrice() {
         return price;
     }
@@ -46,4 +103,20 @@ public class OrderRequest {
     public void setType(OrderType type) {
         this.type = type;
     }
+
+    public TimeInForce getTimeInForce() {
+        return timeInForce;
+    }
+
+    public void setTimeInForce(TimeInForce timeInForce) {
+        this.timeInForce = timeInForce;
+    }
+
+    public OrderKind getKind() {
+        return kind;
+    }
+
+    public void setKind(OrderKind kind) {
+        this.kind = kind;
+    }
 }
@@ -0,0 +1,57 @@
+package com.example.exchange.model;
+
+public class PersistenceStatus {
+    private final boolean journalEnabled;
+    private final long journalPosition;
+    private final long lastSnapshotPosition;
+    private final long lastSnapshotTimestamp;
+    private final long lastSnapshotMillis;
+    private final long lastRecoveryMillis;
+    private final long recoveredSnapshotPosition;
+    private final long replayedRecords;
+
+    public PersistenceStatus(boolean journalEnabled, long journalPosition,
+                             long lastSnapshotPosition, long lastSnapshotTimestamp, long lastSnapshotMillis,
+                             long lastRecoveryMillis, long recoveredSnapshotPosition, long replayedRecords) {
+        this.journalEnabled = journalEnabled;
+        this.journalPosition = journalPosition;
+        this.lastSnapshotPosition = lastSnapshotPosition;
+        this.lastSnapshotTimestamp = lastSnapshotTimestamp;
+        this.lastSnapshotMillis = lastSnapshotMillis;
+        this.lastRecoveryMillis = lastRecoveryMillis;
+        this.recoveredSnapshotPosition = recoveredSnapshotPosition;
+        this.replayedRecords = replayedRecords;
+    }
+
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    public long getJournalPosition() {
+        return journalPosition;
+    }
+
+    public long getLastSnapshotPosition() {
+        return lastSnapshotPosition;
+    }
+
+    public long getLastSnapshotTimestamp() {
+        return lastSnapshotTimestamp;
+    }
+
+    public long getLastSnapshotMillis() {
+        return lastSnapshotMillis;
+    }
+
+    public long getLastRecoveryMillis() {
+        return lastRecoveryMillis;
+    }
+
+    public long getRecoveredSnapshotPosition() {
+        return recoveredSnapshotPosition;
+    }
+
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+}
@@ -2,12 +2,14 @@ package com.example.exchange.model;
 
 public class PriceLevel {
     private double price;
-    private int totalAmount;
+    private long totalAmount;
+    private int orderCount;
     private OrderType type;
 
-    public PriceLevel(double price, int totalAmount, OrderType type) {
+    public PriceLevel(double price, long totalAmount, int orderCount, OrderType type) {
         this.price = price;
         this.totalAmount = totalAmount;
+        this.orderCount = orderCount;
         this.type = type;
     }
 
@@ -15,10 +17,14 @@ public class PriceLevel {
         return price;
     }
 
-    public int getTotalAmount() {
+    public long getTotalAmount() {
         return totalAmount;
     }
 
+    public int getOrderCount() {
+        return orderCount;
+    }
+
     public OrderType getType() {
         return type;
     }
@@ -0,0 +1,46 @@
+package com.example.exchange.model;
+
+public class StageStats {
+    private final String name;
+    private final boolean lossless;
+    private final long published;
+    private final long dropped;
+    private final long lag;
+    private final int capacity;
+
+    public StageStats(String name, boolean lossless, long published, long dropped, long lag, int capacity) {
+        this.name = name;
+        this.lossless = lossless;
+        this.published = published;
+        this.dropped = dropped;
+        this.lag = lag;
+        this.capacity = capacity;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isLossless() {
+        return lossless;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    public long getDropped() {
+        return dropped;
+    }
+
+    /**
+     * Broj dogadjaja koji cekaju u buffer-u faze
+     */
+    public long getLag() {
+        return lag;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.exchange.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Velicina tick-a kao racionalan broj units / 10^scale (npr. 0.05 = 5 / 100),
+ * tako da se cena iz tick-ova dobija jednim tacno zaokruzenim deljenjem.
+ */
+public final class TickSize {
+
+    private final BigDecimal value;
+    private final long units;
+    private final double divisor;
+
+    private TickSize(BigDecimal value) {
+        BigDecimal normalized = value.stripTrailingZeros();
+        if (normalized.scale() < 0) {
+            normalized = normalized.setScale(0);
+        }
+        this.value = normalized;
+        this.units = normalized.unscaledValue().longValueExact();
+        this.divisor = Math.pow(10, normalized.scale());
+    }
+
+    public static TickSize of(double tickSize) {
+        if (!(tickSize > 0) || Double.isInfinite(tickSize)) {
+            throw new IllegalArgumentException("Tick size must be positive: " + tickSize);
+        }
+        return new TickSize(BigDecimal.valueOf(tickSize));
+    }
+
+    // dozvoljeno odstupanje od tick-a (u tick-ovima), samo za sum iz racunanja u double-u
+    private static final double TOLERANCE = 1e-6;
+
+    /**
+     * Cena u tick-ovima; cena mora biti umnozak tick-a (do suma u double-u). Zaokruzivanje bi
+     * moglo da pomeri limit preko cene koju je klijent zadao (BUY navise, SELL nanize).
+     * @throws IllegalArgumentException ako cena nije na tick-u
+     */
+    public long toTicks(double price) {
+        double exact = price * divisor / units;
+        long ticks = Math.round(exact);
+        if (Math.abs(exact - ticks) > TOLERANCE) {
+            throw new IllegalArgumentException("Price must be a multiple of the tick size " + this + ": " + price);
+        }
+        return ticks;
+    }
+
+    /**
+     * Cena zaokruzena na najblizi tick; samo za vec prihvacene naloge kad se tick promeni
+     * (snapshot, journal).
+     */
+    public long nearestTicks(double price) {
+        return Math.round(price * divisor / units);
+    }
+
+    public double toPrice(long ticks) {
+        return (ticks * units) / divisor;
+    }
+
+    public double doubleValue() {
+        return value.doubleValue();
+    }
+
+    @Override
+    public String toString() {
+        return value.toPlainString();
+    }
+}
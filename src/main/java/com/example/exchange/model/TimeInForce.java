@@ -0,0 +1,10 @@
+package com.example.exchange.model;
+
+public enum TimeInForce {
+    // neispunjeni deo ostaje u knjizi
+    GTC,
+    // ispuni sta moze odmah, ostatak se odbacuje
+    IOC,
+    // ispuni ceo nalog odmah ili nista
+    FOK
+}
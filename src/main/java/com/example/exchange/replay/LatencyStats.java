@@ -0,0 +1,49 @@
+package com.example.exchange.replay;
+
+import java.util.Arrays;
+
+/**
+ * Izmerena kasnjenja u nanosekundama; percentili se racunaju sortiranjem na kraju run-a.
+ */
+final class LatencyStats {
+
+    private long[] values = new long[1024];
+    private int count;
+    private boolean sorted;
+
+    synchronized void add(long nanos) {
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count++] = nanos;
+        sorted = false;
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    /**
+     * @param percentile 0-100
+     */
+    synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        if (!sorted) {
+            Arrays.sort(values, 0, count);
+            sorted = true;
+        }
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return values[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    /**
+     * Jedan red izvestaja, vrednosti u mikrosekundama
+     */
+    String summary(String name) {
+        return String.format("%-12s n=%-8d p50=%-8d p90=%-8d p99=%-8d p99.9=%-8d max=%d (us)", name, count(),
+                percentile(50) / 1_000, percentile(90) / 1_000, percentile(99) / 1_000,
+                percentile(99.9) / 1_000, percentile(100) / 1_000);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.exchange.replay;
+
+import com.example.exchange.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snima prihvacene naloge, otkazivanja i izmene u tekstualni fajl, jedan red po dogadjaju,
+ * sa vremenom u nanosekundama od pocetka snimanja. ReplayTool ih kasnije ponavlja.
+ * <pre>
+ *   &lt;nanos&gt; NEW &lt;id&gt; &lt;symbol&gt; &lt;BUY|SELL&gt; &lt;price&gt; &lt;amount&gt; &lt;GTC|IOC|FOK&gt; &lt;LIMIT|MARKET&gt;
+ *   &lt;nanos&gt; CANCEL &lt;id&gt; &lt;symbol&gt;
+ *   &lt;nanos&gt; AMEND &lt;id&gt; &lt;symbol&gt; &lt;quantity&gt;
+ * </pre>
+ * Pozivalac drzi monitor rekordera dok predaje nalog engine-u, pa je redosled u fajlu
+ * isti kao redosled kojim ih engine-i primaju.
+ */
+public class OrderRecorder implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderRecorder.class);
+
+    static final String HEADER = "# exchange order recording v1";
+
+    private final Path path;
+    private final BufferedWriter writer;
+    private final StringBuilder line = new StringBuilder(96);
+    private final long startNanos = System.nanoTime();
+    private final ScheduledExecutorService flusher;
+    private boolean failed;
+
+    public OrderRecorder(Path path, long flushIntervalMillis) throws IOException {
+        this.path = path;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII);
+        writer.write(HEADER);
+        writer.newLine();
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "OrderRecorderFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        logger.info("Snimanje naloga u {}", path);
+    }
+
+    public synchronized void newOrder(Order order) {
+        begin("NEW", order.getId(), order.getSymbol())
+                .append(' ').append(order.getType().name())
+                .append(' ').append(order.getPrice())
+                .append(' ').append(order.getAmount())
+                .append(' ').append(order.getTimeInForce().name())
+                .append(' ').append(order.getKind().name());
+        write();
+    }
+
+    public synchronized void cancel(String symbol, long orderId) {
+        begin("CANCEL", orderId, symbol);
+        write();
+    }
+
+    public synchronized void amend(String symbol, long orderId, int quantity) {
+        begin("AMEND", orderId, symbol).append(' ').append(quantity);
+        write();
+    }
+
+    private StringBuilder begin(String type, long orderId, String symbol) {
+        line.setLength(0);
+        return line.append(System.nanoTime() - startNanos)
+                .append(' ').append(type)
+                .append(' ').append(orderId)
+                .append(' ').append(symbol);
+    }
+
+    private void write() {
+        if (failed) {
+            return;
+        }
+        try {
+            writer.append(line).append('\n');
+        } catch (IOException e) {
+            // snimanje ne sme da obori prijem naloga – prekida se posle prve greske
+            failed = true;
+            logger.error("Greska pri snimanju naloga u {} – snimanje prekinuto", path, e);
+        }
+    }
+
+    private synchronized void flush() {
+        if (failed) {
+            return;
+        }
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            failed = true;
+            logger.error("Greska pri snimanju naloga u {} – snimanje prekinuto", path, e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flusher.shutdownNow();
+        writer.close();
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.exchange.replay;
+
+import com.example.exchange.model.OrderKind;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.TimeInForce;
+
+/**
+ * Jedan red iz fajla koji pravi OrderRecorder.
+ */
+public class RecordedEvent {
+
+    public enum Type {
+        NEW, CANCEL, AMEND
+    }
+
+    private final Type type;
+    private final long nanos;
+    private final long orderId;
+    private final String symbol;
+    private final OrderType side;
+    private final double price;
+    private final int amount;
+    private final TimeInForce timeInForce;
+    private final OrderKind kind;
+
+    private RecordedEvent(Type type, long nanos, long orderId, String symbol, OrderType side, double price,
+                          int amount, TimeInForce timeInForce, OrderKind kind) {
+        this.type = type;
+        this.nanos = nanos;
+        this.orderId = orderId;
+        this.symbol = symbol;
+        this.side = side;
+        this.price = price;
+        this.amount = amount;
+        this.timeInForce = timeInForce;
+        this.kind = kind;
+    }
+
+    /**
+     * @return dogadjaj ili null za prazan red i komentar
+     * @throws IllegalArgumentException ako red nije u ocekivanom formatu
+     */
+    public static RecordedEvent parse(String line) {
+        if (line.isBlank() || line.startsWith("#")) {
+            return null;
+        }
+        String[] fields = line.trim().split(" ");
+        try {
+            Type type = Type.valueOf(fields[1]);
+            long nanos = Long.parseLong(fields[0]);
+            long orderId = Long.parseLong(fields[2]);
+            String symbol = fields[3];
+            return switch (type) {
+                case NEW -> new RecordedEvent(type, nanos, orderId, symbol, OrderType.valueOf(fields[4]),
+                        Double.parseDouble(fields[5]), Integer.parseInt(fields[6]),
+                        TimeInForce.valueOf(fields[7]), OrderKind.valueOf(fields[8]));
+                case CANCEL -> new RecordedEvent(type, nanos, orderId, symbol, null, 0, 0, null, null);
+                case AMEND -> new RecordedEvent(type, nanos, orderId, symbol, null, 0,
+                        Integer.parseInt(fields[4]), null, null);
+            };
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid recording line: " + line, e);
+        }
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Vreme prijema u nanosekundama od pocetka snimanja
+     */
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * ID naloga u snimljenom run-u (za CANCEL i AMEND – nalog na koji se odnosi)
+     */
+    public long getOrderId() {
+        return orderId;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public OrderType getSide() {
+        return side;
+    }
+
+    public double getPrice() {
+        return price;
+    }
+
+    /**
+     * Kolicina naloga (NEW) ili nova preostala kolicina (AMEND)
+     */
+    public int getAmount() {
+        return amount;
+    }
+
+    public TimeInForce getTimeInForce() {
+        return timeInForce;
+    }
+
+    public OrderKind getKind() {
+        return kind;
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.exchange.replay;
+
+import com.example.exchange.engine.EngineBusyException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ponavlja snimak iz OrderRecorder-a protiv pokrenutog servisa, kroz REST ili /orders-ws,
+ * punom brzinom ili u originalnom ritmu. Meri kasnjenje od slanja do potvrde i do prvog
+ * ORDER_MATCHED trejda za nalog, a trejdove naloga iz snimka upisuje u fajl koji je isti
+ * za isti snimak – ID-jevi naloga se zamenjuju rednim brojem dogadjaja u snimku.
+ * <pre>
+ *   mvn -q exec:java -Dexec.mainClass=com.example.exchange.replay.ReplayTool \
+ *       -Dexec.args="--file data/orders.rec --transport ws --speed 0 --output matches.txt"
+ * </pre>
+ */
+public class ReplayTool {
+
+    private static final int PAGE_SIZE = 1_000;
+
+    private final List<RecordedEvent> events;
+    private final String baseUrl;
+    private final String transportName;
+    private final double speed;
+    private final int concurrency;
+    private final long settleNanos;
+    private final Path output;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // ID iz snimka -> ID u ovom run-u (0 ako nalog nije prihvacen)
+    private final Map<Long, CompletableFuture<Long>> orderIds = new ConcurrentHashMap<>();
+    // ID u ovom run-u -> vreme prvog trejda
+    private final Map<Long, Long> firstFill = new ConcurrentHashMap<>();
+    private volatile long lastTradeNanos;
+
+    private final long[] submitNanos;
+    private final long[] runIds;
+    private final LatencyStats ackLatency = new LatencyStats();
+    private final LatencyStats fillLatency = new LatencyStats();
+    private final AtomicInteger accepted = new AtomicInteger();
+    private final AtomicInteger busy = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    ReplayTool(List<RecordedEvent> events, String baseUrl, String transportName, double speed, int concurrency,
+               long settleMillis, Path output) {
+        this.events = events;
+        this.baseUrl = baseUrl;
+        this.transportName = transportName;
+        this.speed = speed;
+        this.concurrency = concurrency;
+        this.settleNanos = settleMillis * 1_000_000;
+        this.output = output;
+        this.submitNanos = new long[events.size()];
+        this.runIds = new long[events.size()];
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        if (!options.containsKey("file")) {
+            System.err.println("""
+                    Usage: ReplayTool --file <recording> [options]
+                      --url <base>          service URL (default http://localhost:8080)
+                      --transport ws|rest   order entry path (default ws)
+                      --speed <factor>      0 = full speed, 1 = original timing, 2 = twice as fast (default 0)
+                      --concurrency <n>     requests in flight; ws pipelines in order, rest keeps order only with 1
+                                            (default 1024 for ws, 1 for rest)
+                      --settle-ms <ms>      wait after the last trade before reading matches (default 1000)
+                      --output <file>       match output (default replay-matches.txt)""");
+            System.exit(2);
+        }
+        quietLogging();
+
+        String transport = options.getOrDefault("transport", "ws");
+        ReplayTool tool = new ReplayTool(
+                readRecording(Path.of(options.get("file"))),
+                options.getOrDefault("url", "http://localhost:8080"),
+                transport,
+                Double.parseDouble(options.getOrDefault("speed", "0")),
+                Integer.parseInt(options.getOrDefault("concurrency", "ws".equals(transport) ? "1024" : "1")),
+                Long.parseLong(options.getOrDefault("settle-ms", "1000")),
+                Path.of(options.getOrDefault("output", "replay-matches.txt")));
+        tool.run();
+    }
+
+    void run() throws IOException, InterruptedException {
+        URI wsUri = URI.create(baseUrl.replaceFirst("^http", "ws") + "/orders-ws");
+        Disposable trades = listenForTrades(wsUri);
+        ReplayTransport transport = "rest".equals(transportName)
+                ? new RestReplayTransport(baseUrl)
+                : new WebSocketReplayTransport(wsUri);
+
+        Set<Long> recordedIds = new HashSet<>();
+        for (RecordedEvent event : events) {
+            if (event.getType() == RecordedEvent.Type.NEW) {
+                recordedIds.add(event.getOrderId());
+            }
+        }
+
+        long start = System.nanoTime();
+        long firstEventNanos = events.isEmpty() ? 0 : events.get(0).getNanos();
+        try {
+            Flux.range(0, events.size())
+                    .concatMap(index -> whenReady(index, start, firstEventNanos, recordedIds))
+                    .flatMap(index -> submit(transport, index), concurrency)
+                    .blockLast();
+        } finally {
+            transport.close();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // trejdovi stizu i posle poslednje potvrde
+        lastTradeNanos = Math.max(lastTradeNanos, System.nanoTime());
+        while (System.nanoTime() - lastTradeNanos < settleNanos) {
+            Thread.sleep(50);
+        }
+        trades.dispose();
+
+        for (int i = 0; i < events.size(); i++) {
+            Long fill = runIds[i] != 0 ? firstFill.get(runIds[i]) : null;
+            if (fill != null) {
+                fillLatency.add(fill - submitNanos[i]);
+            }
+        }
+        int matches = writeMatches();
+        report(elapsed, matches);
+    }
+
+    /**
+     * Ceka trenutak dogadjaja (u originalnom ritmu) i, za otkazivanje i izmenu, potvrdu naloga na koji se odnose.
+     */
+    private Mono<Integer> whenReady(int index, long start, long firstEventNanos, Set<Long> recordedIds) {
+        RecordedEvent event = events.get(index);
+        Mono<Integer> ready = Mono.just(index);
+        if (speed > 0) {
+            long due = start + (long) ((event.getNanos() - firstEventNanos) / speed);
+            long delay = due - System.nanoTime();
+            if (delay > 0) {
+                ready = Mono.delay(Duration.ofNanos(delay)).thenReturn(index);
+            }
+        }
+        if (event.getType() != RecordedEvent.Type.NEW && recordedIds.contains(event.getOrderId())) {
+            ready = ready.then(Mono.fromFuture(orderIdFor(event.getOrderId()))).thenReturn(index);
+        }
+        return ready;
+    }
+
+    private Mono<Integer> submit(ReplayTransport transport, int index) {
+        RecordedEvent event = events.get(index);
+        return Mono.defer(() -> {
+            long runId = 0;
+            if (event.getType() != RecordedEvent.Type.NEW) {
+                CompletableFuture<Long> id = orderIds.get(event.getOrderId());
+                runId = id != null ? id.join() : 0;
+                if (runId == 0) {
+                    // nalog nije iz snimka ili nije prihvacen u ovom run-u
+                    skipped.incrementAndGet();
+                    return Mono.just(index);
+                }
+            }
+            long sent = System.nanoTime();
+            submitNanos[index] = sent;
+            Mono<Long> call = switch (event.getType()) {
+                case NEW -> transport.newOrder(index, event);
+                case CANCEL -> transport.cancel(index, event, runId).thenReturn(0L);
+                case AMEND -> transport.amend(index, event, runId).thenReturn(0L);
+            };
+            return call
+                    .doOnNext(id -> {
+                        ackLatency.add(System.nanoTime() - sent);
+                        accepted.incrementAndGet();
+                        if (event.getType() == RecordedEvent.Type.NEW) {
+                            runIds[index] = id;
+                            orderIdFor(event.getOrderId()).complete(id);
+                        }
+                    })
+                    .onErrorResume(error -> {
+                        (error instanceof EngineBusyException ? busy : failed).incrementAndGet();
+                        if (event.getType() == RecordedEvent.Type.NEW) {
+                            orderIdFor(event.getOrderId()).complete(0L);
+                        }
+                        return Mono.empty();
+                    })
+                    .thenReturn(index);
+        });
+    }
+
+    private CompletableFuture<Long> orderIdFor(long recordedId) {
+        return orderIds.computeIfAbsent(recordedId, id -> new CompletableFuture<>());
+    }
+
+    /**
+     * JSON sesija koja samo prima ORDER_MATCHED i belezi prvi trejd za svaki nalog.
+     */
+    private Disposable listenForTrades(URI uri) {
+        return new ReactorNettyWebSocketClient().execute(uri, session -> session.receive()
+                        .map(WebSocketMessage::getPayloadAsText)
+                        .doOnNext(this::onTrade)
+                        .then())
+                .subscribe(null, error -> System.err.println("Trade listener failed: " + error));
+    }
+
+    private void onTrade(String text) {
+        long now = System.nanoTime();
+        try {
+            JsonNode root = objectMapper.readTree(text);
+            if (!"ORDER_MATCHED".equals(root.path("action").asText())) {
+                return;
+            }
+            JsonNode payload = root.path("payload");
+            firstFill.putIfAbsent(payload.path("buyOrderId").asLong(), now);
+            firstFill.putIfAbsent(payload.path("sellOrderId").asLong(), now);
+            lastTradeNanos = now;
+        } catch (IOException e) {
+            // nije JSON trejd
+        }
+    }
+
+    /**
+     * Trejdovi u kojima ucestvuje bar jedan nalog iz snimka, sortirani po simbolu pa po redosledu trejda.
+     * Nalozi se oznacavaju rednim brojem dogadjaja u snimku (#n), a tudji nalozi sa "-".
+     * @return broj upisanih trejdova
+     */
+    private int writeMatches() throws IOException {
+        Map<Long, Integer> eventOf = new HashMap<>();
+        for (int i = 0; i < runIds.length; i++) {
+            if (runIds[i] != 0) {
+                eventOf.put(runIds[i], i);
+            }
+        }
+
+        // strane umesto /api/matches/stream – NDJSON salje zapis po zapis, sto je za veliku istoriju sporo
+        WebClient client = WebClient.create(baseUrl);
+        List<JsonNode> matches = fetchPage(client, 0)
+                .expand(page -> page.path("hasMore").asBoolean()
+                        ? fetchPage(client, page.path("nextCursor").asLong())
+                        : Mono.empty())
+                .flatMapIterable(page -> page.path("matches"))
+                .filter(match -> eventOf.containsKey(match.path("buyOrderId").asLong())
+                        || eventOf.containsKey(match.path("sellOrderId").asLong()))
+                .collectList()
+                .block(Duration.ofMinutes(5));
+
+        matches.sort(Comparator.<JsonNode, String>comparing(match -> match.path("symbol").asText())
+                .thenComparingLong(match -> match.path("tradeId").asLong()));
+
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+            for (JsonNode match : matches) {
+                writer.write(match.path("symbol").asText() + " "
+                        + reference(eventOf, match.path("buyOrderId").asLong()) + " "
+                        + reference(eventOf, match.path("sellOrderId").asLong()) + " "
+                        + match.path("buyPrice").asDouble() + " "
+                        + match.path("sellPrice").asDouble() + " "
+                        + match.path("amount").asInt());
+                writer.newLine();
+            }
+        }
+        return matches.size();
+    }
+
+    private static Mono<JsonNode> fetchPage(WebClient client, long cursor) {
+        return client.get()
+                .uri(uri -> uri.path("/api/matches").queryParam("cursor", cursor).queryParam("limit", PAGE_SIZE).build())
+                .retrieve()
+                .bodyToMono(JsonNode.class);
+    }
+
+    private static String reference(Map<Long, Integer> eventOf, long orderId) {
+        Integer index = eventOf.get(orderId);
+        return index != null ? "#" + index : "-";
+    }
+
+    private void report(long elapsedNanos, int matches) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("Replayed %d events in %.3f s (%.0f events/s), transport %s, speed %s%n",
+                events.size(), seconds, events.size() / Math.max(seconds, 1e-9), transportName,
+                speed > 0 ? speed + "x" : "full");
+        System.out.printf("  acknowledged %d, busy %d, failed %d, skipped %d%n",
+                accepted.get(), busy.get(), failed.get(), skipped.get());
+        System.out.println("  " + ackLatency.summary("ack"));
+        System.out.println("  " + fillLatency.summary("first fill"));
+        System.out.printf("  %d matches written to %s%n", matches, output);
+        if (busy.get() > 0 || failed.get() > 0) {
+            System.out.println("  WARNING: some events were rejected, so the match output may differ from other runs");
+        }
+    }
+
+    static List<RecordedEvent> readRecording(Path path) throws IOException {
+        List<RecordedEvent> events = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                RecordedEvent event = RecordedEvent.parse(line);
+                if (event != null) {
+                    events.add(event);
+                }
+            }
+        }
+        return events;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected an option, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    /**
+     * Bez Spring Boot-a logback ostaje na DEBUG nivou; alat treba da ispise samo izvestaj.
+     */
+    private static void quietLogging() {
+        if (LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME) instanceof ch.qos.logback.classic.Logger root) {
+            root.setLevel(ch.qos.logback.classic.Level.WARN);
+        }
+    }
+}
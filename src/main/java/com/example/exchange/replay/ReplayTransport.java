@@ -0,0 +1,27 @@
+package com.example.exchange.replay;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Nacin na koji ReplayTool salje dogadjaje servisu. Svaki poziv zavrsava kad stigne potvrda;
+ * ako je engine preopterecen, Mono zavrsava sa EngineBusyException.
+ */
+interface ReplayTransport extends AutoCloseable {
+
+    /**
+     * @param tag jedinstven broj dogadjaja u snimku
+     * @return ID koji je servis dodelio nalogu
+     */
+    Mono<Long> newOrder(long tag, RecordedEvent event);
+
+    /**
+     * @param orderId ID naloga u ovom run-u
+     * @return true ako je nalog nadjen (otkazan, odnosno izmenjen)
+     */
+    Mono<Boolean> cancel(long tag, RecordedEvent event, long orderId);
+
+    Mono<Boolean> amend(long tag, RecordedEvent event, long orderId);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,73 @@
+package com.example.exchange.replay;
+
+import com.example.exchange.engine.EngineBusyException;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Dogadjaji idu kroz OrderController: POST /api/orders, DELETE i PATCH /api/orders/{id}.
+ */
+class RestReplayTransport implements ReplayTransport {
+
+    private final WebClient client;
+
+    RestReplayTransport(String baseUrl) {
+        this.client = WebClient.builder().baseUrl(baseUrl).build();
+    }
+
+    @Override
+    public Mono<Long> newOrder(long tag, RecordedEvent event) {
+        return client.post().uri("/api/orders")
+                .bodyValue(Map.of(
+                        "symbol", event.getSymbol(),
+                        "price", event.getPrice(),
+                        "amount", event.getAmount(),
+                        "type", event.getSide(),
+                        "timeInForce", event.getTimeInForce(),
+                        "kind", event.getKind()))
+                .exchangeToMono(response -> body(response).map(node -> node.get("id").asLong()));
+    }
+
+    @Override
+    public Mono<Boolean> cancel(long tag, RecordedEvent event, long orderId) {
+        return client.delete().uri("/api/orders/{id}?symbol={symbol}", orderId, event.getSymbol())
+                .exchangeToMono(this::found);
+    }
+
+    @Override
+    public Mono<Boolean> amend(long tag, RecordedEvent event, long orderId) {
+        return client.patch().uri("/api/orders/{id}", orderId)
+                .bodyValue(Map.of("symbol", event.getSymbol(), "quantity", event.getAmount()))
+                .exchangeToMono(this::found);
+    }
+
+    /**
+     * 404 (nalog vise nije u knjizi) i 400 (odbijena izmena) su regularni ishodi, ne greske.
+     */
+    private Mono<Boolean> found(ClientResponse response) {
+        HttpStatus status = HttpStatus.resolve(response.statusCode().value());
+        if (status == HttpStatus.NOT_FOUND || status == HttpStatus.BAD_REQUEST) {
+            return response.releaseBody().thenReturn(false);
+        }
+        return body(response).thenReturn(true);
+    }
+
+    private Mono<JsonNode> body(ClientResponse response) {
+        if (response.statusCode().value() == HttpStatus.TOO_MANY_REQUESTS.value()) {
+            return response.releaseBody().then(Mono.error(new EngineBusyException("Engine busy")));
+        }
+        if (response.statusCode().isError()) {
+            return response.createException().flatMap(Mono::error);
+        }
+        return response.bodyToMono(JsonNode.class);
+    }
+
+    @Override
+    public void close() {
+    }
+}
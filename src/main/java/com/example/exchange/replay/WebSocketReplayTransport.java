@@ -0,0 +1,158 @@
+package com.example.exchange.replay;
+
+import com.example.exchange.engine.EngineBusyException;
+import com.example.exchange.model.OrderKind;
+import com.example.exchange.model.OrderType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dogadjaji idu kroz /orders-ws binarnim protokolom ("exchange-binary-v2") preko jedne sesije.
+ * clientTag u porukama je redni broj dogadjaja, pa se ACK-ovi uparuju sa zahtevima i kad stignu
+ * drugim redom. Server obradjuje poruke sesije redom kojim stizu, pa je i redosled u engine-u isti.
+ */
+class WebSocketReplayTransport implements ReplayTransport {
+
+    private static final String SUBPROTOCOL = "exchange-binary-v2";
+    private static final byte NEW_ORDER = 1;
+    private static final byte CANCEL = 2;
+    private static final byte ACK = 3;
+    private static final byte AMEND = 8;
+    private static final byte ACCEPTED = 0;
+    private static final byte NOT_FOUND = 2;
+    private static final byte BUSY = 4;
+    private static final int SYMBOL_LENGTH = 16;
+
+    private final Sinks.Many<byte[]> outbound = Sinks.many().unicast().onBackpressureBuffer();
+    private final Map<Long, MonoSink<Long>> pending = new ConcurrentHashMap<>();
+    private final Disposable connection;
+
+    WebSocketReplayTransport(URI uri) {
+        Sinks.Empty<Void> connected = Sinks.empty();
+        WebSocketHandler handler = new WebSocketHandler() {
+            @Override
+            public List<String> getSubProtocols() {
+                return List.of(SUBPROTOCOL);
+            }
+
+            @Override
+            public Mono<Void> handle(WebSocketSession session) {
+                connected.tryEmitEmpty();
+                return session.send(outbound.asFlux().map(bytes -> session.binaryMessage(factory -> factory.wrap(bytes))))
+                        .and(session.receive().doOnNext(message -> onMessage(message.getPayload())).then());
+            }
+        };
+        connection = new ReactorNettyWebSocketClient().execute(uri, handler)
+                .subscribe(null, error -> {
+                    connected.tryEmitError(error);
+                    failPending(error);
+                }, () -> failPending(new IllegalStateException("WebSocket session closed")));
+        connected.asMono().block(Duration.ofSeconds(10));
+    }
+
+    @Override
+    public Mono<Long> newOrder(long tag, RecordedEvent event) {
+        ByteBuffer buffer = ByteBuffer.allocate(38);
+        int flags = (event.getSide() == OrderType.SELL ? 1 : 0)
+                | event.getTimeInForce().ordinal() << 1
+                | (event.getKind() == OrderKind.MARKET ? 1 << 3 : 0);
+        buffer.put(NEW_ORDER).putLong(tag).put((byte) flags).putDouble(event.getPrice()).putInt(event.getAmount());
+        putSymbol(buffer, event.getSymbol());
+        return send(tag, buffer.array());
+    }
+
+    @Override
+    public Mono<Boolean> cancel(long tag, RecordedEvent event, long orderId) {
+        ByteBuffer buffer = ByteBuffer.allocate(33);
+        buffer.put(CANCEL).putLong(tag).putLong(orderId);
+        putSymbol(buffer, event.getSymbol());
+        return send(tag, buffer.array()).map(id -> id != 0);
+    }
+
+    /**
+     * Odbijena izmena (status INVALID) je regularan ishod, kao 400 preko REST-a.
+     */
+    @Override
+    public Mono<Boolean> amend(long tag, RecordedEvent event, long orderId) {
+        ByteBuffer buffer = ByteBuffer.allocate(37);
+        buffer.put(AMEND).putLong(tag).putLong(orderId).putInt(event.getAmount());
+        putSymbol(buffer, event.getSymbol());
+        return send(tag, buffer.array())
+                .map(id -> id != 0)
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(false));
+    }
+
+    /**
+     * @return orderId iz ACK-a, 0 ako nalog nije nadjen
+     */
+    private Mono<Long> send(long tag, byte[] message) {
+        return Mono.create(sink -> {
+            pending.put(tag, sink);
+            outbound.emitNext(message, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+        });
+    }
+
+    private void onMessage(DataBuffer payload) {
+        int start = payload.readPosition();
+        if (payload.readableByteCount() != 18 || payload.getByte(start) != ACK) {
+            return; // trejdovi i delte knjige ne zanimaju ovu sesiju
+        }
+        long tag = getLong(payload, start + 1);
+        byte status = payload.getByte(start + 9);
+        long orderId = getLong(payload, start + 10);
+
+        MonoSink<Long> sink = pending.remove(tag);
+        if (sink == null) {
+            return;
+        }
+        if (status == ACCEPTED) {
+            sink.success(orderId);
+        } else if (status == NOT_FOUND) {
+            sink.success(0L);
+        } else if (status == BUSY) {
+            sink.error(new EngineBusyException("Engine busy"));
+        } else {
+            sink.error(new IllegalArgumentException("Rejected with status " + status));
+        }
+    }
+
+    private void failPending(Throwable error) {
+        pending.values().forEach(sink -> sink.error(error));
+        pending.clear();
+    }
+
+    private static long getLong(DataBuffer buffer, int index) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = value << 8 | (buffer.getByte(index + i) & 0xFF);
+        }
+        return value;
+    }
+
+    private static void putSymbol(ByteBuffer buffer, String symbol) {
+        byte[] bytes = symbol.getBytes(StandardCharsets.US_ASCII);
+        buffer.put(bytes, 0, Math.min(bytes.length, SYMBOL_LENGTH));
+        // ostatak je vec popunjen nulama
+    }
+
+    @Override
+    public void close() {
+        outbound.tryEmitComplete();
+        connection.dispose();
+    }
+}
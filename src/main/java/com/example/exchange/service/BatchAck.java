@@ -0,0 +1,86 @@
+package com.example.exchange.service;
+
+import com.example.exchange.engine.AckListener;
+import com.example.exchange.model.AckStatus;
+import com.example.exchange.model.Order;
+import com.example.exchange.model.OrderAck;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Skuplja potvrde naloga iz jednog batch-a (mogu stici sa vise engine niti)
+ * i zavrsava sink kad stigne poslednja.
+ */
+class BatchAck implements AckListener {
+
+    private final Order[] orders;
+    private final String[] rejections;
+    private final AtomicInteger pending;
+    private final Set<Order> failures = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    private final Set<Order> busy = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+    private final MonoSink<List<OrderAck>> sink;
+
+    /**
+     * @param orders nalog po poziciji u zahtevu, null za odbijene
+     * @param rejections razlog odbijanja po poziciji
+     * @param published broj potvrda koje treba sacekati od engine-a
+     */
+    BatchAck(Order[] orders, String[] rejections, int published, MonoSink<List<OrderAck>> sink) {
+        this.orders = orders;
+        this.rejections = rejections;
+        this.pending = new AtomicInteger(published);
+        this.sink = sink;
+    }
+
+    @Override
+    public void onAccepted(Order order) {
+        if (pending.decrementAndGet() == 0) {
+            complete();
+        }
+    }
+
+    @Override
+    public void onFailed(Order order, Exception error) {
+        failures.add(order);
+        if (pending.decrementAndGet() == 0) {
+            complete();
+        }
+    }
+
+    /**
+     * Engine nije primio naloge
+     * @param awaited da li su ovi nalozi uracunati u potvrde koje se cekaju
+     */
+    void onBusy(List<Order> rejected, boolean awaited) {
+        busy.addAll(rejected);
+        if (awaited && pending.addAndGet(-rejected.size()) == 0) {
+            complete();
+        }
+    }
+
+    /**
+     * Napravi potvrde i zavrsi sink; engine ga poziva sam kad stigne poslednja potvrda.
+     */
+    void complete() {
+        List<OrderAck> acks = new ArrayList<>(orders.length);
+        for (int i = 0; i < orders.length; i++) {
+            Order order = orders[i];
+            if (order == null) {
+                acks.add(new OrderAck(i, AckStatus.INVALID, 0, rejections[i]));
+            } else if (busy.contains(order)) {
+                acks.add(new OrderAck(i, AckStatus.BUSY, 0, "Engine busy, retry later"));
+            } else if (failures.contains(order)) {
+                acks.add(new OrderAck(i, AckStatus.FAILED, 0, "Journal write failed"));
+            } else {
+                acks.add(new OrderAck(i, AckStatus.ACCEPTED, order.getId(), null));
+            }
+        }
+        sink.success(acks);
+    }
+}
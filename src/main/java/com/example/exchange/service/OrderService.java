@@ -1,18 +1,46 @@
 package com.example.exchange.service;
 
+import com.example.exchange.controller.JsonEncoder;
 import com.example.exchange.controller.OrderWebSocketHandler;
+import com.example.exchange.engine.AckListener;
+import com.example.exchange.engine.BookView;
+import com.example.exchange.engine.CancelListener;
+import com.example.exchange.engine.EngineBusyException;
+import com.example.exchange.engine.Histogram;
+import com.example.exchange.engine.IdGenerator;
+import com.example.exchange.engine.MatchingEngine;
+import com.example.exchange.engine.OrderBook;
+import com.example.exchange.engine.OrderPool;
+import com.example.exchange.engine.WaitStrategy;
+import com.example.exchange.events.BookFeed;
+import com.example.exchange.events.CandleFeed;
+import com.example.exchange.events.EventStage;
+import com.example.exchange.events.TradeEvent;
+import com.example.exchange.events.TradeEventBus;
+import com.example.exchange.history.CandleAggregator;
+import com.example.exchange.history.CandleSeries;
+import com.example.exchange.history.TradeHistory;
+import com.example.exchange.journal.*;
 import com.example.exchange.model.*;
+import com.example.exchange.replay.OrderRecorder;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.function.Function;
 
 import org.springframework.stereotype.Service;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
 @Service
@@ -21,284 +49,1171 @@ public class OrderService {
     @Value("${dummy.orders.enabled:false}")
     private boolean dummyOrdersEnabled;
 
-    private final List<MatchRecord> matchHistory = new CopyOnWriteArrayList<>();
-    private ExecutorService executorService;
+    @Value("${engine.wait-strategy:PARK}")
+    private WaitStrategy waitStrategy = WaitStrategy.PARK;
 
-    // Za BUY naloge – key je cena, sortiramo od najveće ka manjoj (reverseOrder)
-    private final ConcurrentSkipListMap<Double, Queue<Order>> buyOrders =
-            new ConcurrentSkipListMap<>(Comparator.reverseOrder());
+    // kad red engine-a predje high, nalozi se odbijaju dok ne padne na low
+    @Value("${engine.admission.high-watermark:12288}")
+    private int highWatermark = 12_288;
 
-    // Za SELL naloge – key je cena, ascending (podrazumevano)
-    private final ConcurrentSkipListMap<Double, Queue<Order>> sellOrders =
-            new ConcurrentSkipListMap<>();
+    @Value("${engine.admission.low-watermark:8192}")
+    private int lowWatermark = 8_192;
+
+    @Value("${engine.tick-size:0.01}")
+    private double defaultTickSize = 0.01;
+
+    // Tick po simbolu, npr. engine.tick-sizes={'AAPL':0.01,'BRK.A':1}
+    @Value("#{${engine.tick-sizes:{:}}}")
+    private Map<String, Double> tickSizes = Map.of();
+
+    private final Map<String, TickSize> resolvedTickSizes = new ConcurrentHashMap<>();
+
+
+    @Value("${journal.enabled:false}")
+    private boolean journalEnabled;
+
+    @Value("${journal.path:data/journal.dat}")
+    private String journalPath = "data/journal.dat";
+
+    @Value("${journal.flush-mode:ASYNC}")
+    private FlushMode journalFlushMode = FlushMode.ASYNC;
+
+    @Value("${journal.flush-interval-ms:10}")
+    private long journalFlushIntervalMs = 10;
+
+    @Value("${snapshot.enabled:false}")
+    private boolean snapshotEnabled;
+
+    @Value("${snapshot.directory:data/snapshots}")
+    private String snapshotDirectory = "data/snapshots";
+
+    @Value("${snapshot.interval-seconds:60}")
+    private long snapshotIntervalSeconds = 60;
+
+    @Value("${snapshot.retained:2}")
+    private int snapshotsRetained = 2;
+
+    private OrderJournal journal;
+
+    // prelazi sa engine niti (potvrde iz journal-a) i blokirajuca citanja arhive na virtuelnim nitima;
+    // zahteva Java 21, na starijem JVM-u ostaju parallel i boundedElastic
+    @Value("${execution.virtual-threads:false}")
+    private boolean virtualThreads = false;
+
+    private ExecutorService virtualExecutor;
+    private Scheduler ackScheduler = Schedulers.parallel();
+    private Scheduler blockingScheduler = Schedulers.boundedElastic();
+    private SnapshotStore snapshotStore;
+    private ScheduledExecutorService snapshotter;
+
+    private volatile long lastSnapshotPosition = -1;
+    private volatile long lastSnapshotTimestamp;
+    private volatile long lastSnapshotMillis = -1;
+    private volatile long lastRecoveryMillis = -1;
+    private volatile long recoveredSnapshotPosition = -1;
+    private volatile long replayedRecords;
+
+    // true dok se knjige obnavljaju iz journal-a – tada se ne salje broadcast
+    private volatile boolean replaying;
+
+    // snimanje prihvacenih naloga za ReplayTool
+    @Value("${recorder.enabled:false}")
+    private boolean recorderEnabled;
+
+    @Value("${recorder.path:data/orders.rec}")
+    private String recorderPath = "data/orders.rec";
+
+    private volatile OrderRecorder recorder;
+
+    @Value("${history.ring-capacity:65536}")
+    private int historyCapacity = 65_536;
+
+    // prazno = privremeni direktorijum
+    @Value("${history.archive-directory:}")
+    private String historyArchiveDirectory = "";
+
+    // poslednji trejdovi u memoriji, stariji u arhivi na disku
+    private TradeHistory matchHistory = new TradeHistory(historyCapacity);
+
+    @Value("${events.buffer-size:16384}")
+    private int eventBufferSize = 16_384;
+
+    @Value("${events.wait-strategy:PARK}")
+    private WaitStrategy eventWaitStrategy = WaitStrategy.PARK;
+
+    // trejdovi se sa engine niti samo objave; istorija, log i broadcast rade na svojim nitima
+    private TradeEventBus tradeBus;
+
+    // Knjiga po simbolu – svaku menja samo engine nit kojoj je simbol dodeljen
+    private final Map<String, OrderBook> books = new ConcurrentHashMap<>();
+
+    // Inkrementalni feed po simbolu, prati ga SUBSCRIBE_BOOK
+    private final Map<String, BookFeed> feeds = new ConcurrentHashMap<>();
+
+    @Value("${candles.intervals:1s,1m,5m,1h}")
+    private String candleIntervals = "1s,1m,5m,1h";
+
+    @Value("${candles.capacity:1440}")
+    private int candleCapacity = 1_440;
+
+    // OHLCV barovi; azurira ih faza candles, feed-ove flush-uje BookFeedFlusher
+    private volatile CandleAggregator candles = createCandles();
+    private final Map<String, CandleFeed> candleFeeds = new ConcurrentHashMap<>();
+
+    // broj nivoa po strani u pogledu koji engine objavljuje posle svakog batch-a;
+    // to je i najveca dubina koju API prima, jer se knjiga nikad ne cita van engine niti
+    @Value("${engine.view-depth:50}")
+    private int viewDepth = 50;
+
+    // interval u kom se promene nivoa spajaju u jednu deltu
+    @Value("${book-feed.interval-ms:50}")
+    private long bookFeedIntervalMs = 50;
+
+    private ScheduledExecutorService bookFeedFlusher;
 
     private OrderWebSocketHandler webSocketHandler;
 
-    private final BlockingQueue<Order> orderQueue = new LinkedBlockingQueue<>(10_000);
-    private static final int WORKER_COUNT = Runtime.getRuntime().availableProcessors();
+    // upisuju ih niti faza history i broadcast
+    private final Histogram historyAppendTime = new Histogram();
+    private final Histogram broadcastTime = new Histogram();
+
+    private static final int RING_CAPACITY = 16_384;
+    private static final int SHARD_COUNT = Runtime.getRuntime().availableProcessors();
+    public static final int DEFAULT_DEPTH = 10;
+    public static final int MAX_DEPTH = 1_000;
+    private static final long MAX_PRICE_TICKS = 1L << 40;
+
+    // Jedan single-writer engine po jezgru; simbol je uvek na istom engine-u (hash)
+    private final MatchingEngine[] engines = new MatchingEngine[SHARD_COUNT];
+
+    // knjige promenjene u tekucem batch-u, po engine-u; koristi ih samo nit tog engine-a
+    private final List<List<OrderBook>> staleViews = new ArrayList<>(SHARD_COUNT);
+
+    public OrderService() {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            int shard = i;
+            engines[i] = new MatchingEngine("MatchingEngine-" + i, RING_CAPACITY, this::match, this::applyCancel);
+            engines[i].setIdGenerator(new IdGenerator(i));
+            engines[i].setBatchListener(() -> publishViews(shard));
+            staleViews.add(new ArrayList<>());
+        }
+    }
 
     /**
-     * Dodaj novi nalog (asinkrono)
+     * Dodaj novi nalog bez blokiranja. Ako je engine preopterecen, Mono odmah zavrsava sa
+     * EngineBusyException; ako je journal ukljucen, potvrda stize tek kad engine upise nalog.
      * @param order
      * @return
      */
     public Mono<Order> addOrder(Order order) {
-        return Mono.fromCallable(() -> {
-
-            int attempts = 0;
-            boolean added = false;
+        Mono<Order> accepted = Mono.<Order>create(sink -> {
+            toTicks(order);
+            MatchingEngine engine = engineFor(order.getSymbol());
 
-            while (!added) {
-                added = orderQueue.offer(order, 500, TimeUnit.MILLISECONDS);
-                attempts++;
-
-                if (!added) {
-                    logger.warn("Queue full – pokusaj {}/3 za nalog: {}", attempts, order);
-                }
+            boolean journaled = engine.isJournaled();
+            if (!publish(engine, order, journaled ? AckListener.of(sink) : null)) {
+                sink.error(new EngineBusyException("Engine busy, retry later"));
+                return;
+            }
+            if (!journaled) {
+                sink.success(order);
             }
 
-            logger.info("Nalog dodat u red: {}", order);
-            return order;
-        }).subscribeOn(Schedulers.boundedElastic()); /// offer je izbacivao upozorenje za moguce izgladnjivanje i sa ovim mu kazemo da koristimo non-blocking okruzenje
+            logger.debug("Nalog dodat u red: {}", order);
+        });
+
+        // potvrda iz journal-a stize na engine niti – ne zelimo da se odgovor serijalizuje na njoj
+        return journal != null ? accepted.publishOn(ackScheduler) : accepted;
     }
 
     /**
-     * top 10 BUY i SELL naloga
-     * @return
+     * Otkazi nalog iz knjige. Prolazi kroz engine (i journal) kao i novi nalozi,
+     * pa je redosled u odnosu na uparivanje deterministican.
+     * @param symbol simbol naloga – odredjuje engine
+     * @param orderId
+     * @return CANCELLED sa otkazanom kolicinom ili NOT_FOUND
      */
-    public Mono<TopOrdersResponse> getTopOrders() {
-        return Mono.fromCallable(() -> {
-            List<PriceLevel> topBuys = getTopNByPriceLevels(buyOrders, 10);
-            List<PriceLevel> topSells = getTopNByPriceLevels(sellOrders, 10);
-            return new TopOrdersResponse(topBuys, topSells);
-        });
+    public Mono<CancelResult> cancelOrder(String symbol, long orderId) {
+        return modifyOrder(symbol, orderId, 0);
     }
 
-    private List<PriceLevel> getTopNByPriceLevels(ConcurrentSkipListMap<Double, Queue<Order>> map, int n) {
-        List<PriceLevel> result = new ArrayList<>(n);
-        int levels = 0;
+    /**
+     * Smanji preostalu kolicinu naloga u knjizi; nalog zadrzava svoje mesto u redu.
+     * @param symbol simbol naloga – odredjuje engine
+     * @param orderId
+     * @param quantity nova preostala kolicina, najmanje 1 i najvise trenutna
+     * @return AMENDED, NOT_FOUND ili REJECTED ako bi se kolicina povecala
+     */
+    public Mono<CancelResult> amendOrder(String symbol, long orderId, int quantity) {
+        if (quantity < 1) {
+            return Mono.error(new IllegalArgumentException("Quantity must be at least 1"));
+        }
+        return modifyOrder(symbol, orderId, quantity);
+    }
 
-        for (Map.Entry<Double, Queue<Order>> entry : map.entrySet()) {
-            double price = entry.getKey();
-            Queue<Order> orders = entry.getValue();
+    private Mono<CancelResult> modifyOrder(String symbol, long orderId, int quantity) {
+        if (symbol == null || !symbol.matches(OrderRequest.SYMBOL_REGEX)) {
+            return Mono.error(new IllegalArgumentException("Symbol must be 1-16 letters, digits, '.', '_' or '-'"));
+        }
+        return Mono.<CancelResult>create(sink -> {
+            CancelListener listener = new CancelListener() {
+                @Override
+                public void onResult(long id, int result) {
+                    sink.success(toCancelResult(symbol, id, quantity, result));
+                }
 
-            if (orders.isEmpty()) {
-                continue;
+                @Override
+                public void onFailed(long id, Exception error) {
+                    sink.error(error);
+                }
+            };
+            if (!publishCancel(engineFor(symbol), symbol, orderId, quantity, listener)) {
+                sink.error(new EngineBusyException("Engine busy, retry later"));
             }
+        }).publishOn(ackScheduler); // rezultat stize na engine niti
+    }
 
-            int totalAmount = orders.stream()
-                    .mapToInt(Order::getAmount)
-                    .sum();
-
-            OrderType type = orders.peek().getType();
+    /*
+     * Predaja engine-u; dok se snima, predaja i upis u snimak su pod monitorom rekordera,
+     * pa je redosled u snimku isti kao redosled u ring buffer-ima.
+     */
 
-            result.add(new PriceLevel(price, totalAmount, type));
+    private boolean publish(MatchingEngine engine, Order order, AckListener ack) {
+        OrderRecorder recorder = this.recorder;
+        if (recorder == null) {
+            return engine.tryPublish(order, ack);
+        }
+        synchronized (recorder) {
+            boolean published = engine.tryPublish(order, ack);
+            if (published) {
+                recorder.newOrder(order);
+            }
+            return published;
+        }
+    }
 
-            levels++;
-            if (levels >= n) break;
+    private boolean publishAll(MatchingEngine engine, List<Order> orders, AckListener ack) {
+        OrderRecorder recorder = this.recorder;
+        if (recorder == null) {
+            return engine.tryPublishAll(orders, ack);
+        }
+        synchronized (recorder) {
+            boolean published = engine.tryPublishAll(orders, ack);
+            if (published) {
+                for (Order order : orders) {
+                    recorder.newOrder(order);
+                }
+            }
+            return published;
         }
+    }
 
-        return result;
+    private boolean publishCancel(MatchingEngine engine, String symbol, long orderId, int quantity, CancelListener listener) {
+        OrderRecorder recorder = this.recorder;
+        if (recorder == null) {
+            return engine.tryCancel(symbol, orderId, quantity, listener);
+        }
+        synchronized (recorder) {
+            boolean published = engine.tryCancel(symbol, orderId, quantity, listener);
+            if (published && quantity == 0) {
+                recorder.cancel(symbol, orderId);
+            } else if (published) {
+                recorder.amend(symbol, orderId, quantity);
+            }
+            return published;
+        }
     }
 
-    private void addToMap(ConcurrentSkipListMap<Double, Queue<Order>> map, Order order) {
-        map.computeIfAbsent(order.getPrice(), k -> new ConcurrentLinkedQueue<>()).offer(order);
+    private static CancelResult toCancelResult(String symbol, long orderId, int quantity, int result) {
+        if (result == OrderBook.NOT_FOUND) {
+            return new CancelResult(orderId, symbol, CancelStatus.NOT_FOUND, 0);
+        }
+        if (result == OrderBook.REJECTED) {
+            return new CancelResult(orderId, symbol, CancelStatus.REJECTED, 0);
+        }
+        return new CancelResult(orderId, symbol, quantity == 0 ? CancelStatus.CANCELLED : CancelStatus.AMENDED, result);
     }
 
     /**
-     * Prolazimo kroz mapu dok ne skupimo N naloga
-     * @param map
-     * @param n
-     * @return
+     * Poziva se na engine niti.
      */
-    private List<Order> getTopN(ConcurrentSkipListMap<Double, List<Order>> map, int n) {
-        List<Order> result = new ArrayList<>(n);
-        for (Map.Entry<Double, List<Order>> entry : map.entrySet()) {
-            for (Order o : entry.getValue()) {
-                if (result.size() >= n) break;
-                result.add(o);
-            }
-            if (result.size() >= n) break;
+    private int applyCancel(String symbol, long orderId, int quantity) {
+        OrderBook book = books.get(symbol);
+        if (book == null) {
+            return OrderBook.NOT_FOUND;
         }
-        return result;
+        // pre izmene, da BookFeed ne bi uzeo pogled koji je ne sadrzi
+        viewChanged(engineIndex(symbol), book);
+        return quantity == 0 ? book.cancel(orderId) : book.amend(orderId, quantity);
     }
 
-    private void match(Order incomingOrder) {
-        if (incomingOrder.getType() == OrderType.BUY) {
-            matchBuyOrder(incomingOrder);
-        } else {
-            matchSellOrder(incomingOrder);
+    /**
+     * Poziva se na engine niti pre izmene knjige; pogled se objavljuje na kraju batch-a.
+     */
+    private void viewChanged(int shard, OrderBook book) {
+        if (book.markViewStale()) {
+            staleViews.get(shard).add(book);
         }
     }
 
-    private void matchBuyOrder(Order buyOrder) {
-        while (buyOrder.getAmount() > 0 && !sellOrders.isEmpty()) {
-            Map.Entry<Double, Queue<Order>> bestSellEntry = sellOrders.firstEntry();
-            double bestSellPrice = bestSellEntry.getKey();
-            Queue<Order> sellQueue = bestSellEntry.getValue();
+    /**
+     * Kraj batch-a na engine niti: jedan novi pogled po promenjenoj knjizi, bez obzira na broj naloga.
+     */
+    private void publishViews(int shard) {
+        List<OrderBook> stale = staleViews.get(shard);
+        for (int i = 0; i < stale.size(); i++) {
+            stale.get(i).publishView(viewDepth);
+        }
+        stale.clear();
+    }
 
-            Order sellOrder = sellQueue.peek();
-            if (sellOrder == null) {
-                sellOrders.remove(bestSellPrice);
-                continue;
-            }
+    public static final int MAX_BATCH_SIZE = 1_000;
 
-            if (buyOrder.getPrice() >= sellOrder.getPrice()) {
-                int matchedAmount = Math.min(buyOrder.getAmount(), sellOrder.getAmount());
+    /**
+     * Dodaj vise naloga odjednom. Nalozi se validiraju u jednom prolazu (neispravni dobijaju INVALID
+     * potvrdu, ostali idu dalje), a svaki engine dobija svoje naloge jednim zauzimanjem ring buffer-a.
+     * Nalozi za preopterecen engine dobijaju BUSY potvrdu.
+     * @param requests
+     * @return potvrda po nalogu, istim redosledom kao u zahtevu
+     */
+    public Mono<List<OrderAck>> addOrders(List<OrderRequest> requests) {
+        if (requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            return Mono.error(new IllegalArgumentException("Batch must contain between 1 and " + MAX_BATCH_SIZE + " orders"));
+        }
+        Mono<List<OrderAck>> acks = Mono.<List<OrderAck>>create(sink -> {
+            int size = requests.size();
+            Order[] orders = new Order[size];
+            String[] rejections = new String[size];
+            @SuppressWarnings("unchecked")
+            List<Order>[] perEngine = new List[engines.length];
+            int published = 0;
 
-                logMatch(buyOrder, sellOrder, matchedAmount);
+            for (int i = 0; i < size; i++) {
+                OrderRequest request = requests.get(i);
+                String error = request != null ? request.validate() : "Order must be provided";
+                if (error != null) {
+                    rejections[i] = error;
+                    continue;
+                }
+                Order order = request.toOrder();
+                try {
+                    toTicks(order);
+                } catch (IllegalArgumentException e) {
+                    rejections[i] = e.getMessage();
+                    continue;
+                }
+                orders[i] = order;
 
-                buyOrder = new Order(buyOrder.getPrice(), buyOrder.getAmount() - matchedAmount, buyOrder.getType());
-                Order updatedSell = new Order(sellOrder.getPrice(), sellOrder.getAmount() - matchedAmount, sellOrder.getType());
+                int shard = engineIndex(order.getSymbol());
+                if (perEngine[shard] == null) {
+                    perEngine[shard] = new ArrayList<>();
+                }
+                perEngine[shard].add(order);
+                published++;
+            }
 
-                sellQueue.poll(); // ukloni stari
-                if (updatedSell.getAmount() > 0) {
-                    sellQueue.offer(updatedSell); // dodaj novi
+            boolean journaled = journal != null;
+            BatchAck batchAck = new BatchAck(orders, rejections, journaled ? published : 0, sink);
+            for (int shard = 0; shard < perEngine.length; shard++) {
+                if (perEngine[shard] != null
+                        && !publishAll(engines[shard], perEngine[shard], journaled ? batchAck : null)) {
+                    batchAck.onBusy(perEngine[shard], journaled);
                 }
+            }
+            // bez journal-a potvrda ide odmah posle predaje, kao kod pojedinacnog naloga
+            if (!journaled || published == 0) {
+                batchAck.complete();
+            }
+            logger.debug("Batch od {} naloga, {} prosledjeno engine-ima", size, published);
+        });
 
-                cleanUpIfEmpty(sellOrders, bestSellPrice);
+        return journal != null ? acks.publishOn(ackScheduler) : acks;
+    }
 
-            } else {
-                break;
+    /**
+     * top 10 BUY i SELL nivoa za simbol
+     * @param symbol
+     * @return
+     */
+    public Mono<TopOrdersResponse> getTopOrders(String symbol) {
+        return getTopOrders(symbol, DEFAULT_DEPTH);
+    }
+
+    /**
+     * prvih depth BUY i SELL nivoa za simbol, iz poslednjeg pogleda koji je engine objavio;
+     * depth je najvise engine.view-depth
+     * @param symbol
+     * @param depth
+     * @return
+     */
+    public Mono<TopOrdersResponse> getTopOrders(String symbol, int depth) {
+        if (depth < 1 || depth > viewDepth) {
+            return Mono.error(new IllegalArgumentException("Depth must be between 1 and " + viewDepth));
+        }
+        return Mono.fromCallable(() -> {
+            OrderBook book = books.get(symbol);
+            BookView view = book != null ? book.getView() : null;
+            if (view == null) {
+                return new TopOrdersResponse(List.of(), List.of());
             }
+            return view.toTopOrders(depth);
+        });
+    }
+
+    /**
+     * Isto sto i getTopOrders, vec serijalizovano u JSON; bajtovi se kesiraju u pogledu,
+     * pa se isti upit izmedju dva batch-a ne serijalizuje ponovo
+     * @param symbol
+     * @param depth
+     * @return
+     */
+    public Mono<byte[]> getTopOrdersJson(String symbol, int depth) {
+        if (depth < 1 || depth > viewDepth) {
+            return Mono.error(new IllegalArgumentException("Depth must be between 1 and " + viewDepth));
         }
+        return Mono.fromCallable(() -> {
+            OrderBook book = books.get(symbol);
+            BookView view = book != null ? book.getView() : null;
+            if (view == null) {
+                return toJson(new TopOrdersResponse(List.of(), List.of()));
+            }
+            return view.encoded(depth, this::toJson);
+        });
+    }
 
-        if (buyOrder.getAmount() > 0) {
-            addToMap(buyOrders, buyOrder);
+    private byte[] toJson(TopOrdersResponse top) {
+        return JsonEncoder.local().topOrders(top).toByteArray();
+    }
+
+    /**
+     * Najbolja BUY i SELL cena sa kolicinama, iz poslednjeg objavljenog pogleda – O(1)
+     * @param symbol
+     * @return
+     */
+    public BestBidOffer getBestBidOffer(String symbol) {
+        OrderBook book = books.get(symbol);
+        BookView view = book != null ? book.getView() : null;
+        if (view == null) {
+            return new BestBidOffer(symbol, 0, null, 0, null, 0);
         }
+        return new BestBidOffer(symbol, view.getVersion(),
+                view.hasBid() ? view.getBidPrice() : null, view.hasBid() ? view.getBidQuantity() : 0,
+                view.hasAsk() ? view.getAskPrice() : null, view.hasAsk() ? view.getAskQuantity() : 0);
     }
 
-    private void matchSellOrder(Order sellOrder) {
-        while (sellOrder.getAmount() > 0 && !buyOrders.isEmpty()) {
-            Map.Entry<Double, Queue<Order>> bestBuyEntry = buyOrders.firstEntry();
-            double bestBuyPrice = bestBuyEntry.getKey();
-            Queue<Order> buyQueue = bestBuyEntry.getValue();
+    public Set<String> getSymbols() {
+        return Collections.unmodifiableSet(books.keySet());
+    }
 
-            Order buyOrder = buyQueue.peek();
-            if (buyOrder == null) {
-                buyOrders.remove(bestBuyPrice);
-                continue;
-            }
+    /**
+     * Cena u tick-ove na ulazu, da engine radi samo sa long vrednostima; cena van tick-a se odbija
+     * @param order
+     */
+    private void toTicks(Order order) {
+        order.applyTickSize(tickSizeFor(order.getSymbol()));
+        if (order.getPriceTicks() < 0 || order.getPriceTicks() > MAX_PRICE_TICKS) {
+            throw new IllegalArgumentException("Price out of range: " + order.getPrice());
+        }
+    }
+
+    private TickSize tickSizeFor(String symbol) {
+        return resolvedTickSizes.computeIfAbsent(symbol, s -> {
+            Double tickSize = tickSizes.get(s);
+            return TickSize.of(tickSize != null ? tickSize : defaultTickSize);
+        });
+    }
 
-            if (buyOrder.getPrice() >= sellOrder.getPrice()) {
-                int matchedAmount = Math.min(sellOrder.getAmount(), buyOrder.getAmount());
+    private MatchingEngine engineFor(String symbol) {
+        return engines[engineIndex(symbol)];
+    }
 
-                logMatch(buyOrder, sellOrder, matchedAmount);
+    private int engineIndex(String symbol) {
+        return Math.floorMod(symbol.hashCode(), engines.length);
+    }
 
-                sellOrder = new Order(sellOrder.getPrice(), sellOrder.getAmount() - matchedAmount, sellOrder.getType());
-                Order updatedBuy = new Order(buyOrder.getPrice(), buyOrder.getAmount() - matchedAmount, buyOrder.getType());
+    /**
+     * Knjiga simbola; pravi se samo za nalog (engine nit) ili pri oporavku, nikad za citanje.
+     * Feed koji vec ceka na simbol se prikljucuje pod istim zakljucavanjem kljuca kao u subscribeBook.
+     */
+    private OrderBook bookFor(String symbol) {
+        return books.computeIfAbsent(symbol, s -> {
+            OrderBook book = new OrderBook(s, tickSizeFor(s), engineFor(s).getOrderPool(),
+                    engineFor(s).getIdGenerator(), this::logMatch);
+            BookFeed feed = feeds.get(s);
+            if (feed != null) {
+                feed.attach(book);
+            }
+            return book;
+        });
+    }
 
-                buyQueue.poll();
-                if (updatedBuy.getAmount() > 0) {
-                    buyQueue.offer(updatedBuy);
+    /**
+     * Snapshot prvih depth nivoa knjige (iz objavljenog pogleda, pa najvise engine.view-depth),
+     * pa delte promenjenih nivoa sa rastucim rednim brojem.
+     * @param symbol
+     * @param depth
+     * @return
+     */
+    public Flux<BookDelta> subscribeBook(String symbol, int depth) {
+        if (depth < 1 || depth > viewDepth) {
+            return Flux.error(new IllegalArgumentException("Depth must be between 1 and " + viewDepth));
+        }
+        if (symbol == null || !symbol.matches(OrderRequest.SYMBOL_REGEX)) {
+            return Flux.error(new IllegalArgumentException("Symbol must be 1-16 letters, digits, '.', '_' or '-'"));
+        }
+        return Flux.defer(() -> {
+            // compute na kljucu knjige: prikljucivanje ne moze da se mimoidje sa pravljenjem knjige u bookFor
+            BookFeed[] registered = new BookFeed[1];
+            books.compute(symbol, (s, book) -> {
+                BookFeed feed = feeds.computeIfAbsent(s, key -> new BookFeed(key, tickSizeFor(key)));
+                if (book != null) {
+                    feed.attach(book);
                 }
+                feed.retain();
+                registered[0] = feed;
+                return book;
+            });
+            return registered[0].subscribe(depth).doFinally(signal -> releaseFeed(symbol));
+        });
+    }
 
-                cleanUpIfEmpty(buyOrders, bestBuyPrice);
+    /**
+     * Posle poslednjeg pretplatnika feed se odvaja od knjige i uklanja.
+     */
+    private void releaseFeed(String symbol) {
+        books.compute(symbol, (s, book) -> {
+            feeds.computeIfPresent(s, (key, feed) -> {
+                if (!feed.release()) {
+                    return feed;
+                }
+                feed.detach();
+                feed.close();
+                return null;
+            });
+            return book;
+        });
+    }
 
-            } else {
-                break;
+    private void flushBookFeeds() {
+        for (BookFeed feed : feeds.values()) {
+            try {
+                feed.flush();
+            } catch (Exception e) {
+                logger.error("Greska pri slanju delte knjige", e);
             }
         }
+    }
+
+    private void match(Order incomingOrder) {
+        OrderBook book = bookFor(incomingOrder.getSymbol());
+        int shard = engineIndex(incomingOrder.getSymbol());
+        viewChanged(shard, book);
+        long sequence = book.getTradeSequence();
+        book.match(incomingOrder);
+        engines[shard].getFillsPerOrder().record(book.getTradeSequence() - sequence);
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+
+    /**
+     * Poziva se na engine niti – samo objavljuje trejd na bus, bez I/O i bez alokacije.
+     */
+    private void logMatch(String symbol, long sequence, long tradeId, long buyOrderId, long sellOrderId,
+                          double buyPrice, double sellPrice, double price, int amount) {
+        tradeBus.publish(symbol, sequence, tradeId, buyOrderId, sellOrderId, buyPrice, sellPrice, price, amount,
+                System.currentTimeMillis(), replaying);
+    }
+
+    /**
+     * Faze obrade trejdova. Istorija (sa arhivom na disku) i barovi su lossless i usporavaju engine kad zaostanu;
+     * log i broadcast odbacuju dogadjaje kad im je buffer pun i to broje.
+     */
+    private TradeEventBus createTradeBus() {
+        return new TradeEventBus()
+                .addStage(new EventStage("history", eventBufferSize, true, eventWaitStrategy, this::recordMatch))
+                .addStage(new EventStage("candles", eventBufferSize, true, eventWaitStrategy, this::recordCandle))
+                .addStage(new EventStage("log", eventBufferSize, false, eventWaitStrategy, this::printMatch))
+                .addStage(new EventStage("broadcast", eventBufferSize, false, eventWaitStrategy, this::broadcastMatch));
+    }
+
+    private void recordMatch(TradeEvent event) {
+        long start = System.nanoTime();
+        matchHistory.append(event.getSequence(), event.getTradeId(), event.getSymbol(), event.getBuyOrderId(),
+                event.getSellOrderId(), event.getBuyPrice(), event.getSellPrice(), event.getAmount(), event.getTimestamp());
+        historyAppendTime.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Trejdovi iz journal-a pri startu nemaju originalno vreme, pa ne ulaze u barove.
+     */
+    private void recordCandle(TradeEvent event) {
+        if (!event.isReplay()) {
+            candles.onTrade(event.getSymbol(), event.getPrice(), event.getAmount(), event.getTimestamp());
+        }
+    }
 
-        if (sellOrder.getAmount() > 0) {
-            addToMap(sellOrders, sellOrder);
+    private CandleAggregator createCandles() {
+        Map<String, Duration> intervals = new LinkedHashMap<>();
+        for (String interval : candleIntervals.split(",")) {
+            String name = interval.trim();
+            if (!name.isEmpty()) {
+                intervals.put(name, DurationStyle.detectAndParse(name));
+            }
         }
+        return new CandleAggregator(intervals, candleCapacity);
     }
 
-    private void cleanUpIfEmpty(ConcurrentSkipListMap<Double, Queue<Order>> map, double price) {
-        Queue<Order> queue = map.get(price);
-        if (queue != null && queue.isEmpty()) {
-            map.remove(price);
+    /**
+     * OHLCV barovi simbola sa pocetkom u [from, to], najvise limit poslednjih, rastucim redom.
+     * @param interval jedan od candles.intervals, npr. "1m"; null za prvi
+     * @return
+     */
+    public List<Candle> getCandles(String symbol, String interval, long from, long to, int limit) {
+        if (interval == null) {
+            interval = candles.getIntervals().iterator().next();
+        }
+        if (symbol == null || !symbol.matches(OrderRequest.SYMBOL_REGEX)) {
+            throw new IllegalArgumentException("Symbol must be 1-16 letters, digits, '.', '_' or '-'");
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
         }
+        CandleSeries series = candles.series(symbol, interval);
+        return series != null ? series.range(from, to, limit) : List.of();
     }
 
-    private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
+    /**
+     * Trenutni bar, pa izmene barova najvise jednom po book-feed.interval-ms. Feed postoji samo dok
+     * ima pretplatnika, a serija se ne pravi dok simbol nema trejd.
+     */
+    public Flux<Candle> subscribeCandles(String symbol, String interval) {
+        return Flux.defer(() -> {
+            if (symbol == null || !symbol.matches(OrderRequest.SYMBOL_REGEX)) {
+                throw new IllegalArgumentException("Symbol must be 1-16 letters, digits, '.', '_' or '-'");
+            }
+            candles.series(symbol, interval); // samo provera intervala
+            String key = symbol + "/" + interval;
+            CandleFeed feed = candleFeeds.compute(key, (k, existing) -> {
+                CandleFeed current = existing != null ? existing : new CandleFeed(() -> candles.series(symbol, interval));
+                current.retain();
+                return current;
+            });
+            return feed.subscribe()
+                    .doFinally(signal -> candleFeeds.computeIfPresent(key, (k, current) -> current.release() ? null : current));
+        });
+    }
 
-    private void logMatch(Order buyOrder, Order sellOrder, int amount) {
-        matchHistory.add(new MatchRecord(buyOrder.getPrice(), sellOrder.getPrice(), amount));
+    public Set<String> getCandleIntervals() {
+        return candles.getIntervals();
+    }
+
+    private void flushCandleFeeds() {
+        for (CandleFeed feed : candleFeeds.values()) {
+            try {
+                feed.flush();
+            } catch (Exception e) {
+                logger.error("Greska pri slanju bara", e);
+            }
+        }
+    }
 
-        logger.info("MATCHED: BUY [price={}, amount={}] <--> SELL [price={}, amount={}] | Executed amount: {}",
-                buyOrder.getPrice(), buyOrder.getAmount(),
-                sellOrder.getPrice(), sellOrder.getAmount(),
-                amount
+    private void printMatch(TradeEvent event) {
+        logger.info("MATCHED {} #{}: BUY [id={}, price={}] <--> SELL [id={}, price={}] | Executed amount: {}",
+                event.getSymbol(), event.getTradeId(), event.getBuyOrderId(), event.getBuyPrice(),
+                event.getSellOrderId(), event.getSellPrice(), event.getAmount()
         );
+    }
+
+    private void broadcastMatch(TradeEvent event) {
+        if (webSocketHandler != null && !event.isReplay()) {
+            long start = System.nanoTime();
+            webSocketHandler.broadcastMatch(event.getSymbol(), event.getTradeId(), event.getBuyOrderId(),
+                    event.getSellOrderId(), event.getBuyPrice(), event.getSellPrice(), event.getAmount());
+            broadcastTime.record(System.nanoTime() - start);
+        }
+    }
 
-        if (webSocketHandler != null) {
-            webSocketHandler.broadcastMatch(buyOrder.getPrice(), sellOrder.getPrice(), amount);
+    public AdmissionStats getAdmissionStats() {
+        long queueDepth = 0;
+        long maxQueueDepth = 0;
+        int busyEngines = 0;
+        long rejected = 0;
+        double rejectedPerSecond = 0;
+        for (MatchingEngine engine : engines) {
+            long depth = engine.getQueueDepth();
+            queueDepth += depth;
+            maxQueueDepth = Math.max(maxQueueDepth, depth);
+            busyEngines += engine.isBusy() ? 1 : 0;
+            rejected += engine.getRejections().getTotal();
+            rejectedPerSecond += engine.getRejections().ratePerSecond();
         }
+        return new AdmissionStats(queueDepth, maxQueueDepth, highWatermark, lowWatermark,
+                busyEngines, rejected, rejectedPerSecond);
+    }
+
+    /**
+     * Percentili vremena po fazama (od starta servisa), dubina knjiga i redova engine-a.
+     */
+    public EngineMetrics getEngineMetrics() {
+        List<Histogram> queueWait = new ArrayList<>(engines.length);
+        List<Histogram> matchTime = new ArrayList<>(engines.length);
+        List<Histogram> fills = new ArrayList<>(engines.length);
+        long queueDepth = 0;
+        long maxQueueDepth = 0;
+        for (MatchingEngine engine : engines) {
+            queueWait.add(engine.getQueueWait());
+            matchTime.add(engine.getMatchTime());
+            fills.add(engine.getFillsPerOrder());
+            long depth = engine.getQueueDepth();
+            queueDepth += depth;
+            maxQueueDepth = Math.max(maxQueueDepth, depth);
+        }
+
+        List<BookStats> bookStats = new ArrayList<>(books.size());
+        long restingOrders = 0;
+        for (OrderBook book : books.values()) {
+            int resting = book.getRestingOrderCount();
+            restingOrders += resting;
+            bookStats.add(new BookStats(book.getSymbol(), book.getBuyLevelCount(), book.getSellLevelCount(), resting));
+        }
+        bookStats.sort(Comparator.comparing(BookStats::getSymbol));
+
+        List<HistogramStats> histograms = List.of(
+                Histogram.stats("queueWait", "ns", queueWait),
+                Histogram.stats("matchTime", "ns", matchTime),
+                Histogram.stats("fillsPerOrder", "fills", fills),
+                Histogram.stats("historyAppend", "ns", List.of(historyAppendTime)),
+                Histogram.stats("broadcastFanOut", "ns", List.of(broadcastTime)));
+        return new EngineMetrics(queueDepth, maxQueueDepth, restingOrders, histograms, bookStats);
+    }
+
+    public List<StageStats> getEventStats() {
+        TradeEventBus current = tradeBus;
+        return current != null ? current.getStats() : List.of();
     }
 
     public void setWebSocketHandler(OrderWebSocketHandler handler) {
         this.webSocketHandler = handler;
     }
 
+    /**
+     * Cela istorija u jednoj listi; REST /all ide kroz streamAllMatches
+     */
     public List<MatchRecord> getMatchHistory() {
-        return new ArrayList<>(matchHistory);
+        return matchHistory.read(0, (int) Math.min(Integer.MAX_VALUE, matchHistory.size()));
+    }
+
+    /**
+     * Svi trejdovi upisani do trenutka pretplate, citani u chunk-ovima kao streamMatches;
+     * trejdovi koji stignu tokom citanja se ne salju, pa tok uvek ima kraj
+     * @return
+     */
+    public Flux<MatchRecord> streamAllMatches() {
+        return Flux.defer(() -> streamMatches(0, MatchQuery.ALL).take(matchHistory.size()));
     }
 
     public List<MatchRecord> getLatestMatches(int limit) {
-        int total = matchHistory.size();
-        if (limit >= total) {
-            return new ArrayList<>(matchHistory);
+        return matchHistory.latest(limit);
+    }
+
+    public static final int MAX_PAGE_SIZE = 1_000;
+    private static final int HISTORY_CHUNK = 1_024;
+    private static final int MAX_SCANNED_PER_PAGE = 100_000;
+
+    /**
+     * Jedna strana istorije od cursor-a. Sa filterima se skenira najvise MAX_SCANNED_PER_PAGE trejdova,
+     * pa strana moze biti kraca i tada se nastavlja od nextCursor. Cita se na blockingScheduler-u,
+     * kao i streamMatches, jer skeniranje ide kroz arhivu na disku.
+     * @param cursor pozicija u istoriji (0 = najstariji trejd)
+     * @param limit
+     * @param query
+     * @return
+     */
+    public Mono<MatchPage> getMatches(long cursor, int limit, MatchQuery query) {
+        if (cursor < 0 || limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.error(new IllegalArgumentException("Cursor must be >= 0 and limit between 1 and " + MAX_PAGE_SIZE));
         }
-        return new ArrayList<>(matchHistory.subList(total - limit, total));
+        return Mono.fromCallable(() -> readPage(cursor, limit, query))
+                .subscribeOn(blockingScheduler); // citanje arhive blokira
     }
 
-    @PostConstruct
-    public void startWorkers() {
-        logger.info("Pokrecem {} workers...", WORKER_COUNT);
-        executorService = Executors.newFixedThreadPool(WORKER_COUNT);
-
-        for (int i = 0; i < WORKER_COUNT; i++) {
-            int finalI = i;
-            executorService.submit(() -> {
-                Thread.currentThread().setName("OrderWorker-" + finalI);
-                while (!Thread.currentThread().isInterrupted()) {
-                    try {
-                        Order order = orderQueue.take(); // čeka na red
-                        match(order);
-                        logger.debug("Obradjen nalog: {}", order);
-                        if (orderQueue.size() % 100 == 0) {
-                            logger.info("Queue size: {}", orderQueue.size());
-                        }
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt(); // označi kao prekinutu
+    private MatchPage readPage(long cursor, int limit, MatchQuery query) {
+        List<MatchRecord> page = new ArrayList<>(limit);
+        long position = cursor;
+        long scanned = 0;
+
+        while (page.size() < limit && scanned < MAX_SCANNED_PER_PAGE) {
+            List<MatchRecord> chunk = matchHistory.read(position, HISTORY_CHUNK);
+            if (chunk.isEmpty()) {
+                break;
+            }
+            for (MatchRecord record : chunk) {
+                position++;
+                scanned++;
+                if (query.matches(record)) {
+                    page.add(record);
+                    if (page.size() == limit) {
                         break;
-                    } catch (Exception e) {
-                        logger.error("Worker greska", e);
                     }
                 }
-            });
+            }
+        }
+        return new MatchPage(page, position, position < matchHistory.size());
+    }
+
+    /**
+     * Istorija od cursor-a kao tok koji se cita u chunk-ovima na zahtev pretplatnika,
+     * pa izvoz koristi konstantnu memoriju bez obzira na broj trejdova.
+     * @param cursor
+     * @param query
+     * @return
+     */
+    public Flux<MatchRecord> streamMatches(long cursor, MatchQuery query) {
+        if (cursor < 0) {
+            return Flux.error(new IllegalArgumentException("Cursor must be >= 0"));
         }
+        return Flux.<List<MatchRecord>, Long>generate(() -> cursor, (position, sink) -> {
+                    List<MatchRecord> chunk = matchHistory.read(position, HISTORY_CHUNK);
+                    if (chunk.isEmpty()) {
+                        sink.complete();
+                    } else {
+                        sink.next(chunk);
+                    }
+                    return position + chunk.size();
+                })
+                .concatMapIterable(chunk -> chunk)
+                .filter(query::matches)
+                .subscribeOn(blockingScheduler); // citanje arhive blokira
+    }
+
+    @PostConstruct
+    public void startWorkers() {
+        if (viewDepth < 1 || viewDepth > MAX_DEPTH) {
+            throw new IllegalStateException("engine.view-depth must be between 1 and " + MAX_DEPTH);
+        }
+        if (historyCapacity != matchHistory.getCapacity()) {
+            matchHistory = new TradeHistory(historyCapacity);
+        }
+        if (!historyArchiveDirectory.isBlank()) {
+            matchHistory.setArchiveDirectory(Path.of(historyArchiveDirectory));
+        }
+
+        if (virtualThreads) {
+            useVirtualThreads();
+        }
+
+        candles = createCandles();
+        tradeBus = createTradeBus();
+        tradeBus.start();
 
+        // dummy nalozi se ubacuju direktno u knjigu pre nego sto engine niti krenu
         if (dummyOrdersEnabled) {
             logger.info("Ubacujem dummy BUY i SELL naloge za testiranje...");
 
             Random random = new Random();
+            OrderBook book = bookFor(Order.DEFAULT_SYMBOL);
+            TickSize tick = book.getTickSize();
+            IdGenerator ids = engineFor(Order.DEFAULT_SYMBOL).getIdGenerator();
 
             for (int i = 1; i <= 20; i++) {
-                double buyPrice = 110 + random.nextDouble() * 10; // 110.0 - 120.0
+                double buyPrice = tick.toPrice(tick.nearestTicks(110 + random.nextDouble() * 10)); // 110.0 - 120.0
                 int buyAmount = 1 + random.nextInt(10); // 1 - 10
-                addToMap(buyOrders, new Order(buyPrice, buyAmount, OrderType.BUY));
+                Order buy = new Order(buyPrice, buyAmount, OrderType.BUY);
+                buy.assignId(ids.nextOrderId());
+                book.addResting(buy);
 
-                double sellPrice = 80 + random.nextDouble() * 10; // 80.0 - 90.0
+                double sellPrice = tick.toPrice(tick.nearestTicks(80 + random.nextDouble() * 10)); // 80.0 - 90.0
                 int sellAmount = 1 + random.nextInt(10); // 1 - 10
-                addToMap(sellOrders, new Order(sellPrice, sellAmount, OrderType.SELL));
+                Order sell = new Order(sellPrice, sellAmount, OrderType.SELL);
+                sell.assignId(ids.nextOrderId());
+                book.addResting(sell);
+            }
+        }
+
+        if (journalEnabled) {
+            openJournal();
+        } else if (snapshotEnabled) {
+            logger.warn("snapshot.enabled zahteva journal.enabled=true – snapshot-i iskljuceni");
+        }
+
+        if (recorderEnabled) {
+            try {
+                recorder = new OrderRecorder(Path.of(recorderPath), 1_000);
+            } catch (IOException e) {
+                throw new IllegalStateException("Snimak naloga se ne moze otvoriti: " + recorderPath, e);
+            }
+        }
+
+        bookFeedFlusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "BookFeedFlusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        bookFeedFlusher.scheduleWithFixedDelay(this::flushBookFeeds,
+                bookFeedIntervalMs, bookFeedIntervalMs, TimeUnit.MILLISECONDS);
+        bookFeedFlusher.scheduleWithFixedDelay(this::flushCandleFeeds,
+                bookFeedIntervalMs, bookFeedIntervalMs, TimeUnit.MILLISECONDS);
+
+        // knjige napunjene pre starta (dummy nalozi, journal) dobijaju prvi pogled dok engine niti ne rade
+        for (OrderBook book : books.values()) {
+            book.publishView(viewDepth);
+        }
+
+        logger.info("Pokrecem {} matching engine niti...", engines.length);
+        for (MatchingEngine engine : engines) {
+            engine.setJournal(journal);
+            engine.setWatermarks(highWatermark, lowWatermark);
+            engine.start(waitStrategy);
+        }
+    }
+
+    /**
+     * Potvrde i citanja arhive prebaci na executor sa virtuelnom niti po zadatku. Projekat se
+     * prevodi za Java 17, pa se executor trazi refleksijom; bez njega ostaju podrazumevani scheduler-i.
+     */
+    private void useVirtualThreads() {
+        try {
+            virtualExecutor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("execution.virtual-threads zahteva Java 21 (trenutno {}) – ostaju parallel i boundedElastic",
+                    Runtime.version().feature());
+            return;
+        }
+        Scheduler scheduler = Schedulers.fromExecutorService(virtualExecutor, "virtual");
+        ackScheduler = scheduler;
+        blockingScheduler = scheduler;
+        logger.info("Potvrde iz journal-a i citanje arhive idu na virtuelne niti");
+    }
+
+    public boolean isUsingVirtualThreads() {
+        return virtualExecutor != null;
+    }
+
+    /**
+     * Otvori journal i obnovi knjige: ucitaj najnoviji snapshot (ako postoji), pa ponovo upari
+     * samo naloge upisane posle njega. Radi se pre nego sto engine niti krenu (ova nit je tada jedini writer).
+     */
+    private void openJournal() {
+        try {
+            journal = new OrderJournal(Path.of(journalPath), journalFlushMode, journalFlushIntervalMs);
+
+            replaying = true;
+            long start = System.nanoTime();
+            IdGenerator[] liveIds = new IdGenerator[engines.length];
+            for (int i = 0; i < engines.length; i++) {
+                liveIds[i] = engines[i].getIdGenerator();
+            }
+            long fromPosition = 0;
+
+            if (snapshotEnabled) {
+                snapshotStore = new SnapshotStore(Path.of(snapshotDirectory), snapshotsRetained);
+                Snapshot snapshot = snapshotStore.readLatest();
+                if (snapshot != null) {
+                    for (BookSnapshot book : snapshot.getBooks()) {
+                        bookFor(book.getSymbol()).restore(book);
+                    }
+                    advanceIds(liveIds, snapshot);
+                    fromPosition = snapshot.getJournalPosition();
+                    recoveredSnapshotPosition = fromPosition;
+                    lastSnapshotPosition = fromPosition;
+                    logger.info("Ucitan snapshot na poziciji {} ({} knjiga)", fromPosition, snapshot.getBooks().size());
+                }
+            }
+
+            replayedRecords = journal.replay(fromPosition, replayListener(this::bookFor, liveIds));
+            lastRecoveryMillis = (System.nanoTime() - start) / 1_000_000;
+            logger.info("Obnovljeno {} zapisa iz journal-a za {} ms", replayedRecords, lastRecoveryMillis);
+
+            // istorija obnovljenih trejdova treba da bude kompletna pre prvog novog naloga
+            if (!tradeBus.awaitDrained(30_000)) {
+                logger.warn("Faze obrade trejdova nisu ispraznile buffer posle obnove");
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Journal se ne moze otvoriti: " + journalPath, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Prekid tokom obnove iz journal-a", e);
+        } finally {
+            replaying = false;
+        }
+
+        if (snapshotEnabled) {
+            snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "Snapshotter");
+                thread.setDaemon(true);
+                return thread;
+            });
+            snapshotter.scheduleWithFixedDelay(this::snapshotQuietly,
+                    snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Zapisi iz journal-a se primenjuju kao novi nalozi na date knjige. Knjige dodeljuju ID-jeve
+     * trejdova iz generatora svog shard-a, pa (uz isti broj shard-ova) dobijaju iste ID-jeve kao live.
+     */
+    private JournalListener replayListener(Function<String, OrderBook> books, IdGenerator[] ids) {
+        return new JournalListener() {
+            @Override
+            public void onNewOrder(long orderId, String symbol, OrderType type, double price, int amount,
+                                   TimeInForce timeInForce, OrderKind kind) {
+                Order order = new Order(symbol, price, amount, type, timeInForce, kind);
+                order.assignId(orderId);
+                order.roundToTickSize(tickSizeFor(symbol));
+                advanceOrderId(ids, orderId);
+                books.apply(symbol).match(order);
+            }
+
+            @Override
+            public void onCancel(long orderId, String symbol) {
+                books.apply(symbol).cancel(orderId);
+            }
+
+            @Override
+            public void onAmend(long orderId, String symbol, int quantity) {
+                books.apply(symbol).amend(orderId, quantity);
+            }
+        };
+    }
+
+    /**
+     * ID naloga nosi shard koji ga je dodelio; ako je shard-ova sada manje, taj prefiks se vise ne dodeljuje.
+     */
+    private static void advanceOrderId(IdGenerator[] ids, long orderId) {
+        int shard = IdGenerator.shardOf(orderId);
+        if (shard < ids.length) {
+            ids[shard].advanceOrderId(orderId);
+        }
+    }
+
+    private static void advanceIds(IdGenerator[] ids, Snapshot snapshot) {
+        for (long orderId : snapshot.getLastOrderIds()) {
+            advanceOrderId(ids, orderId);
+        }
+        for (long tradeId : snapshot.getLastTradeIds()) {
+            int shard = IdGenerator.shardOf(tradeId);
+            if (shard < ids.length) {
+                ids[shard].advanceTradeId(tradeId);
             }
         }
     }
 
+    /**
+     * Pravi novi snapshot bez zaustavljanja uparivanja: prethodni snapshot se ucita u zasebne
+     * (shadow) knjige, na njih se primene potvrdjeni zapisi iz journal-a, i rezultat se upise.
+     * Live knjige se uopste ne citaju.
+     */
+    public void takeSnapshot() throws IOException {
+        if (journal == null || snapshotStore == null) {
+            throw new IllegalStateException("Snapshot zahteva ukljucen journal i snapshot.enabled=true");
+        }
+        long start = System.nanoTime();
+
+        Map<String, OrderBook> shadow = new HashMap<>();
+        IdGenerator[] shadowIds = new IdGenerator[engines.length];
+        for (int i = 0; i < shadowIds.length; i++) {
+            shadowIds[i] = new IdGenerator(i);
+        }
+        OrderPool shadowPool = new OrderPool(0);
+        Function<String, OrderBook> shadowBookFor = symbol -> shadow.computeIfAbsent(symbol,
+                s -> new OrderBook(s, tickSizeFor(s), shadowPool, shadowIds[engineIndex(s)],
+                        (sym, seq, tradeId, buyId, sellId, buyPrice, sellPrice, price, amount) -> { }));
+
+        long fromPosition = 0;
+        Snapshot previous = snapshotStore.readLatest();
+        if (previous != null) {
+            for (BookSnapshot book : previous.getBooks()) {
+                shadowBookFor.apply(book.getSymbol()).restore(book);
+            }
+            advanceIds(shadowIds, previous);
+            fromPosition = previous.getJournalPosition();
+        }
+
+        long position = journal.readCommitted(fromPosition, replayListener(shadowBookFor, shadowIds));
+        if (previous != null && position == fromPosition) {
+            return; // nema novih zapisa
+        }
+
+        List<BookSnapshot> books = new ArrayList<>(shadow.size());
+        for (OrderBook book : shadow.values()) {
+            books.add(book.toSnapshot());
+        }
+        long[] lastOrderIds = new long[shadowIds.length];
+        long[] lastTradeIds = new long[shadowIds.length];
+        for (int i = 0; i < shadowIds.length; i++) {
+            lastOrderIds[i] = shadowIds[i].getLastOrderId();
+            lastTradeIds[i] = shadowIds[i].getLastTradeId();
+        }
+        snapshotStore.write(new Snapshot(position, lastOrderIds, lastTradeIds, books));
+
+        lastSnapshotPosition = position;
+        lastSnapshotTimestamp = System.currentTimeMillis();
+        lastSnapshotMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.info("Snapshot na poziciji {} ({} knjiga) za {} ms", position, books.size(), lastSnapshotMillis);
+    }
+
+    private void snapshotQuietly() {
+        try {
+            takeSnapshot();
+        } catch (Exception e) {
+            logger.error("Greska pri pravljenju snapshot-a", e);
+        }
+    }
+
+    public PersistenceStatus getPersistenceStatus() {
+        OrderJournal current = journal;
+        return new PersistenceStatus(current != null, current != null ? current.getCommittedPosition() : 0,
+                lastSnapshotPosition, lastSnapshotTimestamp, lastSnapshotMillis,
+                lastRecoveryMillis, recoveredSnapshotPosition, replayedRecords);
+    }
+
     @PreDestroy
     public void shutdown() {
-        logger.info("Gasenje worker niti...");
-        executorService.shutdownNow();
+        logger.info("Gasenje matching engine niti...");
         try {
-            if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
-                logger.warn("Niti nisu zavrsile na vreme – forsiram gasenje.");
+            for (MatchingEngine engine : engines) {
+                engine.stop();
+            }
+            if (tradeBus != null) {
+                tradeBus.stop(); // faze isprazne buffer pre zatvaranja istorije
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            logger.error("Prekid prilikom gasenja niti.", e);
+            logger.error("Prekid prilikom gasenja engine-a.", e);
+        }
+
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+        }
+        if (bookFeedFlusher != null) {
+            bookFeedFlusher.shutdownNow();
+        }
+        if (virtualExecutor != null) {
+            virtualExecutor.shutdown();
+        }
+        feeds.values().forEach(BookFeed::close);
+        candleFeeds.values().forEach(CandleFeed::close);
+
+        try {
+            matchHistory.close();
+        } catch (IOException e) {
+            logger.error("Greska pri zatvaranju arhive trejdova.", e);
+        }
+
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                logger.error("Greska pri zatvaranju journal-a.", e);
+            }
+        }
+
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException e) {
+                logger.error("Greska pri zatvaranju snimka naloga.", e);
+            }
         }
     }
 }
@@ -0,0 +1,61 @@
+package com.example.exchange;
+
+import com.example.exchange.controller.JsonEncoder;
+import com.example.exchange.model.Order;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.PriceLevel;
+import com.example.exchange.model.TickSize;
+import com.example.exchange.model.TopOrdersResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonEncoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testTopOrdersMatchesJackson() throws Exception {
+        TopOrdersResponse top = new TopOrdersResponse(
+                List.of(new PriceLevel(100.1, 7, 2, OrderType.BUY), new PriceLevel(99.0, 1, 1, OrderType.BUY)),
+                List.of(new PriceLevel(100.11, 3_000_000_000L, 5, OrderType.SELL)));
+        assertEquals(objectMapper.writeValueAsString(top), encode(new JsonEncoder().topOrders(top).toByteArray()));
+        assertEquals("{\"buyOrders\":[],\"sellOrders\":[]}",
+                encode(new JsonEncoder().topOrders(new TopOrdersResponse(List.of(), List.of())).toByteArray()));
+    }
+
+    @Test
+    public void testPricesAreExactAndRoundTrip() throws Exception {
+        Order order = new Order("AAPL", 101.25, 20, OrderType.BUY);
+        order.assignId(42);
+        assertEquals("{\"action\":\"ORDER_ACCEPTED\",\"payload\":{\"id\":42,\"symbol\":\"AAPL\",\"price\":101.25,"
+                + "\"amount\":20,\"type\":\"BUY\"}}", encode(new JsonEncoder().orderAccepted(order).toByteArray()));
+
+        // cene na tick-u iz sirokog opsega: isti zapis kao Double.toString dok nema eksponenta, i tacan povratak
+        JsonEncoder encoder = new JsonEncoder();
+        SplittableRandom random = new SplittableRandom(1);
+        for (double tick : new double[]{1, 0.01, 0.0005, 0.00000001}) {
+            TickSize tickSize = TickSize.of(tick);
+            for (int i = 0; i < 10_000; i++) {
+                double price = tickSize.toPrice(random.nextLong(1, 1L << 40));
+                JsonNode payload = objectMapper.readTree(
+                        encoder.orderMatched("X", 1, 2, 3, price, price, 1).toByteArray()).get("payload");
+                assertEquals(price, payload.get("buyPrice").asDouble());
+                String text = payload.get("buyPrice").asText();
+                if (price >= 1e-3 && price < 1e7) {
+                    assertEquals(Double.toString(price), text);
+                }
+            }
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+}
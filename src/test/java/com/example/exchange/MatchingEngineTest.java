@@ -0,0 +1,273 @@
+package com.example.exchange;
+
+import com.example.exchange.engine.AckListener;
+import com.example.exchange.engine.CancelListener;
+import com.example.exchange.engine.IdGenerator;
+import com.example.exchange.engine.MatchingEngine;
+import com.example.exchange.engine.OrderBook;
+import com.example.exchange.engine.OrderPool;
+import com.example.exchange.engine.WaitStrategy;
+import com.example.exchange.model.Order;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.TickSize;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchingEngineTest {
+
+    private static final TickSize TICK = TickSize.of(0.01);
+
+    @Test
+    public void testAdmissionRejectsAboveHighUntilBelowLow() throws InterruptedException {
+        AtomicInteger processed = new AtomicInteger();
+        MatchingEngine engine = new MatchingEngine("AdmissionTest", 16, order -> processed.incrementAndGet());
+        engine.setWatermarks(8, 2);
+
+        // engine jos ne radi, pa se red samo puni
+        for (int i = 0; i < 8; i++) {
+            assertTrue(engine.tryPublish(new Order(100.0, 1, OrderType.BUY), null));
+        }
+        assertFalse(engine.tryPublish(new Order(100.0, 1, OrderType.BUY), null));
+        assertTrue(engine.isBusy());
+        assertFalse(engine.tryPublishAll(List.of(new Order(100.0, 1, OrderType.BUY)), null));
+        assertEquals(2, engine.getRejections().getTotal());
+
+        engine.start(WaitStrategy.YIELD);
+        awaitEmpty(engine);
+
+        // ispod low watermark-a engine ponovo prima naloge
+        assertTrue(engine.tryPublishAll(List.of(new Order(100.0, 1, OrderType.BUY), new Order(100.0, 1, OrderType.SELL)), null));
+        assertFalse(engine.isBusy());
+
+        awaitEmpty(engine);
+        engine.stop();
+        assertEquals(10, processed.get());
+    }
+
+    @Test
+    public void testFailedCancelIsReportedToListener() throws InterruptedException {
+        MatchingEngine engine = new MatchingEngine("CancelFailureTest", 16, order -> { },
+                (symbol, orderId, quantity) -> {
+                    throw new IllegalStateException("book error");
+                });
+        engine.start(WaitStrategy.YIELD);
+
+        CompletableFuture<Exception> failure = new CompletableFuture<>();
+        assertTrue(engine.tryCancel("AAA", 7, 0, new CancelListener() {
+            @Override
+            public void onResult(long orderId, int result) {
+                failure.complete(null);
+            }
+
+            @Override
+            public void onFailed(long orderId, Exception error) {
+                failure.complete(error);
+            }
+        }));
+
+        // greska u knjizi mora da stigne do onoga ko ceka rezultat
+        assertInstanceOf(IllegalStateException.class, failure.orTimeout(5, TimeUnit.SECONDS).join());
+        engine.stop();
+    }
+
+    @Test
+    public void testStopDrainsPublishedCommands() throws InterruptedException {
+        AtomicInteger processed = new AtomicInteger();
+        MatchingEngine engine = new MatchingEngine("StopDrainTest", 256, order -> {
+            processed.incrementAndGet();
+            LockSupport.parkNanos(100_000); // spor engine, pa je red pun kad stigne stop()
+        }, (symbol, orderId, quantity) -> 0);
+        engine.start(WaitStrategy.PARK);
+        Acks acks = new Acks();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(engine.tryPublish(new Order(100.0, 1, OrderType.BUY), acks));
+        }
+        assertTrue(engine.tryCancel("AAA", 1, 0, acks));
+
+        // engine je tek na pocetku reda kad stigne stop()
+        assertTrue(engine.getQueueDepth() > 10);
+        engine.stop();
+
+        // sve sto je objavljeno pre stop()-a je obradjeno i potvrdjeno
+        assertEquals(100, processed.get());
+        assertEquals(101, acks.accepted.get());
+        assertEquals(0, acks.failed.get());
+        assertEquals(0, engine.getQueueDepth());
+        assertFalse(engine.tryPublish(new Order(100.0, 1, OrderType.BUY), acks));
+        assertFalse(engine.tryCancel("AAA", 1, 0, acks));
+    }
+
+    @Test
+    public void testStopBeforeStartFailsPendingAcks() throws InterruptedException {
+        AtomicInteger processed = new AtomicInteger();
+        MatchingEngine engine = new MatchingEngine("StopBeforeStartTest", 16, order -> processed.incrementAndGet());
+        Acks acks = new Acks();
+        assertTrue(engine.tryPublishAll(List.of(new Order(100.0, 1, OrderType.BUY), new Order(100.0, 1, OrderType.SELL)), acks));
+        assertTrue(engine.tryCancel("AAA", 1, 0, acks));
+
+        engine.stop();
+
+        assertEquals(0, processed.get());
+        assertEquals(0, acks.accepted.get());
+        assertEquals(3, acks.failed.get());
+        assertThrows(IllegalStateException.class, () -> engine.start(WaitStrategy.YIELD));
+    }
+
+    @ParameterizedTest
+    @EnumSource(WaitStrategy.class)
+    public void testEveryWaitStrategyProcessesAllOrders(WaitStrategy waitStrategy) throws InterruptedException {
+        AtomicInteger processed = new AtomicInteger();
+        MatchingEngine engine = new MatchingEngine("WaitStrategyTest", 64, order -> processed.incrementAndGet());
+        engine.start(waitStrategy);
+
+        // engine izmedju talasa ostaje bez posla, pa mora da se probudi iz idle()-a
+        for (int wave = 0; wave < 20; wave++) {
+            for (int i = 0; i < 32; i++) {
+                while (!engine.tryPublish(new Order(100.0, 1, OrderType.BUY), null)) {
+                    Thread.onSpinWait();
+                }
+            }
+            Thread.sleep(1);
+        }
+        engine.stop();
+
+        assertEquals(20 * 32, processed.get());
+    }
+
+    @Test
+    public void testOrderIdsFollowProcessingOrder() throws InterruptedException {
+        List<Long> processed = new ArrayList<>(); // puni ga samo engine nit
+        MatchingEngine engine = new MatchingEngine("IdTest", 1024, order -> processed.add(order.getId()));
+        IdGenerator ids = new IdGenerator(3);
+        long recovered = (3L << IdGenerator.SHARD_SHIFT) | 100;
+        ids.advanceOrderId(recovered); // kao posle replay-a
+        engine.setIdGenerator(ids);
+        engine.start(WaitStrategy.YIELD);
+
+        int producers = 4;
+        int perProducer = 2_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    Order order = new Order(100.0, 1, OrderType.BUY);
+                    while (!engine.tryPublish(order, null)) {
+                        Thread.onSpinWait();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        awaitEmpty(engine);
+        engine.stop();
+
+        // vise producer-a, ali ID-jevi rastu bas redom kojim ih engine obradjuje
+        assertEquals(producers * perProducer, processed.size());
+        assertEquals(recovered + 1, processed.get(0));
+        for (int i = 1; i < processed.size(); i++) {
+            assertTrue(processed.get(i) > processed.get(i - 1));
+            assertEquals(3, IdGenerator.shardOf(processed.get(i)));
+        }
+    }
+
+    @Test
+    public void testTradeIdsArePerShardAndReplayable() {
+        int n = 2_000;
+        List<List<Long>> live = tradeIds(n, true);
+        // replay: journal ima naloge shard-ova u drugacijem medjusobnom redosledu
+        List<List<Long>> replayed = tradeIds(n, false);
+
+        assertFalse(live.get(0).isEmpty());
+        assertFalse(live.get(1).isEmpty());
+        assertEquals(live, replayed);
+        for (int shard = 0; shard < 2; shard++) {
+            for (long tradeId : live.get(shard)) {
+                assertEquals(shard, IdGenerator.shardOf(tradeId));
+            }
+        }
+    }
+
+    /**
+     * Isti tok naloga na dve knjige (shard 0 i 1), uparen naizmenicno ili knjigu po knjigu.
+     */
+    private static List<List<Long>> tradeIds(int n, boolean interleaved) {
+        List<List<Long>> tradeIds = List.of(new ArrayList<>(), new ArrayList<>());
+        OrderBook[] books = new OrderBook[2];
+        for (int shard = 0; shard < 2; shard++) {
+            List<Long> out = tradeIds.get(shard);
+            books[shard] = new OrderBook("S" + shard, TICK, new OrderPool(), new IdGenerator(shard),
+                    (symbol, sequence, tradeId, buyOrderId, sellOrderId, buyPrice, sellPrice, price, amount) -> out.add(tradeId));
+        }
+        if (interleaved) {
+            for (int i = 0; i < n; i++) {
+                books[0].match(order("S0", i));
+                books[1].match(order("S1", n - i));
+            }
+        } else {
+            for (int i = 0; i < n; i++) {
+                books[0].match(order("S0", i));
+            }
+            for (int i = 0; i < n; i++) {
+                books[1].match(order("S1", n - i));
+            }
+        }
+        return tradeIds;
+    }
+
+    private static Order order(String symbol, int i) {
+        Order order = new Order(symbol, 100.0 + (i * 37 % 5) * 0.01, 1 + i * 13 % 7,
+                i % 2 == 0 ? OrderType.BUY : OrderType.SELL);
+        order.assignId(i + 1);
+        order.applyTickSize(TICK);
+        return order;
+    }
+
+    /**
+     * Broji potvrde naloga i rezultate otkazivanja.
+     */
+    private static class Acks implements AckListener, CancelListener {
+        final AtomicInteger accepted = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+
+        @Override
+        public void onAccepted(Order order) {
+            accepted.incrementAndGet();
+        }
+
+        @Override
+        public void onFailed(Order order, Exception error) {
+            failed.incrementAndGet();
+        }
+
+        @Override
+        public void onResult(long orderId, int result) {
+            accepted.incrementAndGet();
+        }
+
+        @Override
+        public void onFailed(long orderId, Exception error) {
+            failed.incrementAndGet();
+        }
+    }
+
+    private static void awaitEmpty(MatchingEngine engine) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (engine.getQueueDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
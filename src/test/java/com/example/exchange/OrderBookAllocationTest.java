@@ -0,0 +1,101 @@
+package com.example.exchange;
+
+import com.example.exchange.engine.IdGenerator;
+import com.example.exchange.engine.OrderBook;
+import com.example.exchange.engine.OrderPool;
+import com.example.exchange.model.Order;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.TickSize;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderBookAllocationTest {
+
+    private static final TickSize TICK = TickSize.of(0.01);
+
+    @Test
+    public void testPartialFillsDoNotAllocate() {
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeAllocationCounting(threadBean);
+
+        int[] matches = new int[1];
+        OrderBook book = new OrderBook("ALLOC", TICK, new OrderPool(), new IdGenerator(0),
+                (symbol, sequence, tradeId, buyOrderId, sellOrderId, buyPrice, sellPrice, price, amount) -> matches[0]++);
+
+        int rounds = 200_000;
+
+        // veliki SELL nalozi – svaki BUY ih samo delimicno puni
+        for (int i = 0; i < 10; i++) {
+            book.addResting(new Order("ALLOC", 100.0 + i * 0.01, 1_000_000, OrderType.SELL));
+        }
+
+        // nalozi se prave unapred, meri se samo uparivanje
+        List<Order> warmup = incomingBuys(rounds);
+        List<Order> measured = incomingBuys(rounds);
+
+        warmup.forEach(book::match); // zagrevanje JIT-a
+
+        long threadId = Thread.currentThread().getId();
+        int before = matches[0];
+        long bytesBefore = threadBean.getThreadAllocatedBytes(threadId);
+        for (Order order : measured) {
+            book.match(order);
+        }
+        long bytesAfter = threadBean.getThreadAllocatedBytes(threadId);
+        int matched = matches[0] - before;
+
+        double bytesPerMatch = (double) (bytesAfter - bytesBefore) / matched;
+        System.out.println("Bajtova po mecu: " + bytesPerMatch);
+
+        assertTrue(matched >= rounds);
+        assertTrue(bytesPerMatch < 1.0, "Punjenje ne bi trebalo da alocira, izmereno: " + bytesPerMatch);
+    }
+
+    @Test
+    public void testPartiallyFilledOrderKeepsTimePriority() {
+        List<Integer> amounts = new ArrayList<>();
+        OrderBook book = new OrderBook("FIFO", TICK, new OrderPool(), new IdGenerator(0),
+                (symbol, sequence, tradeId, buyOrderId, sellOrderId, buyPrice, sellPrice, price, amount) -> amounts.add(amount));
+
+        Order first = new Order("FIFO", 100.0, 10, OrderType.BUY);
+        Order second = new Order("FIFO", 100.0, 10, OrderType.BUY);
+        book.addResting(first);
+        book.addResting(second);
+
+        // prvi SELL delimicno puni prvi BUY; drugi SELL mora opet da pogodi prvi BUY
+        book.match(sell(4));
+        book.match(sell(6));
+        book.match(sell(3));
+
+        assertEquals(List.of(4, 6, 3), amounts);
+        assertEquals(7, book.getTopOrders(1).getBuyOrders().get(0).getTotalAmount());
+        assertEquals(1, book.getTopOrders(1).getBuyOrders().get(0).getOrderCount());
+    }
+
+    private static Order sell(int amount) {
+        Order order = new Order("FIFO", 100.0, amount, OrderType.SELL);
+        order.applyTickSize(TICK);
+        return order;
+    }
+
+    private static List<Order> incomingBuys(int count) {
+        List<Order> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Order order = new Order("ALLOC", 100.05, 1 + (i % 3), OrderType.BUY);
+            order.applyTickSize(TICK);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private static void assumeAllocationCounting(com.sun.management.ThreadMXBean threadBean) {
+        org.junit.jupiter.api.Assumptions.assumeTrue(threadBean.isThreadAllocatedMemorySupported());
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+}
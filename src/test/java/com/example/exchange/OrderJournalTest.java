@@ -0,0 +1,100 @@
+package com.example.exchange;
+
+import com.example.exchange.journal.FlushMode;
+import com.example.exchange.journal.JournalListener;
+import com.example.exchange.journal.OrderJournal;
+import com.example.exchange.model.OrderKind;
+import com.example.exchange.model.OrderType;
+import com.example.exchange.model.TimeInForce;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OrderJournalTest {
+
+    // 7 zapisa po 17 bajtova staje u region, pa batch-evi od 3 zapisa prelaze granicu
+    private static final int REGION_SIZE = 128;
+
+    @Test
+    public void testSyncBatchesAcrossRegionsAreReplayed(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("journal.dat");
+        try (OrderJournal journal = new OrderJournal(path, FlushMode.SYNC, 0, REGION_SIZE)) {
+            for (long id = 0; id < 30; id += 3) {
+                writeBatch(journal, id, 3, true);
+            }
+            assertTrue(journal.getPosition() > 3 * REGION_SIZE);
+        }
+
+        assertEquals(range(0, 30), replay(path));
+    }
+
+    @Test
+    public void testRolledBackBatchAcrossRegionBoundaryLeavesNoRecords(@TempDir Path dir) throws IOException {
+        Path path = dir.resolve("journal.dat");
+        try (OrderJournal journal = new OrderJournal(path, FlushMode.SYNC, 0, REGION_SIZE)) {
+            writeBatch(journal, 0, 6, true);
+            long position = journal.getPosition();
+
+            // 6 + 3 > 7, pa ponisteni batch prelazi u drugi region
+            writeBatch(journal, 100, 3, false);
+            assertEquals(position, journal.getPosition());
+            assertEquals(position, journal.getCommittedPosition());
+
+            writeBatch(journal, 6, 3, true);
+        }
+
+        assertEquals(range(0, 9), replay(path));
+    }
+
+    private static void writeBatch(OrderJournal journal, long firstId, int count, boolean commit) throws IOException {
+        journal.beginBatch();
+        try {
+            for (int i = 0; i < count; i++) {
+                journal.writeCancel(firstId + i, "SYM");
+            }
+            if (commit) {
+                journal.commitBatch();
+            }
+        } finally {
+            journal.endBatch();
+        }
+    }
+
+    private static List<Long> replay(Path path) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        try (OrderJournal journal = new OrderJournal(path, FlushMode.SYNC, 0, REGION_SIZE)) {
+            journal.replay(0, new JournalListener() {
+                @Override
+                public void onNewOrder(long orderId, String symbol, OrderType type, double price, int amount,
+                                       TimeInForce timeInForce, OrderKind kind) {
+                    ids.add(orderId);
+                }
+
+                @Override
+                public void onCancel(long orderId, String symbol) {
+                    ids.add(orderId);
+                }
+
+                @Override
+                public void onAmend(long orderId, String symbol, int quantity) {
+                    ids.add(orderId);
+                }
+            });
+        }
+        return ids;
+    }
+
+    private static List<Long> range(long from, long to) {
+        List<Long> ids = new ArrayList<>();
+        for (long id = from; id < to; id++) {
+            ids.add(id);
+        }
+        return ids;
+    }
+}
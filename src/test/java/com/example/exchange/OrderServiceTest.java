@@ -1,20 +1,58 @@
 package com.example.exchange;
 
+import com.example.exchange.engine.EngineBusyException;
+import com.example.exchange.model.AckStatus;
+import com.example.exchange.model.BestBidOffer;
+import com.example.exchange.model.BookDelta;
+import com.example.exchange.model.Candle;
+import com.example.exchange.model.CancelResult;
+import com.example.exchange.model.CancelStatus;
+import com.example.exchange.model.EngineMetrics;
+import com.example.exchange.model.HistogramStats;
 import com.example.exchange.model.Order;
+import com.example.exchange.model.OrderAck;
+import com.example.exchange.model.OrderKind;
+import com.example.exchange.model.OrderRequest;
 import com.example.exchange.model.OrderType;
+import com.example.exchange.model.MatchPage;
+import com.example.exchange.model.MatchQuery;
 import com.example.exchange.model.MatchRecord;
+import com.example.exchange.model.PriceLevel;
+import com.example.exchange.model.TimeInForce;
+import com.example.exchange.model.TopOrdersResponse;
 import com.example.exchange.service.OrderService;
+import com.example.exchange.journal.FlushMode;
+import com.example.exchange.history.CandleSeries;
+import com.example.exchange.replay.RecordedEvent;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import reactor.util.retry.Retry;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class OrderServiceTest {
 
+    // engine odbija naloge dok mu je red pun (npr. pre nego sto startWorkers pokrene niti)
+    private static final Retry RETRY_WHEN_BUSY = Retry.fixedDelay(Long.MAX_VALUE, Duration.ofMillis(1))
+            .filter(e -> e instanceof EngineBusyException);
+
     @Test
     public void testMassiveOrderMatching() throws InterruptedException {
         OrderService service = new OrderService();
@@ -30,14 +68,14 @@ public class OrderServiceTest {
 
         for (int i = 0; i < N; i++) {
             Order order = new Order(100.0, 1, OrderType.BUY);
-            Mono<Order> result = service.addOrder(order);
+            Mono<Order> result = service.addOrder(order).retryWhen(RETRY_WHEN_BUSY);
             result.subscribe(o -> latch.countDown());
         }
 
         // SELL nalozi koji mogu odmah da se mecuju
         for (int i = 0; i < N; i++) {
             Order order = new Order(90.0, 1, OrderType.SELL); // jeftinije – poklapa se sa BUY 100
-            Mono<Order> result = service.addOrder(order);
+            Mono<Order> result = service.addOrder(order).retryWhen(RETRY_WHEN_BUSY);
             result.subscribe(o -> latch.countDown());
         }
 
@@ -57,4 +95,685 @@ public class OrderServiceTest {
             assertEquals(1, m.getAmount());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSymbolsDoNotCross() throws InterruptedException {
+        OrderService service = new OrderService();
+        service.setWebSocketHandler(null);
+        service.startWorkers();
+
+        Order buy = service.addOrder(new Order("AAA", 100.0, 5, OrderType.BUY)).block();
+        service.addOrder(new Order("BBB", 90.0, 5, OrderType.SELL)).block();
+        Order sell = service.addOrder(new Order("AAA", 95.0, 2, OrderType.SELL)).block();
+
+        Thread.sleep(500);
+
+        List<MatchRecord> matches = service.getMatchHistory();
+        assertEquals(1, matches.size());
+        assertEquals("AAA", matches.get(0).getSymbol());
+        assertEquals(2, matches.get(0).getAmount());
+        assertEquals(buy.getId(), matches.get(0).getBuyOrderId());
+        assertEquals(sell.getId(), matches.get(0).getSellOrderId());
+        assertTrue(buy.getId() < sell.getId());
+        assertEquals(1, matches.get(0).getSequence());
+
+        assertEquals(3, service.getTopOrders("AAA").block().getBuyOrders().get(0).getTotalAmount());
+        assertEquals(5, service.getTopOrders("BBB").block().getSellOrders().get(0).getTotalAmount());
+
+        service.shutdown();
+    }
+
+    @Test
+    public void testOffTickPricesAreRejected() throws InterruptedException {
+        OrderService service = new OrderService();
+        service.setWebSocketHandler(null);
+        service.startWorkers();
+
+        // zaokruzivanje bi BUY pomerilo na 100.01, a SELL na 99.99 – preko zadatog limita
+        StepVerifier.create(service.addOrder(new Order("OFF", 100.006, 1, OrderType.BUY)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        StepVerifier.create(service.addOrder(new Order("OFF", 99.994, 1, OrderType.SELL)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        List<OrderAck> acks = service.addOrders(List.of(
+                new OrderRequest("OFF", 100.006, 1, OrderType.BUY),
+                new OrderRequest("OFF", 100.01, 1, OrderType.BUY))).block();
+        assertEquals(AckStatus.INVALID, acks.get(0).getStatus());
+        assertEquals(AckStatus.ACCEPTED, acks.get(1).getStatus());
+        Thread.sleep(200);
+
+        var top = service.getTopOrders("OFF").block();
+        assertEquals(1, top.getBuyOrders().size());
+        assertEquals(100.01, top.getBuyOrders().get(0).getPrice());
+        assertTrue(top.getSellOrders().isEmpty());
+
+        service.shutdown();
+    }
+
+    @Test
+    public void testTickPricesShareLevelAndFarPricesStaySorted() throws InterruptedException {
+        OrderService service = new OrderService();
+        service.setWebSocketHandler(null);
+        service.startWorkers();
+
+        service.addOrder(new Order("TICK", 100.1, 1, OrderType.BUY)).block();
+        service.addOrder(new Order("TICK", 100.10000000001, 2, OrderType.BUY)).block();
+        service.addOrder(new Order("TICK", 5_000_000.0, 1, OrderType.BUY)).block(); // van prozora ladder-a
+        service.addOrder(new Order("TICK", 0.5, 1, OrderType.BUY)).block();
+
+        Thread.sleep(500);
+
+        var buys = service.getTopOrders("TICK").block().getBuyOrders();
+        assertEquals(3, buys.size());
+        assertEquals(5_000_000.0, buys.get(0).getPrice());
+        assertEquals(100.1, buys.get(1).getPrice());
+        assertEquals(3, buys.get(1).getTotalAmount());
+        assertEquals(0.5, buys.get(2).getPrice());
+
+        // SELL prelazi sve nivoe redom, od najbolje cene
+        service.addOrder(new Order("TICK", 0.5, 5, OrderType.SELL)).block();
+        Thread.sleep(500);
+
+        List<MatchRecord> matches = service.getMatchHistory();
+        assertEquals(4, matches.size());
+        assertEquals(5_000_000.0, matches.get(0).getBuyPrice());
+        assertEquals(100.1, matches.get(1).getBuyPrice());
+        assertEquals(0.5, matches.get(3).getBuyPrice());
+        assertTrue(service.getTopOrders("TICK").block().getBuyOrders().isEmpty());
+
+        service.shutdown();
+    }
+
+    @Test
+    public void testLevelAggregatesFollowFills() throws InterruptedException {
+        OrderService service = new OrderService();
+        service.setWebSocketHandler(null);
+        service.startWorkers();
+
+        for (int i = 0; i < 15; i++) {
+            service.addOrder(new Order("AGG", 50.0 + i, 4, OrderType.SELL)).block();
+        }
+        service.addOrder(new Order("AGG", 50.0, 3, OrderType.SELL)).block();
+        service.addOrder(new Order("AGG", 50.0, 6, OrderType.BUY)).block();
+
+        Thread.sleep(500);
+
+        var top = service.getTopOrders("AGG", 12).block();
+        assertEquals(12, top.getSellOrders().size());
+        assertEquals(50.0, top.getSellOrders().get(0).getPrice());
+        assertEquals(1, top.getSellOrders().get(0).getTotalAmount());
+        assertEquals(1, top.getSellOrders().get(0).getOrderCount());
+        assertEquals(15, service.getTopOrders("AGG", 50).block().getSellOrders().size());
+
+        StepVerifier.create(service.getTopOrders("AGG", 0))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        // dublje od pogleda se ne cita iz knjige
+        StepVerifier.create(service.getTopOrders("AGG", 51))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        service.shutdown();
+    }
+
+    @Test
+    public void testTopOrdersAndBboComeFromPublishedView() throws InterruptedException {
+        OrderService service = new OrderService();
+        service.setWebSocketHandler(null);
+        service.startWorkers();
+
+        assertNull(service.getBestBidOffer("VIEW").getBidPrice());
+
+        Order bid = service.addOrder(new Order("VIEW", 99.0, 5, OrderType.BUY)).block();
+        service.addOrder(new Order("VIEW", 101.0, 7, OrderType.SELL)).block();
+        Thread.sleep(300);
+
+        BestBidOffer bbo = service.getBestBidOffer("VIEW");
+        assertEquals(99.0, bbo.getBidPrice());
+        assertEquals(5, bbo.getBidAmount());
+        assertEquals(101.0, bbo.getAskPrice());
+        assertEquals(7, bbo.getAskAmount());
+        long version = bbo.getVersion();
+        assertTrue(version > 0);
+
+        // isti pogled se serijalizuje samo jednom
+        byte[] json = service.getTopOrdersJson("VIEW", 5).block();
+        assertSame(json, service.getTopOrdersJson("VIEW", 5).block());
+        assertTrue(new String(json).contains("\"totalAmount\":5"));
+
+        // rezultat otkazivanja stize tek posle objave pogleda, pa je otkazani nivo vec nestao
+        service.cancelOrder("VIEW", bid.getId()).block();
+        assertTrue(service.getTopOrders("VIEW", 5).block().getBuyOrders().isEmpty());
+        assertNull(service.getBestBidOffer("VIEW").getBidPrice());
+        assertTrue(service.getBestBidOffer("VIEW").getVersion() > version);
+        assertNotSame(json, service.getTopOrdersJson("VIEW", 5).block());
+
+        service.shutdown();
+    }
+
+    @Test
+    public void testEngineMetricsCountLevelsAndFills() throws InterruptedException {
+        OrderService service = new OrderService();
+        service.setWebSocketHandler(null);
+        service.startWorkers();
+
+        service.addOrder(new Order("MET", 100.0, 2, OrderType.SELL)).block();
+        service.addOrder(new Order("MET", 100.0, 2, OrderType.SELL)).block();
+        service.addOrder(new Order("MET", 101.0, 2, OrderType.SELL)).block();
+        service.addOrder(new Order("MET", 99.0, 1, OrderType.BUY)).block();
+        // tri trejda: cela 100 pa jedan sa 101
+        service.addOrder(new Order("MET", 101.0, 5, OrderType.BUY)).block();
+        Thread.sleep(500);
+
+        EngineMetrics metrics = service.getEngineMetrics();
+        assertEquals(2, metrics.getRestingOrders());
+        var book = metrics.getBooks().get(0);
+        assertEquals("MET", book.getSymbol());
+        assertEquals(1, book.getBuyLevels());
+        assertEquals(1, book.getSellLevels());
+
+        Map<String, HistogramStats> histograms = new HashMap<>();
+        for (HistogramStats stats : metrics.getHistograms()) {
+            histograms.put(stats.getName(), stats);
+        }
+        assertEquals(5, histograms.get("queueWait").getCount());
+        assertEquals(5, histograms.get("matchTime").getCount());
+        HistogramStats fills = histograms.get("fillsPerOrder");
+        assertEquals(5, fills.getCount());
+        assertEquals(0, fills.getP50());
+        assertEquals(3, fills.getMax());
+        assertEquals(3, histograms.get("historyAppend").getCount());
+        assertTrue(histograms.get("matchTime").getP99() <= histograms.get("matchTime").getMax());
+
+        service.shutdown();
+    }
+
+    @Test
+    public void testCandlesFollowExecutionPrices() throws InterruptedException {
+        OrderService service = new OrderService();
+        service.setWebSocketHandler(null);
+        ReflectionTestUtils.setField(service, "candleIntervals", "1s,1d");
+        service.startWorkers();
+
+        List<Candle> pushed = new CopyOnWriteArrayList<>();
+        Disposable subscription = service.subscribeCandles("BAR", "1d").subscribe(pushed::add);
+
+        service.addOrder(new Order("BAR", 100.0, 5, OrderType.SELL)).block();
+        service.addOrder(new Order("BAR", 102.0, 5, OrderType.SELL)).block();
+        // trejdovi po cenama iz knjige (100 pa 102), ne po limitu kupca
+        service.addOrder(new Order("BAR", 105.0, 7, OrderType.BUY)).block();
+        service.addOrder(new Order("BAR", 99.0, 3, OrderType.BUY)).block();
+        service.addOrder(new Order("BAR", 98.0, 1, OrderType.SELL)).block();
+        Thread.sleep(500);
+
+        List<Candle> bars = service.getCandles("BAR", "1d", 0, Long.MAX_VALUE, 10);
+        assertEquals(1, bars.size());
+        Candle bar = bars.get(0);
+        assertEquals(100.0, bar.getOpen());
+        assertEquals(102.0, bar.getHigh());
+        assertEquals(99.0, bar.getLow());
+        assertEquals(99.0, bar.getClose());
+        assertEquals(8, bar.getVolume());
+        assertEquals(3, bar.getTrades());
+        assertEquals(0, bar.getStartTime() % 86_400_000L);
+
+        assertFalse(pushed.isEmpty());
+        assertEquals(8, pushed.get(pushed.size() - 1).getVolume());
+        subscription.dispose();
+
+        // citanja ne prave serije za simbole bez trejdova, a feed nestaje sa poslednjim pretplatnikom
+        assertTrue(service.getCandles("NONE", "1d", 0, Long.MAX_VALUE, 10).isEmpty());
+        service.subscribeCandles("NONE", "1s").subscribe().dispose();
+        Object aggregator = ReflectionTestUtils.getField(service, "candles");
+        assertFalse(((Map<?, ?>) ReflectionTestUtils.getField(aggregator, "series")).containsKey("NONE"));
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(service, "candleFeeds")).isEmpty());
+
+        assertThrows(IllegalArgumentException.class, () -> service.getCandles("BAR", "5m", 0, Long.MAX_VALUE, 10));
+        service.shutdown();
+
+        // prsten od 3 bara: najstariji se prepisuje, opseg se trazi po pocetku bara
+        CandleSeries series = new CandleSeries("BAR", "1s", 1_000, 3);
+        series.update(10.0, 1, 1_500);
+        series.update(11.0, 1, 2_100);
+        series.update(12.0, 2, 2_900);
+        series.update(9.0, 1, 5_000);
+        series.update(8.0, 1, 7_999);
+        List<Candle> range = series.range(0, Long.MAX_VALUE, 10);
+        assertEquals(List.of(2_000L, 5_000L, 7_000L), range.stream().map(Candle::getStartTime).toList());
+        assertEquals(12.0, range.get(0).getClose());
+        assertEquals(3, range.get(0).getVolume());
+        assertEquals(List.of(5_000L), series.range(3_000, 6_999, 10).stream().map(Candle::getStartTime).toList());
+        assertEquals(List.of(7_000L), series.range(0, Long.MAX_VALUE, 1).stream().map(Candle::getStartTime).toList());
+    }
+
+    @Test
+    public void testImmediateOrdersNeverRest() throws InterruptedException {
+        OrderService service = new OrderService();
+        service.setWebSocketHandler(null);
+        service.startWorkers();
+
+        service.addOrder(new Order("TIF", 100.0, 5, OrderType.SELL)).block();
+        service.addOrder(new Order("TIF", 101.0, 5, OrderType.SELL)).block();
+
+        // FOK za 11 – na knjizi ima samo 10, pa se odbija bez ijednog trejda
+        service.addOrder(new Order("TIF", 102.0, 11, OrderType.BUY, TimeInForce.FOK, OrderKind.LIMIT)).block();
+        // IOC puni 5 na 100, ostatak od 3 se odbacuje umesto da ostane u knjizi
+        service.addOrder(new Order("TIF", 100.5, 8, OrderType.BUY, TimeInForce.IOC, OrderKind.LIMIT)).block();
+        // market nalog uzima najbolju cenu iz knjige
+        service.addOrder(new Order("TIF", 0, 3, OrderType.BUY, TimeInForce.IOC, OrderKind.MARKET)).block();
+        // FOK koji moze da se ispuni
+        service.addOrder(new Order("TIF", 101.0, 2, OrderType.BUY, TimeInForce.FOK, OrderKind.LIMIT)).block();
+        Thread.sleep(500);
+
+        List<MatchRecord> matches = service.getMatchHistory();
+        assertEquals(3, matches.size());
+        assertEquals(5, matches.get(0).getAmount());
+        assertEquals(100.0, matches.get(0).getSellPrice());
+        assertEquals(3, matches.get(1).getAmount());
+        assertEquals(101.0, matches.get(1).getBuyPrice());
+        assertEquals(2, matches.get(2).getAmount());
+
+        var top = service.getTopOrders("TIF").block();
+        assertTrue(top.getBuyOrders().isEmpty());
+        assertTrue(top.getSellOrders().isEmpty());
+
+        service.shutdown();
+    }
+
+    @Test
+    public void testBookFeedSendsSnapshotThenDeltas() throws InterruptedException {
+        OrderService service = new OrderService();
+        service.setWebSocketHandler(null);
+        service.startWorkers();
+
+        service.addOrder(new Order("FEED", 100.0, 10, OrderType.BUY)).block();
+        Thread.sleep(200);
+
+        List<BookDelta> received = new CopyOnWriteArrayList<>();
+        Disposable subscription = service.subscribeBook("FEED", 5).subscribe(received::add);
+
+        service.addOrder(new Order("FEED", 100.0, 5, OrderType.BUY)).block();
+        service.addOrder(new Order("FEED", 101.0, 3, OrderType.SELL)).block();
+        service.addOrder(new Order("FEED", 100.0, 15, OrderType.SELL)).block(); // prazni BUY 100
+        Thread.sleep(500);
+        subscription.dispose();
+
+        BookDelta snapshot = received.get(0);
+        assertTrue(snapshot.isSnapshot());
+        assertEquals(1, snapshot.getLevels().size());
+        assertEquals(10, snapshot.getLevels().get(0).getTotalAmount());
+
+        // redni brojevi delti rastu bez rupa od snapshot-a
+        long expected = snapshot.getSequence();
+        Map<String, Long> book = new HashMap<>();
+        for (BookDelta delta : received.subList(1, received.size())) {
+            assertFalse(delta.isSnapshot());
+            assertEquals(++expected, delta.getSequence());
+            for (PriceLevel level : delta.getLevels()) {
+                book.put(level.getType() + "@" + level.getPrice(), level.getTotalAmount());
+            }
+        }
+        assertEquals(0L, book.get("BUY@100.0"));
+        assertEquals(3L, book.get("SELL@101.0"));
+
+        service.shutdown();
+    }
+
+    @Test
+    public void testBookFeedDoesNotCreateBooks() throws InterruptedException {
+        OrderService service = new OrderService();
+        service.setWebSocketHandler(null);
+        service.startWorkers();
+
+        // pretplata na simbol bez naloga ne pravi knjigu; feed nestaje sa poslednjim pretplatnikom
+        service.subscribeBook("GHOST", 5).subscribe().dispose();
+        assertFalse(service.getSymbols().contains("GHOST"));
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(service, "feeds")).isEmpty());
+
+        // pretplatnik pre prvog naloga dobija prazan snapshot, pa nivoe knjige kad je engine napravi
+        List<BookDelta> received = new CopyOnWriteArrayList<>();
+        Disposable subscription = service.subscribeBook("LATE", 5).subscribe(received::add);
+        service.addOrder(new Order("LATE", 100.0, 4, OrderType.BUY)).block();
+        Thread.sleep(300);
+        subscription.dispose();
+
+        assertTrue(received.get(0).isSnapshot());
+        assertTrue(received.get(0).getLevels().isEmpty());
+        assertEquals(4, received.get(received.size() - 1).getLevels().get(0).getTotalAmount());
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(service, "feeds")).isEmpty());
+
+        service.shutdown();
+    }
+
+    @Test
+    public void testBookFeedSubscribersMatchBookUnderConcurrentOrders() throws InterruptedException {
+        OrderService service = new OrderService();
+        service.setWebSocketHandler(null);
+        service.startWorkers();
+
+        // malo nivoa (manje od dubine), pa snapshot + delte moraju dati celu knjigu
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread[] clients = new Thread[4];
+        for (int t = 0; t < clients.length; t++) {
+            long seed = t;
+            clients[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                while (running.get()) {
+                    boolean buy = random.nextBoolean();
+                    double price = 100.0 + (buy ? -1 : 1) * (random.nextInt(6) - 1) * 0.01;
+                    service.addOrder(new Order("RACE", price, 1 + random.nextInt(5),
+                            buy ? OrderType.BUY : OrderType.SELL)).block();
+                }
+            });
+            clients[t].start();
+        }
+
+        List<Map<String, Long>> books = new ArrayList<>();
+        List<Disposable> subscriptions = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Map<String, Long> book = new ConcurrentHashMap<>();
+            books.add(book);
+            subscriptions.add(service.subscribeBook("RACE", 20).subscribe(delta -> {
+                if (delta.isSnapshot()) {
+                    book.clear();
+                }
+                for (PriceLevel level : delta.getLevels()) {
+                    book.put(level.getType() + "@" + Math.round(level.getPrice() * 100), level.getTotalAmount());
+                }
+            }));
+            Thread.sleep(1);
+        }
+        running.set(false);
+        for (Thread client : clients) {
+            client.join();
+        }
+        Thread.sleep(500);
+        subscriptions.forEach(Disposable::dispose);
+
+        TopOrdersResponse top = service.getTopOrders("RACE", 20).block();
+        Map<String, Long> expected = new HashMap<>();
+        for (PriceLevel level : top.getBuyOrders()) {
+            expected.put("BUY@" + Math.round(level.getPrice() * 100), level.getTotalAmount());
+        }
+        for (PriceLevel level : top.getSellOrders()) {
+            expected.put("SELL@" + Math.round(level.getPrice() * 100), level.getTotalAmount());
+        }
+        for (Map<String, Long> book : books) {
+            book.values().removeIf(amount -> amount == 0);
+            assertEquals(expected, book);
+        }
+
+        service.shutdown();
+    }
+
+    @Test
+    public void testBatchIsValidatedPerOrderAndJournaled(@TempDir Path dir) throws InterruptedException {
+        OrderService service = journaledService(dir.resolve("journal.dat"));
+        service.startWorkers();
+
+        List<OrderAck> acks = service.addOrders(List.of(
+                new OrderRequest("BAT", 100.0, 5, OrderType.BUY),
+                new OrderRequest("BAT", 100.0, 0, OrderType.BUY),      // neispravna kolicina
+                new OrderRequest("OTHER", 50.0, 1, OrderType.SELL),
+                new OrderRequest("BAT", 99.0, 3, OrderType.SELL))).block();
+
+        assertEquals(4, acks.size());
+        assertEquals(AckStatus.ACCEPTED, acks.get(0).getStatus());
+        assertEquals(AckStatus.INVALID, acks.get(1).getStatus());
+        assertEquals(0, acks.get(1).getId());
+        assertNotNull(acks.get(1).getReason());
+        assertEquals(AckStatus.ACCEPTED, acks.get(2).getStatus());
+        assertTrue(acks.get(0).getId() < acks.get(3).getId());
+
+        Thread.sleep(500);
+        List<MatchRecord> matches = service.getMatchHistory();
+        assertEquals(1, matches.size());
+        assertEquals(acks.get(0).getId(), matches.get(0).getBuyOrderId());
+        assertEquals(acks.get(3).getId(), matches.get(0).getSellOrderId());
+        assertEquals(3, matches.get(0).getAmount());
+
+        StepVerifier.create(service.addOrders(List.of()))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        service.shutdown();
+    }
+
+    @Test
+    public void testCancelAndAmendAreJournaled(@TempDir Path dir) {
+        Path journalPath = dir.resolve("journal.dat");
+
+        OrderService first = journaledService(journalPath);
+        first.startWorkers();
+        Order a = first.addOrder(new Order("CXL", 100.0, 5, OrderType.BUY)).block();
+        Order b = first.addOrder(new Order("CXL", 100.0, 3, OrderType.BUY)).block();
+        Order c = first.addOrder(new Order("CXL", 100.0, 4, OrderType.BUY)).block();
+
+        CancelResult cancelled = first.cancelOrder("CXL", b.getId()).block();
+        assertEquals(CancelStatus.CANCELLED, cancelled.getStatus());
+        assertEquals(3, cancelled.getRemaining());
+        assertEquals(CancelStatus.NOT_FOUND, first.cancelOrder("CXL", b.getId()).block().getStatus());
+        assertEquals(CancelStatus.NOT_FOUND, first.cancelOrder("NONE", a.getId()).block().getStatus());
+
+        assertEquals(CancelStatus.AMENDED, first.amendOrder("CXL", c.getId(), 2).block().getStatus());
+        assertEquals(CancelStatus.REJECTED, first.amendOrder("CXL", a.getId(), 9).block().getStatus());
+        StepVerifier.create(first.amendOrder("CXL", a.getId(), 0))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+
+        // SELL 6 puni A (5) pa 1 od C – C je zadrzao mesto u redu posle izmene
+        first.addOrder(new Order("CXL", 100.0, 6, OrderType.SELL)).block();
+        assertEquals(CancelStatus.NOT_FOUND, first.cancelOrder("CXL", a.getId()).block().getStatus());
+
+        var top = first.getTopOrders("CXL").block();
+        assertEquals(1, top.getBuyOrders().get(0).getTotalAmount());
+        assertEquals(1, top.getBuyOrders().get(0).getOrderCount());
+        first.shutdown();
+
+        OrderService second = journaledService(journalPath);
+        second.startWorkers();
+        top = second.getTopOrders("CXL").block();
+        assertEquals(1, top.getBuyOrders().get(0).getTotalAmount());
+        assertEquals(1, top.getBuyOrders().get(0).getOrderCount());
+        assertEquals(c.getId(), second.getMatchHistory().get(1).getBuyOrderId());
+
+        CancelResult last = second.cancelOrder("CXL", c.getId()).block();
+        assertEquals(CancelStatus.CANCELLED, last.getStatus());
+        assertEquals(1, last.getRemaining());
+        assertTrue(second.getTopOrders("CXL").block().getBuyOrders().isEmpty());
+        second.shutdown();
+    }
+
+    @Test
+    public void testRecorderCapturesOrderFlow(@TempDir Path dir) throws Exception {
+        Path recording = dir.resolve("orders.rec");
+        OrderService service = new OrderService();
+        ReflectionTestUtils.setField(service, "recorderEnabled", true);
+        ReflectionTestUtils.setField(service, "recorderPath", recording.toString());
+        service.startWorkers();
+
+        Order a = service.addOrder(new Order("REC", 10.0, 5, OrderType.BUY)).block();
+        service.addOrder(new Order("REC", 0, 2, OrderType.SELL, TimeInForce.IOC, OrderKind.MARKET)).block();
+        service.amendOrder("REC", a.getId(), 1).block();
+        service.cancelOrder("REC", a.getId()).block();
+        service.shutdown();
+
+        List<RecordedEvent> events = Files.readAllLines(recording).stream()
+                .map(RecordedEvent::parse)
+                .filter(event -> event != null)
+                .toList();
+        assertEquals(4, events.size());
+
+        RecordedEvent first = events.get(0);
+        assertEquals(RecordedEvent.Type.NEW, first.getType());
+        assertEquals(a.getId(), first.getOrderId());
+        assertEquals("REC", first.getSymbol());
+        assertEquals(OrderType.BUY, first.getSide());
+        assertEquals(10.0, first.getPrice());
+        assertEquals(5, first.getAmount());
+
+        RecordedEvent market = events.get(1);
+        assertEquals(OrderType.SELL, market.getSide());
+        assertEquals(TimeInForce.IOC, market.getTimeInForce());
+        assertEquals(OrderKind.MARKET, market.getKind());
+
+        assertEquals(RecordedEvent.Type.AMEND, events.get(2).getType());
+        assertEquals(1, events.get(2).getAmount());
+        assertEquals(RecordedEvent.Type.CANCEL, events.get(3).getType());
+        assertEquals(a.getId(), events.get(3).getOrderId());
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i).getNanos() >= events.get(i - 1).getNanos());
+        }
+    }
+
+    @Test
+    public void testJournalReplayRebuildsBook(@TempDir Path dir) {
+        Path journalPath = dir.resolve("journal.dat");
+
+        OrderService first = journaledService(journalPath);
+        first.startWorkers();
+        first.addOrder(new Order("JRN", 10.0, 5, OrderType.BUY)).block();
+        first.addOrder(new Order("JRN", 11.0, 4, OrderType.SELL)).block();
+        Order last = first.addOrder(new Order("JRN", 10.0, 2, OrderType.SELL)).block();
+        List<MatchRecord> liveTrades = awaitHistory(first, 1);
+        first.shutdown();
+
+        OrderService second = journaledService(journalPath);
+        second.startWorkers();
+
+        var top = second.getTopOrders("JRN").block();
+        assertEquals(3, top.getBuyOrders().get(0).getTotalAmount());
+        assertEquals(4, top.getSellOrders().get(0).getTotalAmount());
+        // replay daje iste ID-jeve trejdova koje su klijenti vec dobili
+        assertEquals(tradeIds(liveTrades), tradeIds(second.getMatchHistory()));
+
+        // novi ID-jevi nastavljaju iza obnovljenih
+        Order next = second.addOrder(new Order("JRN", 1.0, 1, OrderType.BUY)).block();
+        assertTrue(next.getId() > last.getId());
+        second.shutdown();
+    }
+
+    @Test
+    public void testVirtualThreadModeAcksJournaledOrders(@TempDir Path dir) {
+        OrderService service = journaledService(dir.resolve("journal.dat"));
+        ReflectionTestUtils.setField(service, "virtualThreads", true);
+        service.startWorkers();
+
+        // na JVM-u bez virtuelnih niti ostaju podrazumevani scheduler-i
+        assertEquals(Runtime.version().feature() >= 21, service.isUsingVirtualThreads());
+
+        Order buy = service.addOrder(new Order("VT", 10.0, 2, OrderType.BUY)).block();
+        assertEquals(CancelStatus.CANCELLED, service.cancelOrder("VT", buy.getId()).block().getStatus());
+        service.shutdown();
+    }
+
+    @Test
+    public void testRecoveryFromSnapshotReplaysOnlyNewerRecords(@TempDir Path dir) throws Exception {
+        Path journalPath = dir.resolve("journal.dat");
+
+        OrderService first = journaledService(journalPath);
+        ReflectionTestUtils.setField(first, "snapshotEnabled", true);
+        ReflectionTestUtils.setField(first, "snapshotDirectory", dir.resolve("snapshots").toString());
+        first.startWorkers();
+
+        first.addOrder(new Order("SNP", 10.0, 5, OrderType.BUY)).block();
+        first.addOrder(new Order("SNP", 10.0, 3, OrderType.BUY)).block();
+        first.addOrder(new Order("SNP", 12.0, 4, OrderType.SELL)).block();
+        first.takeSnapshot();
+        first.addOrder(new Order("SNP", 10.0, 6, OrderType.SELL)).block();
+        List<MatchRecord> liveTrades = awaitHistory(first, 2);
+        first.shutdown();
+
+        OrderService second = journaledService(journalPath);
+        ReflectionTestUtils.setField(second, "snapshotEnabled", true);
+        ReflectionTestUtils.setField(second, "snapshotDirectory", dir.resolve("snapshots").toString());
+        second.startWorkers();
+
+        var status = second.getPersistenceStatus();
+        assertTrue(status.getRecoveredSnapshotPosition() > 0);
+        assertEquals(1, status.getReplayedRecords());
+
+        // SELL 6 posle snapshot-a puni prvi BUY (5) pa 1 od drugog – redosled je sacuvan
+        var top = second.getTopOrders("SNP").block();
+        assertEquals(2, top.getBuyOrders().get(0).getTotalAmount());
+        assertEquals(1, top.getBuyOrders().get(0).getOrderCount());
+        assertEquals(4, top.getSellOrders().get(0).getTotalAmount());
+
+        // brojac trejdova iz snapshot-a: posle obnove isti ID-jevi, pa novi nastavljaju iza njih
+        assertEquals(tradeIds(liveTrades), tradeIds(second.getMatchHistory()));
+        second.addOrder(new Order("SNP", 10.0, 1, OrderType.SELL)).block();
+        List<MatchRecord> after = awaitHistory(second, 3);
+        assertTrue(after.get(2).getTradeId() > liveTrades.get(1).getTradeId());
+        second.shutdown();
+    }
+
+    @Test
+    public void testHistoryOverflowsToArchive(@TempDir Path dir) throws InterruptedException {
+        OrderService service = new OrderService();
+        service.setWebSocketHandler(null);
+        ReflectionTestUtils.setField(service, "historyCapacity", 1024);
+        ReflectionTestUtils.setField(service, "historyArchiveDirectory", dir.toString());
+        service.startWorkers();
+
+        int n = 5000;
+        service.addOrder(new Order("HIST", 100.0, n, OrderType.SELL)).block();
+        for (int i = 0; i < n; i++) {
+            service.addOrder(new Order("HIST", 100.0, 1, OrderType.BUY)).block();
+        }
+        Thread.sleep(500);
+
+        List<MatchRecord> all = service.getMatchHistory();
+        assertEquals(n, all.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i + 1, all.get(i).getSequence()); // redosled sacuvan preko granice arhiva/ring
+        }
+
+        List<MatchRecord> latest = service.getLatestMatches(10);
+        assertEquals(10, latest.size());
+        assertEquals(n, latest.get(9).getSequence());
+
+        // strane preko cursor-a pokrivaju celu istoriju bez preklapanja
+        long cursor = 0;
+        int seen = 0;
+        MatchPage page;
+        do {
+            page = service.getMatches(cursor, 700, new MatchQuery("HIST", null, null, null, null)).block();
+            seen += page.getMatches().size();
+            cursor = page.getNextCursor();
+        } while (page.isHasMore());
+        assertEquals(n, seen);
+
+        assertEquals(0, service.getMatches(0, 10, new MatchQuery(null, null, null, 101.0, null)).block().getMatches().size());
+        StepVerifier.create(service.getMatches(0, 0, new MatchQuery(null, null, null, null, null)))
+                .expectError(IllegalArgumentException.class)
+                .verify();
+        StepVerifier.create(service.streamMatches(4000, new MatchQuery("HIST", null, null, null, null)))
+                .expectNextCount(1000)
+                .verifyComplete();
+        service.shutdown();
+    }
+
+    private static List<MatchRecord> awaitHistory(OrderService service, int count) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (service.getMatchHistory().size() < count && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        List<MatchRecord> history = service.getMatchHistory();
+        assertEquals(count, history.size());
+        return history;
+    }
+
+    private static List<Long> tradeIds(List<MatchRecord> history) {
+        return history.stream().map(MatchRecord::getTradeId).toList();
+    }
+
+    private OrderService journaledService(Path journalPath) {
+        OrderService service = new OrderService();
+        service.setWebSocketHandler(null);
+        ReflectionTestUtils.setField(service, "journalEnabled", true);
+        ReflectionTestUtils.setField(service, "journalPath", journalPath.toString());
+        ReflectionTestUtils.setField(service, "journalFlushMode", FlushMode.SYNC);
+        return service;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.exchange;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class OrderWebSocketHandlerTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Test
+    public void testMatchIsMulticastToAllSessions() {
+        ReactorNettyWebSocketClient client = new ReactorNettyWebSocketClient();
+        URI uri = URI.create("ws://localhost:" + port + "/orders-ws");
+
+        List<String> listener = new CopyOnWriteArrayList<>();
+        List<String> trader = new CopyOnWriteArrayList<>();
+
+        // pasivna sesija samo slusa trejdove
+        var listening = client.execute(uri, session -> session.receive()
+                .map(WebSocketMessage::getPayloadAsText)
+                .doOnNext(listener::add)
+                .takeUntil(text -> text.contains("ORDER_MATCHED"))
+                .then());
+
+        var trading = client.execute(uri, session -> session.send(Flux.just(
+                                "{\"action\":\"NEW_ORDER\",\"payload\":{\"symbol\":\"WSTEST\",\"price\":100.5,\"amount\":3,\"type\":\"BUY\"}}",
+                                "{\"action\":\"NEW_ORDER\",\"payload\":{\"symbol\":\"WSTEST\",\"price\":100.5,\"amount\":3,\"type\":\"SELL\"}}")
+                        .delaySubscription(Duration.ofMillis(300))
+                        .map(session::textMessage))
+                .and(session.receive()
+                        .map(WebSocketMessage::getPayloadAsText)
+                        .doOnNext(trader::add)
+                        .takeUntil(text -> trader.size() == 3)));
+
+        listening.and(trading).block(Duration.ofSeconds(10));
+
+        String expected = "\\{\"action\":\"ORDER_MATCHED\",\"payload\":\\{\"symbol\":\"WSTEST\",\"tradeId\":\\d+,"
+                + "\"buyOrderId\":\\d+,\"sellOrderId\":\\d+,\"buyPrice\":100.5,\"sellPrice\":100.5,\"amount\":3}}";
+        String matched = listener.get(listener.size() - 1);
+        assertTrue(matched.matches(expected), matched);
+        assertTrue(trader.contains(matched));
+        assertEquals(2, trader.stream().filter(text -> text.contains("ORDER_ACCEPTED")).count());
+    }
+
+    @Test
+    public void testBinaryOrderEntryAndTrade() {
+        ReactorNettyWebSocketClient client = new ReactorNettyWebSocketClient();
+        URI uri = URI.create("ws://localhost:" + port + "/orders-ws");
+
+        List<ByteBuffer> received = new CopyOnWriteArrayList<>();
+
+        WebSocketHandler binaryClient = new WebSocketHandler() {
+            @Override
+            public List<String> getSubProtocols() {
+                return List.of("exchange-binary-v2");
+            }
+
+            @Override
+            public Mono<Void> handle(WebSocketSession session) {
+                return session.send(Flux.just(newOrder(1, 0, 99.5, 4), newOrder(2, 1, 99.0, 4))
+                                .delaySubscription(Duration.ofMillis(300))
+                                .map(bytes -> session.binaryMessage(factory -> factory.wrap(bytes))))
+                        .and(session.receive()
+                                .map(message -> {
+                                    ByteBuffer copy = ByteBuffer.allocate(message.getPayload().readableByteCount());
+                                    message.getPayload().toByteBuffer(copy);
+                                    return copy;
+                                })
+                                .doOnNext(received::add)
+                                .takeUntil(buffer -> received.size() == 3));
+            }
+        };
+
+        client.execute(uri, binaryClient).block(Duration.ofSeconds(10));
+
+        long acks = received.stream().filter(buffer -> buffer.get(0) == 3).count();
+        assertEquals(2, acks);
+        for (ByteBuffer buffer : received) {
+            if (buffer.get(0) == 3) {
+                assertEquals(18, buffer.limit());
+                assertEquals(0, buffer.get(9)); // ACCEPTED
+                assertTrue(buffer.getLong(10) > 0);
+            }
+        }
+
+        ByteBuffer trade = received.stream().filter(buffer -> buffer.get(0) == 4).findFirst().orElseThrow();
+        assertEquals(61, trade.limit());
+        assertEquals("BINTEST", new String(trade.array(), 1, 7, StandardCharsets.US_ASCII));
+        assertEquals(0, trade.get(8));
+        // ID-jevi naloga u trejdu su oni iz ACK-ova (tag 1 = BUY, tag 2 = SELL)
+        assertEquals(ackedOrderId(received, 1), trade.getLong(25));
+        assertEquals(ackedOrderId(received, 2), trade.getLong(33));
+        assertEquals(99.5, trade.getDouble(41));
+        assertEquals(99.0, trade.getDouble(49));
+        assertEquals(4, trade.getInt(57));
+    }
+
+    private static long ackedOrderId(List<ByteBuffer> received, long clientTag) {
+        return received.stream()
+                .filter(buffer -> buffer.get(0) == 3 && buffer.getLong(1) == clientTag)
+                .findFirst().orElseThrow()
+                .getLong(10);
+    }
+
+    private static byte[] newOrder(long clientTag, int side, double price, int amount) {
+        ByteBuffer buffer = ByteBuffer.allocate(38);
+        buffer.put((byte) 1).putLong(clientTag).put((byte) side).putDouble(price).putInt(amount);
+        buffer.put("BINTEST".getBytes(StandardCharsets.US_ASCII));
+        return buffer.array();
+    }
+}
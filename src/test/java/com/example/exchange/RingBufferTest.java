@@ -0,0 +1,138 @@
+package com.example.exchange;
+
+import com.example.exchange.engine.RingBuffer;
+import com.example.exchange.engine.WaitStrategy;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RingBufferTest {
+
+    @Test
+    public void testWraparoundKeepsOrderAndRespectsCapacity() {
+        RingBuffer<long[]> ring = new RingBuffer<>(8, () -> new long[1]);
+        List<Long> consumed = new ArrayList<>();
+
+        long next = 0;
+        for (int round = 0; round < 30; round++) {
+            // napuni do kapaciteta – sledece zauzimanje mora da padne
+            while (ring.size() < ring.getCapacity()) {
+                long sequence = ring.tryClaim(1);
+                assertTrue(sequence >= 0);
+                ring.get(sequence)[0] = next++;
+                ring.publish(sequence);
+            }
+            assertEquals(-1, ring.tryClaim(1));
+
+            // oslobodi samo deo, pa sledeci krug pise preko vec obradjenih slotova
+            ring.drain(entry -> consumed.add(entry[0]), 3);
+            assertEquals(5, ring.size());
+        }
+        ring.drain(entry -> consumed.add(entry[0]), 8);
+
+        assertEquals(next, consumed.size());
+        assertTrue(next > 8 * ring.getCapacity());
+        for (int i = 0; i < consumed.size(); i++) {
+            assertEquals(i, consumed.get(i));
+        }
+    }
+
+    @Test
+    public void testUnpublishedSlotStopsConsumer() {
+        RingBuffer<long[]> ring = new RingBuffer<>(8, () -> new long[1]);
+        long first = ring.tryClaim(1);
+        long second = ring.tryClaim(1);
+
+        // drugi producer je objavio pre prvog – consumer ne sme da ga preskoci
+        ring.publish(second);
+        assertEquals(0, ring.available(8));
+        ring.publish(first);
+        assertEquals(2, ring.available(8));
+    }
+
+    @Test
+    public void testBatchClaimAndCloseStopsProducers() {
+        RingBuffer<long[]> ring = new RingBuffer<>(8, () -> new long[1]);
+        assertThrows(IllegalArgumentException.class, () -> new RingBuffer<>(6, () -> new long[1]));
+        assertThrows(IllegalArgumentException.class, () -> ring.tryClaim(9));
+
+        assertEquals(2, ring.tryClaim(3));
+        assertEquals(-1, ring.tryClaim(6));
+
+        // posle zatvaranja zauzeti slotovi ostaju za consumer-a, a nova zauzimanja padaju
+        assertEquals(2, ring.close());
+        assertEquals(2, ring.close());
+        assertTrue(ring.isClosed());
+        assertEquals(-1, ring.tryClaim(1));
+        assertEquals(3, ring.size());
+        for (long sequence = 0; sequence <= 2; sequence++) {
+            ring.publish(sequence);
+        }
+        assertEquals(3, ring.drain(entry -> { }, 8));
+        assertEquals(0, ring.size());
+    }
+
+    @ParameterizedTest
+    @EnumSource(WaitStrategy.class)
+    public void testProducersKeepTheirOrderUnderContention(WaitStrategy waitStrategy) throws InterruptedException {
+        // mali buffer i mnogo poruka: producer-i stalno cekaju na mesto, consumer na objavu
+        RingBuffer<long[]> ring = new RingBuffer<>(64, () -> new long[2]);
+        int producers = 4;
+        int perProducer = 50_000;
+
+        long[] lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1);
+        int[] consumed = new int[1];
+        Thread consumer = new Thread(() -> {
+            while (consumed[0] < producers * perProducer) {
+                int drained = ring.drain(entry -> {
+                    int producer = (int) entry[0];
+                    // redosled jednog producer-a je sacuvan, bez rupa i ponavljanja
+                    assertEquals(lastSeen[producer] + 1, entry[1]);
+                    lastSeen[producer] = entry[1];
+                }, 16);
+                if (drained == 0) {
+                    waitStrategy.idle();
+                }
+                consumed[0] += drained;
+            }
+        });
+        List<Throwable> failures = new ArrayList<>();
+        consumer.setUncaughtExceptionHandler((thread, error) -> failures.add(error));
+        consumer.start();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    long sequence = ring.claim(waitStrategy);
+                    long[] entry = ring.get(sequence);
+                    entry[0] = producer;
+                    entry[1] = i;
+                    ring.publish(sequence);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join(30_000);
+        }
+        consumer.join(30_000);
+
+        assertTrue(failures.isEmpty(), () -> "Consumer: " + failures);
+        assertFalse(consumer.isAlive());
+        assertEquals(producers * perProducer, consumed[0]);
+        for (int p = 0; p < producers; p++) {
+            assertEquals(perProducer - 1, lastSeen[p]);
+        }
+        assertEquals(0, ring.size());
+    }
+}
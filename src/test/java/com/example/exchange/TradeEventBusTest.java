@@ -0,0 +1,89 @@
+package com.example.exchange;
+
+import com.example.exchange.engine.WaitStrategy;
+import com.example.exchange.events.EventStage;
+import com.example.exchange.events.TradeEventBus;
+import com.example.exchange.model.StageStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TradeEventBusTest {
+
+    private static final int CAPACITY = 16;
+
+    @Test
+    public void testLossyStagesDropWhileLosslessStagesKeepEveryTrade() throws InterruptedException {
+        List<Long> history = new ArrayList<>(); // puni ga samo nit faze
+        AtomicInteger candles = new AtomicInteger();
+        AtomicInteger logged = new AtomicInteger();
+        AtomicInteger broadcast = new AtomicInteger();
+        CountDownLatch stuck = new CountDownLatch(1);
+
+        TradeEventBus bus = new TradeEventBus()
+                // spora lossless faza: engine mora da je saceka, buffer je mnogo manji od broja trejdova
+                .addStage(new EventStage("history", CAPACITY, true, WaitStrategy.PARK, event -> {
+                    LockSupport.parkNanos(20_000);
+                    history.add(event.getTradeId());
+                }))
+                .addStage(new EventStage("candles", CAPACITY, true, WaitStrategy.PARK, event -> candles.incrementAndGet()))
+                // lossy faze stoje dok se test ne zavrsi, pa im se buffer napuni posle prvih CAPACITY trejdova
+                .addStage(new EventStage("log", CAPACITY, false, WaitStrategy.PARK, event -> {
+                    await(stuck);
+                    logged.incrementAndGet();
+                }))
+                .addStage(new EventStage("broadcast", CAPACITY, false, WaitStrategy.PARK, event -> {
+                    await(stuck);
+                    broadcast.incrementAndGet();
+                }));
+        bus.start();
+
+        int n = 2_000;
+        for (int i = 1; i <= n; i++) {
+            bus.publish("BUS", i, i, 2L * i, 2L * i + 1, 100.0, 100.0, 100.0, 1, i, false);
+        }
+
+        List<StageStats> stats = bus.getStats();
+        for (StageStats stage : stats.subList(2, 4)) {
+            assertFalse(stage.isLossless());
+            // najvise jedan pun buffer je prihvacen, sve ostalo je odbaceno i izbrojano
+            assertTrue(stage.getPublished() <= CAPACITY, stage.getName() + ": " + stage.getPublished());
+            assertEquals(n, stage.getPublished() + stage.getDropped());
+        }
+
+        stuck.countDown();
+        bus.stop();
+
+        // lossless faze nisu izgubile nijedan trejd i videle su ih redom
+        assertEquals(n, history.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i + 1, history.get(i));
+        }
+        assertEquals(n, candles.get());
+        stats = bus.getStats();
+        for (StageStats stage : stats.subList(0, 2)) {
+            assertTrue(stage.isLossless());
+            assertEquals(n, stage.getPublished());
+            assertEquals(0, stage.getDropped());
+        }
+
+        // prihvaceni dogadjaji lossy faza su obradjeni posle odblokiranja
+        assertEquals(stats.get(2).getPublished(), logged.get());
+        assertEquals(stats.get(3).getPublished(), broadcast.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(30, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}